@@ -0,0 +1,18 @@
+package ru.practicum;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+// Детерминированная последовательность ключей для каждого потока бенчмарка (xorshift64)
+@State(Scope.Thread)
+public class Keys {
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    // Индекс в диапазоне [0, bound)
+    public int next(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) ((seed >>> 1) % bound);
+    }
+}
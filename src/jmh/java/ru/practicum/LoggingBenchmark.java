@@ -0,0 +1,94 @@
+package ru.practicum;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.logging.RequestSummaryLogger;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// Цена журнала на запрос: чтение вещи через сервис плюс строка-итог запроса. Вывод идет в пустой поток,
+// поэтому замеряется форматирование и передача события, а не скорость консоли. Сравнение с ServiceBenchmark.itemById
+// показывает долю журнала во времени запроса:
+// mvn -Pjmh verify -Djmh.args="LoggingBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LoggingBenchmark {
+    private static final String PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p --- [%t] %-40.40logger{39} : %m%n";
+
+    // sync - вывод в потоке запроса, async - через кольцевой буфер AsyncAppender, как в logback-spring.xml
+    @Param({"sync", "async"})
+    public String appender;
+
+    // Доля запросов со строкой-итогом; 1 - старое поведение, когда каждый запрос оставлял след на INFO
+    @Param({"0.01", "1"})
+    public double sampleRate;
+
+    private Logger logger;
+    private Appender<ILoggingEvent> installed;
+    private RequestSummaryLogger summary;
+
+    @Setup
+    public void configure(ShareItData data) {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+        OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+        output.setContext(context);
+        output.setEncoder(encoder);
+        output.setOutputStream(OutputStream.nullOutputStream());
+        output.start();
+        installed = output;
+        if ("async".equals(appender)) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            async.setNeverBlock(true);
+            async.addAppender(output);
+            async.start();
+            installed = async;
+        }
+        logger = (Logger) LoggerFactory.getLogger("ru.practicum.shareit");
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(installed);
+        summary = new RequestSummaryLogger(sampleRate, 500);
+    }
+
+    @TearDown
+    public void restore() {
+        logger.detachAppender(installed);
+        installed.stop();
+        logger.setAdditive(true);
+        logger.setLevel(Level.WARN);
+    }
+
+    @Benchmark
+    public ItemResponseDto itemByIdWithSummary(ShareItData data, Keys keys) {
+        long startedAt = System.nanoTime();
+        long itemId = (long) keys.next(data.size) + 1;
+        ItemResponseDto item = data.itemService.getById(itemId, data.sharers[keys.next(data.sharers.length)]);
+        summary.record("GET", "/items/1", 200, "1", System.nanoTime() - startedAt);
+        return item;
+    }
+}
@@ -0,0 +1,31 @@
+package ru.practicum;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MapperBenchmark {
+
+    @Benchmark
+    public ItemResponseDto itemToResponseDto(ShareItData data, Keys keys) {
+        return data.itemMapper.toResponseDto(data.items[keys.next(data.size)]);
+    }
+
+    @Benchmark
+    public BookingResponseDto bookingToResponseDto(ShareItData data, Keys keys) {
+        return data.bookingMapper.toResponseDto(data.bookings[keys.next(data.size)]);
+    }
+
+    @Benchmark
+    public BookingShortDto bookingToShortDto(ShareItData data, Keys keys) {
+        return data.bookingMapper.toShortDto(data.bookings[keys.next(data.size)]);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.practicum;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.user.principal.Sharer;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+// Полные вызовы сервисов с уже разобранным пользователем, как их делает контроллер
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ServiceBenchmark {
+    private static final PageParams PAGE = PageParams.of(0, 20, null);
+
+    @Benchmark
+    public ItemResponseDto itemById(ShareItData data, Keys keys) {
+        return data.itemService.getById((long) keys.next(data.size) + 1, sharer(data, keys));
+    }
+
+    @Benchmark
+    public ItemResponseDto itemByIdAsOwner(ShareItData data, Keys keys) {
+        Item item = data.items[keys.next(data.size)];
+        return data.itemService.getById(item.getId(), Sharer.of(item.getOwnerId(), () -> null));
+    }
+
+    @Benchmark
+    public Collection<ItemResponseDto> itemSearch(ShareItData data, Keys keys) {
+        return data.itemService.search("пила", sharer(data, keys), PAGE);
+    }
+
+    @Benchmark
+    public Collection<ItemResponseDto> ownerItems(ShareItData data, Keys keys) {
+        Item item = data.items[keys.next(data.size)];
+        return data.itemService.getItems(Sharer.of(item.getOwnerId(), () -> null), PAGE);
+    }
+
+    @Benchmark
+    public BookingResponseDto bookingById(ShareItData data, Keys keys) {
+        return data.bookingService.getById(sharer(data, keys), (long) keys.next(data.size) + 1);
+    }
+
+    @Benchmark
+    public Collection<BookingResponseDto> bookerBookings(ShareItData data, Keys keys) {
+        return data.bookingService.getAllByBooker(sharer(data, keys), BookingState.ALL, PAGE);
+    }
+
+    @Benchmark
+    public Collection<ItemRequestResponseDto> allRequests(ShareItData data, Keys keys) {
+        return data.requestService.getAll(sharer(data, keys), PAGE);
+    }
+
+    // Запрос к несуществующему Ид: цена ошибки без стека вызовов
+    @Benchmark
+    public Object missingItem(ShareItData data, Keys keys) {
+        try {
+            return data.itemService.getById((long) data.size + 1 + keys.next(data.size), sharer(data, keys));
+        } catch (NotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Sharer resolveSharer(ShareItData data, Keys keys) {
+        return data.userService.resolveSharer((long) keys.next(data.size) + 1);
+    }
+
+    private static Sharer sharer(ShareItData data, Keys keys) {
+        return data.sharers[keys.next(data.sharers.length)];
+    }
+}
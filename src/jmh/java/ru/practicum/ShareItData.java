@@ -0,0 +1,151 @@
+package ru.practicum;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepositoryImpl;
+import ru.practicum.shareit.booking.service.BookingServiceImpl;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemMapper;
+import ru.practicum.shareit.item.repository.ItemRepositoryImpl;
+import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.model.RequestMapper;
+import ru.practicum.shareit.request.repository.ItemRequestRepositoryImpl;
+import ru.practicum.shareit.request.service.RequestServiceImpl;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.model.UserMapper;
+import ru.practicum.shareit.user.principal.Sharer;
+import ru.practicum.shareit.user.repository.InMemoryUserRepository;
+import ru.practicum.shareit.user.service.UserServiceImpl;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Общий набор данных для бенчмарков: size пользователей, вещей, броней и запросов в репозиториях в памяти
+// и сервисы поверх них без контекста Spring. Данные детерминированы (фиксированное зерно и время отсчета),
+// поэтому прогоны разных версий сравнимы. Полный объем:
+// mvn -Pjmh verify -Djmh.args="-p size=1000000 -jvmArgsAppend -Xmx8g -rf json -rff target/jmh-1m.json"
+@State(Scope.Benchmark)
+public class ShareItData {
+    public static final LocalDateTime EPOCH = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private static final String[] WORDS = {"дрель", "перфоратор", "лестница", "пила", "шуруповерт", "пылесос",
+            "палатка", "велосипед", "самокат", "проектор", "ударная", "аккумуляторная", "складная", "детский"};
+    private static final BookingStatus[] STATUSES = {BookingStatus.APPROVED, BookingStatus.APPROVED,
+            BookingStatus.WAITING, BookingStatus.REJECTED};
+
+    @Param({"100000"})
+    public int size;
+
+    public InMemoryUserRepository userRepository;
+    public ItemRepositoryImpl itemRepository;
+    public BookingRepositoryImpl bookingRepository;
+    public ItemRequestRepositoryImpl requestRepository;
+
+    public UserMapper userMapper;
+    public ItemMapper itemMapper;
+    public BookingMapper bookingMapper;
+    public RequestMapper requestMapper;
+
+    public UserServiceImpl userService;
+    public ItemServiceImpl itemService;
+    public BookingServiceImpl bookingService;
+    public RequestServiceImpl requestService;
+
+    public String[] emails;
+    public Item[] items;
+    public Booking[] bookings;
+    public Sharer[] sharers;
+
+    @Setup
+    public void generate() {
+        ((Logger) LoggerFactory.getLogger("ru.practicum.shareit")).setLevel(Level.WARN);
+        SplittableRandom random = new SplittableRandom(42);
+
+        userMapper = new UserMapper();
+        itemMapper = new ItemMapper();
+        bookingMapper = new BookingMapper();
+        requestMapper = new RequestMapper(itemMapper);
+
+        userRepository = new InMemoryUserRepository();
+        List<User> users = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            User user = new User();
+            user.setId((long) i);
+            user.setName("Пользователь " + i);
+            user.setEmail("user" + i + "@example.com");
+            userRepository.reserveEmail(user.getEmail(), user.getId());
+            users.add(user);
+        }
+        userRepository.saveAll(users);
+        emails = users.stream().map(User::getEmail).toArray(String[]::new);
+        UserResponseDto[] profiles = users.stream().map(userMapper::toResponseDto).toArray(UserResponseDto[]::new);
+
+        requestRepository = new ItemRequestRepositoryImpl();
+        for (int i = 0; i < size; i++) {
+            ItemRequest request = new ItemRequest();
+            request.setDescription("Нужна " + word(random));
+            request.setRequester(profiles[random.nextInt(size)]);
+            request.setCreated(EPOCH.minusMinutes(size - i));
+            requestRepository.save(request);
+        }
+
+        itemRepository = new ItemRepositoryImpl();
+        List<Item> itemList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Item item = new Item();
+            // Около десяти вещей на владельца
+            item.setOwnerId(random.nextLong(1, size / 10 + 2));
+            item.setName(word(random) + " " + word(random) + " " + i);
+            item.setDescription(word(random) + " " + word(random) + " " + word(random) + ", почти новая");
+            item.setAvailable(random.nextInt(4) > 0);
+            item.setRequestId(i % 4 == 0 ? random.nextLong(1, size + 1) : null);
+            itemList.add(item);
+        }
+        items = itemRepository.saveAll(itemList).toArray(Item[]::new);
+
+        // У каждой четвертой вещи по четыре брони подряд без пересечений: прошлые, текущие и будущие
+        // относительно EPOCH. Часы репозитория переводятся на EPOCH, чтобы фазы броней не зависели от даты запуска
+        bookingRepository = new BookingRepositoryImpl();
+        bookings = new Booking[size];
+        int bookedItems = Math.max(1, size / 4);
+        for (int i = 0; i < size; i++) {
+            Item item = items[i % bookedItems];
+            int slot = i / bookedItems;
+            Booking booking = new Booking();
+            booking.setItem(item);
+            booking.setBooker(profiles[(int) (item.getOwnerId() % size)]);
+            booking.setStart(EPOCH.minusDays(3).plusDays(2L * slot).plusHours(random.nextInt(24)));
+            booking.setEnd(booking.getStart().plusHours(1 + random.nextInt(23)));
+            booking.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+            bookings[i] = bookingRepository.save(booking);
+        }
+        bookingRepository.advanceTime(EPOCH);
+
+        userService = new UserServiceImpl(userRepository, itemRepository, userMapper);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        itemService = new ItemServiceImpl(itemRepository, itemMapper, bookingRepository, bookingMapper,
+                requestRepository, meterRegistry);
+        bookingService = new BookingServiceImpl(bookingMapper, bookingRepository, itemRepository, meterRegistry);
+        requestService = new RequestServiceImpl(requestMapper, requestRepository, itemRepository);
+        sharers = new Sharer[Math.min(size, 4096)];
+        for (int i = 0; i < sharers.length; i++) {
+            sharers[i] = Sharer.of(profiles[i]);
+        }
+    }
+
+    private static String word(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.booking;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+import ru.practicum.ShareItData;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepositoryImpl;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import java.util.concurrent.TimeUnit;
+
+// Подтверждение брони под конкуренцией: каждый поток меняет статус своих броней либо своей вещи,
+// либо одной общей вещи (sameItem). Масштабирование по ядрам - прогоны с разным числом потоков:
+// mvn -Pjmh verify -Djmh.args="BookingApprovalBenchmark -t 1" (затем -t 2, -t 4, ...)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookingApprovalBenchmark {
+    private static final int BOOKINGS_PER_THREAD = 1_000;
+
+    @Param({"false", "true"})
+    public boolean sameItem;
+
+    private BookingRepositoryImpl repository;
+    private int partitions;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("ru.practicum.shareit")).setLevel(Level.WARN);
+        repository = new BookingRepositoryImpl();
+        partitions = 0;
+    }
+
+    // Брони потока создаются при его подготовке; у разных потоков интервалы броней не пересекаются
+    synchronized long[] partition() {
+        int index = partitions++;
+        long itemId = sameItem ? 1L : index + 1L;
+        long[] ids = new long[BOOKINGS_PER_THREAD];
+        for (int i = 0; i < ids.length; i++) {
+            int slot = index * BOOKINGS_PER_THREAD + i;
+            ids[i] = save(itemId, slot).getId();
+        }
+        return ids;
+    }
+
+    // Подтверждение и возврат в ожидание, чтобы бронь снова можно было подтвердить
+    @Benchmark
+    public Booking approve(Bookings bookings) {
+        long id = bookings.next();
+        repository.updateStatus(id, BookingStatus.WAITING, BookingStatus.APPROVED);
+        return repository.updateStatus(id, BookingStatus.APPROVED, BookingStatus.WAITING);
+    }
+
+    private Booking save(long itemId, int slot) {
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwnerId(itemId);
+        UserResponseDto booker = new UserResponseDto();
+        booker.setId(1_000L + itemId);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(ShareItData.EPOCH.plusHours(slot));
+        booking.setEnd(ShareItData.EPOCH.plusHours(slot + 1));
+        return repository.save(booking);
+    }
+
+    @State(Scope.Thread)
+    public static class Bookings {
+        private long[] ids;
+        private int cursor;
+
+        @Setup
+        public void setUp(BookingApprovalBenchmark benchmark) {
+            ids = benchmark.partition();
+            cursor = 0;
+        }
+
+        long next() {
+            long id = ids[cursor];
+            cursor = cursor + 1 == ids.length ? 0 : cursor + 1;
+            return id;
+        }
+    }
+}
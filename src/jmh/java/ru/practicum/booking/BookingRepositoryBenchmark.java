@@ -0,0 +1,36 @@
+package ru.practicum.booking;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import ru.practicum.Keys;
+import ru.practicum.ShareItData;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.pagination.PageParams;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookingRepositoryBenchmark {
+    private static final PageParams PAGE = PageParams.of(0, 20, null);
+
+    @Benchmark
+    public Booking getById(ShareItData data, Keys keys) {
+        return data.bookingRepository.getById((long) keys.next(data.size) + 1);
+    }
+
+    @Benchmark
+    public Collection<Booking> findByOwnerId(ShareItData data, Keys keys) {
+        return data.bookingRepository.findByOwnerId(data.items[keys.next(data.size)].getOwnerId(),
+                BookingState.ALL, PAGE);
+    }
+
+    @Benchmark
+    public Booking findLastBooking(ShareItData data, Keys keys) {
+        return data.bookingRepository.findLastBooking((long) keys.next(data.size) + 1);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.item;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemRepositoryImpl;
+import ru.practicum.shareit.item.repository.OffHeapItemRepository;
+import ru.practicum.shareit.pagination.PageParams;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение хранилищ вещей: пропускная способность поиска и чтения по Ид, а также занимаемая память.
+// Память печатается при подготовке состояния: прирост занятой кучи после сборки мусора и размер буферов вне кучи
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ItemRepositoryBenchmark {
+    private static final String[] WORDS = {"дрель", "перфоратор", "лестница", "пила", "шуруповерт", "пылесос",
+            "палатка", "велосипед", "самокат", "проектор", "ударная", "аккумуляторная", "складная", "детский"};
+    private static final String[] QUERIES = {"дрель", "пила", "ударн", "вет", "самокат детский", "проектор 1"};
+    private static final PageParams PAGE = PageParams.of(0, 20, null);
+
+    @Param({"heap", "offheap"})
+    public String storage;
+
+    @Param({"100000"})
+    public int items;
+
+    private ItemRepository repository;
+    private int next;
+
+    @Setup
+    public void fill() {
+        ((Logger) LoggerFactory.getLogger("ru.practicum.shareit")).setLevel(Level.WARN);
+        long heapBefore = usedHeap();
+        repository = "offheap".equals(storage) ? new OffHeapItemRepository() : new ItemRepositoryImpl();
+        SplittableRandom random = new SplittableRandom(42);
+        List<Item> batch = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            Item item = new Item();
+            item.setOwnerId(random.nextLong(1, items / 10 + 2));
+            item.setName(word(random) + " " + word(random) + " " + i);
+            item.setDescription(word(random) + " " + word(random) + " " + word(random) + ", почти новая");
+            item.setAvailable(random.nextInt(4) > 0);
+            batch.add(item);
+        }
+        repository.saveAll(batch);
+        // Исходные объекты больше не нужны: в куче остается только то, что держит само хранилище
+        batch = null;
+        long heapBytes = usedHeap() - heapBefore;
+        long offHeapBytes = repository instanceof OffHeapItemRepository offHeap ? offHeap.offHeapBytes() : 0;
+        System.out.printf("%n%s, %,d вещей: куча %,d КБ, вне кучи %,d КБ%n",
+                storage, items, heapBytes / 1024, offHeapBytes / 1024);
+    }
+
+    @Benchmark
+    public Collection<Item> search() {
+        return repository.search(QUERIES[next++ % QUERIES.length], PAGE);
+    }
+
+    // Редкое совпадение: просмотр всех вещей для хранилища вне кучи
+    @Benchmark
+    public Collection<Item> searchRare() {
+        return repository.search("проектор 99", PAGE);
+    }
+
+    @Benchmark
+    public Collection<Item> findByOwnerId() {
+        next = next * 1_103_515_245 + 12_345;
+        return repository.findByOwnerId((long) (next >>> 1) % (items / 10 + 1) + 1, PAGE);
+    }
+
+    @Benchmark
+    public Item findById() {
+        next = next * 1_103_515_245 + 12_345;
+        return repository.findById((long) (next >>> 1) % items + 1);
+    }
+
+    private static String word(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,83 @@
+package ru.practicum.storage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+import ru.practicum.shareit.booking.repository.BookingRepositoryImpl;
+import ru.practicum.shareit.item.repository.ItemRepositoryImpl;
+import ru.practicum.shareit.request.repository.ItemRequestRepositoryImpl;
+import ru.practicum.shareit.storage.journal.DurableStorage;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.InMemoryUserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Время восстановления хранилищ при старте из снимка на size пользователей
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DurableStorageBenchmark {
+
+    @Param({"300000"})
+    public int size;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        ((Logger) LoggerFactory.getLogger("ru.practicum.shareit")).setLevel(Level.WARN);
+        directory = Files.createTempDirectory("shareit-jmh-");
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        DurableStorage storage = storage(users);
+        storage.start();
+        List<User> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            batch.add(user);
+        }
+        users.saveAll(batch);
+        storage.snapshot();
+        storage.close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public InMemoryUserRepository restart() throws IOException {
+        InMemoryUserRepository users = new InMemoryUserRepository();
+        DurableStorage storage = storage(users);
+        storage.start();
+        storage.close();
+        return users;
+    }
+
+    private DurableStorage storage(InMemoryUserRepository users) {
+        return new DurableStorage(List.of(users, new ItemRepositoryImpl(), new BookingRepositoryImpl(),
+                new ItemRequestRepositoryImpl()), directory, false);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.user;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import ru.practicum.Keys;
+import ru.practicum.ShareItData;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.concurrent.TimeUnit;
+
+// Время findById не должно расти с числом пользователей; сравнение по размерам:
+// mvn -Pjmh verify -Djmh.args="UserRepositoryBenchmark.findById -p size=1000,10000,100000,300000"
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserRepositoryBenchmark {
+
+    @Benchmark
+    public User findById(ShareItData data, Keys keys) {
+        return data.userRepository.findById((long) keys.next(data.size) + 1);
+    }
+
+    @Benchmark
+    public boolean existsByEmail(ShareItData data, Keys keys) {
+        return data.userRepository.existsByEmail(data.emails[keys.next(data.size)]);
+    }
+
+    @Benchmark
+    public boolean existsByEmailMissing(ShareItData data) {
+        return data.userRepository.existsByEmail("nobody@example.com");
+    }
+}
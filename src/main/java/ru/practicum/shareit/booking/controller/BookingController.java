@@ -3,11 +3,18 @@ package ru.practicum.shareit.booking.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.pagination.PageResponse;
+import ru.practicum.shareit.user.principal.Sharer;
 
 import java.util.Collection;
 
@@ -21,33 +28,55 @@ public class BookingController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public BookingResponseDto create(
-            @RequestHeader("X-Sharer-User-Id") Long userId,
+            Sharer user,
             @RequestBody @Valid BookingDto bookingDto) {
-        log.info("Получен запрос на бронирование от пользователя ID: {}", userId);
-        return bookingService.create(bookingDto, userId);
+        log.debug("Получен запрос на бронирование от пользователя ID: {}", user.getId());
+        return bookingService.create(bookingDto, user);
     }
 
     @PatchMapping("/{bookingId}")
-    public BookingResponseDto update(
-            @RequestHeader("X-Sharer-User-Id") Long userId,
+    public ResponseEntity<BookingResponseDto> update(
+            Sharer user,
             @PathVariable Long bookingId,
-            @RequestParam Boolean approved) {
-        log.info("Получен запрос на обновление статуса бронирования ID: {} от пользователя ID: {}", bookingId, userId);
-        return bookingService.update(bookingId, userId, approved);
+            @RequestParam Boolean approved,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        log.debug("Получен запрос на обновление статуса бронирования ID: {} от пользователя ID: {}", bookingId,
+                user.getId());
+        return EntityTags.ok(bookingService.update(bookingId, user, approved, ifMatch));
     }
 
     @GetMapping("/{bookingId}")
-    public BookingResponseDto getById(
-            @RequestHeader("X-Sharer-User-Id") Long userId,
-            @PathVariable Long bookingId) {
-        log.info("Получен запрос на получение бронирования ID: {} от пользователя ID: {}", bookingId, userId);
-        return bookingService.getById(bookingId, userId);
+    public ResponseEntity<BookingResponseDto> getById(
+            Sharer user,
+            @PathVariable Long bookingId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.debug("Получен запрос на получение бронирования ID: {} от пользователя ID: {}", bookingId, user.getId());
+        return EntityTags.conditional(bookingService.getTaggedById(user, bookingId), ifNoneMatch);
     }
 
     @GetMapping
-    public Collection<BookingResponseDto> getAllByBooker(
-            @RequestHeader("X-Sharer-User-Id") Long userId) {
-        log.info("Получен запрос на получение всех бронирований пользователя ID: {}", userId);
-        return bookingService.getAll(userId);
+    public ResponseEntity<Collection<BookingResponseDto>> getAllByBooker(
+            Sharer user,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false) Integer from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.debug("Получен запрос на получение бронирований пользователя ID: {} в состоянии {}", user.getId(), state);
+        PageParams page = PageParams.of(from, size, cursor);
+        return PageResponse.of(bookingService.getAllByBooker(user, BookingState.from(state), page), page,
+                BookingResponseDto::getId);
+    }
+
+    @GetMapping("/owner")
+    public ResponseEntity<Collection<BookingResponseDto>> getAllByOwner(
+            Sharer user,
+            @RequestParam(defaultValue = "ALL") String state,
+            @RequestParam(required = false) Integer from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.debug("Получен запрос на получение бронирований вещей владельца ID: {} в состоянии {}", user.getId(), state);
+        PageParams page = PageParams.of(from, size, cursor);
+        return PageResponse.of(bookingService.getAllByOwner(user, BookingState.from(state), page), page,
+                BookingResponseDto::getId);
     }
 }
\ No newline at end of file
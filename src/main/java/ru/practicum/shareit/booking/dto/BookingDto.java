@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import ru.practicum.shareit.user.dto.UserResponseDto;
 
@@ -7,8 +8,14 @@ import java.time.LocalDateTime;
 
 @Data
 public class BookingDto {
+    @NotNull(message = "Не указана вещь для бронирования")
     private Long itemId;
+
+    @NotNull(message = "Не указана дата начала бронирования")
     private LocalDateTime start;
+
+    @NotNull(message = "Не указана дата окончания бронирования")
     private LocalDateTime end;
+
     private UserResponseDto booker;
 }
@@ -2,16 +2,31 @@ package ru.practicum.shareit.booking.model;
 
 import lombok.Data;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.storage.Versioned;
 import ru.practicum.shareit.user.dto.UserResponseDto;
 
 import java.time.LocalDateTime;
 
 @Data
-public class Booking {
+public class Booking implements Versioned {
     private Long id;
+    private long version;
     private LocalDateTime start;
     private LocalDateTime end;
     private Item item;
     private UserResponseDto booker;
     private BookingStatus status = BookingStatus.WAITING;
+
+    // Вещь и арендатор - снимки на момент бронирования и не меняются, поэтому копируются по ссылке
+    public Booking copy() {
+        Booking copy = new Booking();
+        copy.setId(id);
+        copy.setVersion(version);
+        copy.setStart(start);
+        copy.setEnd(end);
+        copy.setItem(item);
+        copy.setBooker(booker);
+        copy.setStatus(status);
+        return copy;
+    }
 }
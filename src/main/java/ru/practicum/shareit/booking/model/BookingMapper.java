@@ -3,7 +3,9 @@ package ru.practicum.shareit.booking.model;
 import org.springframework.stereotype.Component;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.UserDto;
 
 @Component
@@ -29,6 +31,26 @@ public class BookingMapper {
             return dto;
         }
 
+        public BookingShortDto toShortDto(Booking booking) {
+            BookingShortDto dto = new BookingShortDto();
+            dto.setId(booking.getId());
+            dto.setBookerId(booking.getBooker().getId());
+            dto.setStart(booking.getStart());
+            dto.setEnd(booking.getEnd());
+            return dto;
+        }
+
+        // Бронь хранит снимок вещи на момент бронирования с теми же полями, что пишутся в журнал,
+        // поэтому до и после перезапуска бронь выглядит одинаково
+        public Item toItemSnapshot(Item item) {
+            Item snapshot = new Item();
+            snapshot.setId(item.getId());
+            snapshot.setOwnerId(item.getOwnerId());
+            snapshot.setName(item.getName());
+            snapshot.setVersion(item.getVersion());
+            return snapshot;
+        }
+
         public Booking toBooking(BookingDto bookingDto) {
             Booking booking = new Booking();
             booking.setStart(bookingDto.getStart());
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking.model;
+
+import ru.practicum.shareit.exceptions.ValidationException;
+
+public enum BookingState {
+    ALL,
+    CURRENT,
+    PAST,
+    FUTURE,
+    WAITING,
+    REJECTED;
+
+    public static BookingState from(String state) {
+        if (state == null || state.isBlank()) {
+            return ALL;
+        }
+        try {
+            return valueOf(state.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown state: " + state);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking.repository;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Подтвержденные брони каждой вещи, разделенные на начавшиеся и предстоящие.
+// Последняя бронь — конец первого набора, следующая — начало второго, поэтому карточка вещи
+// получает их за O(log n) без просмотра броней. Наборы меняются вместе со статусом и фазой брони.
+class ApprovedBookingIndex {
+    private static final Comparator<BookingTimeIndex.Key> BY_START =
+            Comparator.comparing(BookingTimeIndex.Key::start).thenComparing(BookingTimeIndex.Key::bookingId);
+
+    private final Map<Long, ItemBookings> items = new ConcurrentHashMap<>();
+
+    void add(Long itemId, BookingTimeIndex.Key key, BookingPhase phase) {
+        ItemBookings bookings = items.computeIfAbsent(itemId, id -> new ItemBookings());
+        if (phase == BookingPhase.FUTURE) {
+            bookings.upcoming.add(key);
+        } else {
+            bookings.started.add(key);
+        }
+    }
+
+    void remove(Long itemId, BookingTimeIndex.Key key) {
+        ItemBookings bookings = items.get(itemId);
+        if (bookings == null) {
+            return;
+        }
+        bookings.upcoming.remove(key);
+        bookings.started.remove(key);
+    }
+
+    Long last(Long itemId) {
+        ItemBookings bookings = items.get(itemId);
+        return bookings == null ? null : firstId(bookings.started.descendingSet());
+    }
+
+    Long next(Long itemId) {
+        ItemBookings bookings = items.get(itemId);
+        return bookings == null ? null : firstId(bookings.upcoming);
+    }
+
+    int size() {
+        return items.size();
+    }
+
+    private static Long firstId(NavigableSet<BookingTimeIndex.Key> keys) {
+        Iterator<BookingTimeIndex.Key> iterator = keys.iterator();
+        return iterator.hasNext() ? iterator.next().bookingId() : null;
+    }
+
+    private static class ItemBookings {
+        private final NavigableSet<BookingTimeIndex.Key> started = new ConcurrentSkipListSet<>(BY_START);
+        private final NavigableSet<BookingTimeIndex.Key> upcoming = new ConcurrentSkipListSet<>(BY_START);
+    }
+}
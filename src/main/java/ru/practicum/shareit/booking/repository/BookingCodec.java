@@ -0,0 +1,51 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.storage.journal.EntityCodec;
+import ru.practicum.shareit.storage.journal.RecordReader;
+import ru.practicum.shareit.storage.journal.RecordWriter;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+// Вещь и арендатор хранятся в брони в сокращенном виде: только поля, которые отдает BookingMapper,
+// и их версии, из которых собран ETag брони. Тот же снимок вещи бронь получает при создании
+// (BookingMapper.toItemSnapshot), поэтому после восстановления из журнала она не отличается
+class BookingCodec implements EntityCodec<Booking> {
+
+    @Override
+    public void write(Booking booking, RecordWriter out) {
+        Item item = booking.getItem();
+        UserResponseDto booker = booking.getBooker();
+        out.putDateTime(booking.getStart())
+                .putDateTime(booking.getEnd())
+                .putString(booking.getStatus().name())
+                .putLong(item.getId())
+                .putNullableLong(item.getOwnerId())
+                .putString(item.getName())
+                .putLong(item.getVersion())
+                .putLong(booker.getId())
+                .putString(booker.getName())
+                .putLong(booker.getVersion());
+    }
+
+    @Override
+    public Booking read(RecordReader in) {
+        Booking booking = new Booking();
+        booking.setStart(in.getDateTime());
+        booking.setEnd(in.getDateTime());
+        booking.setStatus(BookingStatus.valueOf(in.getString()));
+        Item item = new Item();
+        item.setId(in.getLong());
+        item.setOwnerId(in.getNullableLong());
+        item.setName(in.getString());
+        item.setVersion(in.getLong());
+        booking.setItem(item);
+        UserResponseDto booker = new UserResponseDto();
+        booker.setId(in.getLong());
+        booker.setName(in.getString());
+        booker.setVersion(in.getLong());
+        booking.setBooker(booker);
+        return booking;
+    }
+}
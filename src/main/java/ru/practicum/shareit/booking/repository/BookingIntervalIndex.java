@@ -0,0 +1,107 @@
+package ru.practicum.shareit.booking.repository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Занятые периоды каждой вещи (брони в статусах WAITING и APPROVED), упорядоченные по началу.
+// Периоды одной вещи не пересекаются, поэтому пересечение с новым периодом [start, end)
+// проверяется по двум соседям в дереве за O(log n) под блокировкой этой вещи.
+class BookingIntervalIndex {
+    private final Map<Long, ItemTimeline> timelines = new ConcurrentHashMap<>();
+
+    boolean tryReserve(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        ItemTimeline timeline = timelines.computeIfAbsent(itemId, id -> new ItemTimeline());
+        timeline.lock.lock();
+        try {
+            if (!timeline.fits(bookingId, start, end)) {
+                return false;
+            }
+            timeline.intervals.put(start, new Interval(bookingId, end));
+            return true;
+        } finally {
+            timeline.lock.unlock();
+        }
+    }
+
+    // Переносит период брони на новые даты; если они заняты, прежний период остается за бронью
+    boolean tryMove(Long itemId, Long bookingId, LocalDateTime oldStart, LocalDateTime start, LocalDateTime end) {
+        ItemTimeline timeline = timelines.computeIfAbsent(itemId, id -> new ItemTimeline());
+        timeline.lock.lock();
+        try {
+            Interval previous = timeline.intervals.get(oldStart);
+            boolean held = previous != null && previous.bookingId().equals(bookingId);
+            if (held) {
+                timeline.intervals.remove(oldStart);
+            }
+            if (!timeline.fits(bookingId, start, end)) {
+                if (held) {
+                    timeline.intervals.put(oldStart, previous);
+                }
+                return false;
+            }
+            timeline.intervals.put(start, new Interval(bookingId, end));
+            return true;
+        } finally {
+            timeline.lock.unlock();
+        }
+    }
+
+    boolean holds(Long itemId, Long bookingId, LocalDateTime start) {
+        ItemTimeline timeline = timelines.get(itemId);
+        if (timeline == null) {
+            return false;
+        }
+        timeline.lock.lock();
+        try {
+            Interval interval = timeline.intervals.get(start);
+            return interval != null && interval.bookingId().equals(bookingId);
+        } finally {
+            timeline.lock.unlock();
+        }
+    }
+
+    void release(Long itemId, Long bookingId, LocalDateTime start) {
+        ItemTimeline timeline = timelines.get(itemId);
+        if (timeline == null) {
+            return;
+        }
+        timeline.lock.lock();
+        try {
+            Interval interval = timeline.intervals.get(start);
+            if (interval != null && interval.bookingId().equals(bookingId)) {
+                timeline.intervals.remove(start);
+            }
+        } finally {
+            timeline.lock.unlock();
+        }
+    }
+
+    int size() {
+        return timelines.size();
+    }
+
+    private static class ItemTimeline {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final NavigableMap<LocalDateTime, Interval> intervals = new TreeMap<>();
+
+        private boolean fits(Long bookingId, LocalDateTime start, LocalDateTime end) {
+            Interval sameStart = intervals.get(start);
+            if (sameStart != null && !sameStart.bookingId().equals(bookingId)) {
+                return false;
+            }
+            Map.Entry<LocalDateTime, Interval> before = intervals.lowerEntry(start);
+            if (before != null && before.getValue().end().isAfter(start)) {
+                return false;
+            }
+            Map.Entry<LocalDateTime, Interval> after = intervals.higherEntry(start);
+            return after == null || !after.getKey().isBefore(end);
+        }
+    }
+
+    private record Interval(Long bookingId, LocalDateTime end) {
+    }
+}
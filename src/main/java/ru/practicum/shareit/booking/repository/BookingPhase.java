@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking.repository;
+
+import java.time.LocalDateTime;
+
+// Положение брони относительно текущего времени; пересчитывается колесом таймеров в начале и в конце брони
+enum BookingPhase {
+    FUTURE,
+    CURRENT,
+    PAST;
+
+    static BookingPhase of(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (start.isAfter(now)) {
+            return FUTURE;
+        }
+        return end.isAfter(now) ? CURRENT : PAST;
+    }
+}
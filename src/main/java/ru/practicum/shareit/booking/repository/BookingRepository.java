@@ -1,7 +1,11 @@
 package ru.practicum.shareit.booking.repository;
 
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.pagination.PageParams;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 
 public interface BookingRepository {
@@ -10,9 +14,22 @@ public interface BookingRepository {
 
     Booking update(Booking booking);
 
+    // Меняет статус, только если текущий равен expected: проверка и запись атомарны для этой брони
+    Booking updateStatus(Long bookingId, BookingStatus expected, BookingStatus status);
+
     Booking getById(Long bookingId);
 
-    Collection<Booking> getAll(Long userId);
+    Collection<Booking> findByBookerId(Long bookerId, BookingState state, PageParams page);
+
+    Collection<Booking> findByOwnerId(Long ownerId, BookingState state, PageParams page);
+
+    // Продвигает время репозитория: брони, у которых наступило начало или конец, меняют состояние
+    void advanceTime(LocalDateTime now);
+
+    // Последняя начавшаяся и ближайшая предстоящая подтвержденные брони вещи; null, если таких нет
+    Booking findLastBooking(Long itemId);
+
+    Booking findNextBooking(Long itemId);
 
     void deleteById(Long bookingId);
 }
\ No newline at end of file
@@ -1,50 +1,323 @@
 package ru.practicum.shareit.booking.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exceptions.BookingConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.scheduling.HashedTimingWheel;
+import ru.practicum.shareit.storage.EntityStore;
+import ru.practicum.shareit.storage.journal.EntityCodec;
+import ru.practicum.shareit.storage.journal.JournaledRepository;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
-public class BookingRepositoryImpl implements BookingRepository {
-    private static final Set<Booking> bookings = new HashSet<>();
-    private final AtomicLong generateIds = new AtomicLong(0);
+@Profile("!jdbc")
+public class BookingRepositoryImpl implements BookingRepository, JournaledRepository<Booking>, MeterBinder {
+    private static final int WHEEL_SLOTS = 4096;
+    private static final EntityCodec<Booking> CODEC = new BookingCodec();
+
+    private final EntityStore<Booking> bookings = new EntityStore<>(Booking::copy, this::rollback);
+    private final BookingIntervalIndex intervals = new BookingIntervalIndex();
+    private final BookingTimeIndex byBooker = new BookingTimeIndex();
+    private final BookingTimeIndex byOwner = new BookingTimeIndex();
+    private final ApprovedBookingIndex approvedByItem = new ApprovedBookingIndex();
+    private final Map<Long, BookingPhase> phases = new ConcurrentHashMap<>();
+    // Тик колеса равен секунде; в ячейку кладется Ид брони, которую нужно пересчитать в этот момент
+    private final HashedTimingWheel<Long> wheel;
+    private final ReentrantLock tickLock = new ReentrantLock();
+    private volatile LocalDateTime clockTime;
+
+    public BookingRepositoryImpl() {
+        clockTime = LocalDateTime.now();
+        wheel = new HashedTimingWheel<>(WHEEL_SLOTS, secondsFloor(clockTime));
+    }
 
     @Override
     public Booking save(Booking booking) {
-        booking.setId(generateIds.incrementAndGet());
-        log.info("Сохраняю бронь : {}", booking.getId());
-        bookings.add(booking);
+        booking.setId(bookings.nextId());
+        if (occupiesItem(booking.getStatus()) && !intervals.tryReserve(booking.getItem().getId(), booking.getId(),
+                booking.getStart(), booking.getEnd())) {
+            throw new BookingConflictException("Вещь уже забронирована на эти даты");
+        }
+        bookings.insert(booking, this::index);
+        log.debug("Сохраняю бронь : {}", booking.getId());
         return booking;
     }
 
     @Override
     public Booking update(Booking booking) {
-        return booking;
+        Booking updated = bookings.update(booking.getId(),
+                stored -> applyChange(stored, booking.getStart(), booking.getEnd(), booking.getStatus()));
+        if (updated == null) {
+            throw new NotFoundException("Бронь не найдена");
+        }
+        return updated;
+    }
+
+    @Override
+    public Booking updateStatus(Long bookingId, BookingStatus expected, BookingStatus status) {
+        Booking updated = bookings.update(bookingId, stored -> {
+            if (stored.getStatus() != expected) {
+                throw new ValidationException("Статус бронирования уже был изменен");
+            }
+            applyChange(stored, stored.getStart(), stored.getEnd(), status);
+        });
+        if (updated == null) {
+            throw new NotFoundException("Бронь не найдена");
+        }
+        return updated;
     }
 
     @Override
     public Booking getById(Long bookingId) {
-        return bookings.stream()
-                .filter(booking -> booking.getId().equals(bookingId))
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Бронь не найдена"));
+        Booking booking = bookings.get(bookingId);
+        if (booking == null) {
+            throw new NotFoundException("Бронь не найдена");
+        }
+        return booking;
+    }
+
+    @Override
+    public Collection<Booking> findByBookerId(Long bookerId, BookingState state, PageParams page) {
+        return find(byBooker, bookerId, state, page);
+    }
+
+    @Override
+    public Collection<Booking> findByOwnerId(Long ownerId, BookingState state, PageParams page) {
+        return find(byOwner, ownerId, state, page);
+    }
+
+    @Override
+    public Booking findLastBooking(Long itemId) {
+        return bookings.get(approvedByItem.last(itemId));
     }
 
     @Override
-    public Collection<Booking> getAll(Long userId) {
-        return new ArrayList<>();
+    public Booking findNextBooking(Long itemId) {
+        return bookings.get(approvedByItem.next(itemId));
     }
 
     @Override
     public void deleteById(Long bookingId) {
+        bookings.remove(bookingId, booking -> true, this::forget);
+    }
+
+    @Override
+    public void advanceTime(LocalDateTime now) {
+        tickLock.lock();
+        try {
+            if (!now.isAfter(clockTime)) {
+                return;
+            }
+            clockTime = now;
+            for (Long bookingId : wheel.advance(secondsFloor(now))) {
+                bookings.updateIfChanged(bookingId, this::refreshPhase);
+            }
+        } finally {
+            tickLock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ShareItMetrics.storeSize(registry, "bookings", bookings, EntityStore::size);
+        ShareItMetrics.indexSize(registry, "bookings.interval", intervals, BookingIntervalIndex::size);
+        ShareItMetrics.indexSize(registry, "bookings.booker", byBooker, BookingTimeIndex::size);
+        ShareItMetrics.indexSize(registry, "bookings.owner", byOwner, BookingTimeIndex::size);
+        ShareItMetrics.indexSize(registry, "bookings.approved", approvedByItem, ApprovedBookingIndex::size);
+        ShareItMetrics.indexSize(registry, "bookings.phase", phases, Map::size);
+        ShareItMetrics.indexSize(registry, "bookings.wheel", wheel, HashedTimingWheel::size);
+    }
+
+    @Override
+    public byte journalTag() {
+        return 3;
+    }
+
+    @Override
+    public EntityStore<Booking> store() {
+        return bookings;
+    }
+
+    @Override
+    public EntityCodec<Booking> codec() {
+        return CODEC;
+    }
+
+    // Брони в журнале уже прошли проверку пересечений, поэтому конфликт здесь означает поврежденные данные
+    @Override
+    public void restore(Booking booking) {
+        if (occupiesItem(booking.getStatus()) && !intervals.tryReserve(booking.getItem().getId(), booking.getId(),
+                booking.getStart(), booking.getEnd())) {
+            log.warn("Восстановленная бронь {} пересекается с другой бронью вещи {}", booking.getId(),
+                    booking.getItem().getId());
+        }
+        bookings.insert(booking, this::index);
+    }
+
+    @Override
+    public void evict(Long bookingId) {
+        deleteById(bookingId);
+    }
+
+    private Collection<Booking> find(BookingTimeIndex index, Long userId, BookingState state, PageParams page) {
+        BookingTimeIndex.Key after = null;
+        if (page.hasCursor()) {
+            Booking last = bookings.get(page.getAfterId());
+            if (last == null) {
+                throw new ValidationException("Некорректный курсор страницы");
+            }
+            after = timeKey(last);
+        }
+        return page.apply(index.find(userId, state, after)
+                        .map(bookings::get)
+                        .filter(Objects::nonNull))
+                .collect(Collectors.toList());
+    }
+
+    // Выполняется под блокировкой брони в хранилище; при пересечении периодов бронь не меняется
+    private void applyChange(Booking stored, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        Long itemId = stored.getItem().getId();
+        boolean wasOccupying = occupiesItem(stored.getStatus());
+        if (occupiesItem(status)) {
+            boolean reserved = wasOccupying
+                    ? intervals.tryMove(itemId, stored.getId(), stored.getStart(), start, end)
+                    : intervals.tryReserve(itemId, stored.getId(), start, end);
+            if (!reserved) {
+                throw new BookingConflictException("Вещь уже забронирована на эти даты");
+            }
+        } else if (wasOccupying) {
+            intervals.release(itemId, stored.getId(), stored.getStart());
+        }
+        unindex(stored);
+        stored.setStart(start);
+        stored.setEnd(end);
+        stored.setStatus(status);
+        index(stored);
+    }
+
+    // Срабатывание таймера: бронь переходит в следующую фазу, а неподтвержденная к началу отклоняется.
+    // Фаза хранится только во вторичных индексах, поэтому сохранять бронь (с новой версией и записью
+    // в журнал) нужно лишь при смене статуса. Устаревшие срабатывания (даты брони менялись) ничего не меняют
+    private boolean refreshPhase(Booking stored) {
+        LocalDateTime now = clockTime;
+        BookingStatus status = stored.getStatus();
+        boolean expired = status == BookingStatus.WAITING && !stored.getStart().isAfter(now);
+        if (!expired && phases.get(stored.getId()) == BookingPhase.of(stored.getStart(), stored.getEnd(), now)) {
+            return false;
+        }
+        unindex(stored);
+        index(stored);
+        return stored.getStatus() != status;
+    }
+
+    private void index(Booking stored) {
+        index(stored, true);
+    }
+
+    // Добавляет бронь в индексы по ее текущей фазе и ставит таймер на следующую смену фазы.
+    // Если колесо уже прошло нужный тик, фаза пересчитывается по обновленному времени
+    private void index(Booking stored, boolean rejectExpired) {
+        while (true) {
+            LocalDateTime now = clockTime;
+            if (rejectExpired && stored.getStatus() == BookingStatus.WAITING && !stored.getStart().isAfter(now)) {
+                intervals.release(stored.getItem().getId(), stored.getId(), stored.getStart());
+                stored.setStatus(BookingStatus.REJECTED);
+                log.info("Бронь {} не подтверждена до начала и отклонена", stored.getId());
+            }
+            BookingPhase phase = BookingPhase.of(stored.getStart(), stored.getEnd(), now);
+            phases.put(stored.getId(), phase);
+            byBooker.add(bookerId(stored), timeKey(stored), stored.getStatus(), phase);
+            byOwner.add(ownerId(stored), timeKey(stored), stored.getStatus(), phase);
+            if (stored.getStatus() == BookingStatus.APPROVED) {
+                approvedByItem.add(stored.getItem().getId(), timeKey(stored), phase);
+            }
+
+            LocalDateTime next = switch (phase) {
+                case FUTURE -> stored.getStart();
+                case CURRENT -> stored.getEnd();
+                case PAST -> null;
+            };
+            if (next == null || wheel.schedule(secondsCeil(next), stored.getId())) {
+                return;
+            }
+            unindex(stored);
+        }
+    }
+
+    // Изменение не попало в журнал: индексы и период возвращаются к опубликованной брони.
+    // Опубликованный экземпляр менять нельзя, поэтому просроченная бронь здесь не отклоняется:
+    // это сделает еще не сработавший таймер ее начала
+    private void rollback(Booking failed, Booking published) {
+        forget(failed);
+        if (published == null) {
+            return;
+        }
+        if (occupiesItem(published.getStatus()) && !intervals.tryReserve(published.getItem().getId(),
+                published.getId(), published.getStart(), published.getEnd())) {
+            log.warn("Бронь {} после отката пересекается с другой бронью вещи {}", published.getId(),
+                    published.getItem().getId());
+        }
+        index(published, false);
+    }
+
+    private void forget(Booking stored) {
+        unindex(stored);
+        phases.remove(stored.getId());
+        if (occupiesItem(stored.getStatus())) {
+            intervals.release(stored.getItem().getId(), stored.getId(), stored.getStart());
+        }
+    }
+
+    private void unindex(Booking stored) {
+        BookingPhase phase = phases.get(stored.getId());
+        if (phase == null) {
+            return;
+        }
+        byBooker.remove(bookerId(stored), timeKey(stored), stored.getStatus(), phase);
+        byOwner.remove(ownerId(stored), timeKey(stored), stored.getStatus(), phase);
+        approvedByItem.remove(stored.getItem().getId(), timeKey(stored));
+    }
+
+    private static long secondsFloor(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long secondsCeil(LocalDateTime time) {
+        return secondsFloor(time) + (time.getNano() > 0 ? 1 : 0);
+    }
+
+    private static BookingTimeIndex.Key timeKey(Booking booking) {
+        return new BookingTimeIndex.Key(booking.getStart(), booking.getId());
+    }
+
+    private static Long bookerId(Booking booking) {
+        return booking.getBooker() == null ? null : booking.getBooker().getId();
+    }
+
+    private static Long ownerId(Booking booking) {
+        return booking.getItem() == null ? null : booking.getItem().getOwnerId();
+    }
 
+    private static boolean occupiesItem(BookingStatus status) {
+        return status == BookingStatus.WAITING || status == BookingStatus.APPROVED;
     }
 }
@@ -0,0 +1,87 @@
+package ru.practicum.shareit.booking.repository;
+
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+// Брони каждого пользователя (арендатора или владельца вещи), упорядоченные по началу от поздних к ранним.
+// Кроме общего набора бронь лежит в наборе своего статуса и своей фазы (FUTURE/CURRENT/PAST),
+// поэтому выборка по состоянию читает готовый набор и не сравнивает даты каждой брони с текущим временем.
+class BookingTimeIndex {
+    private static final Comparator<Key> NEWEST_FIRST = Comparator.comparing(Key::start)
+            .thenComparing(Key::bookingId)
+            .reversed();
+
+    private final Map<Long, UserTimeline> timelines = new ConcurrentHashMap<>();
+
+    void add(Long userId, Key key, BookingStatus status, BookingPhase phase) {
+        if (userId == null) {
+            return;
+        }
+        UserTimeline timeline = timelines.computeIfAbsent(userId, id -> new UserTimeline());
+        timeline.all.add(key);
+        timeline.byStatus.get(status).add(key);
+        timeline.byPhase.get(phase).add(key);
+    }
+
+    // Для удаления брони из набора достаточно ее прежнего начала и Ид
+    void remove(Long userId, Key key, BookingStatus status, BookingPhase phase) {
+        UserTimeline timeline = userId == null ? null : timelines.get(userId);
+        if (timeline == null) {
+            return;
+        }
+        timeline.all.remove(key);
+        timeline.byStatus.get(status).remove(key);
+        timeline.byPhase.get(phase).remove(key);
+    }
+
+    // Ид броней пользователя в состоянии state по убыванию начала, начиная со следующей после after
+    Stream<Long> find(Long userId, BookingState state, Key after) {
+        UserTimeline timeline = userId == null ? null : timelines.get(userId);
+        if (timeline == null) {
+            return Stream.empty();
+        }
+        NavigableSet<Key> keys = switch (state) {
+            case ALL -> timeline.all;
+            case CURRENT -> timeline.byPhase.get(BookingPhase.CURRENT);
+            case PAST -> timeline.byPhase.get(BookingPhase.PAST);
+            case FUTURE -> timeline.byPhase.get(BookingPhase.FUTURE);
+            case WAITING -> timeline.byStatus.get(BookingStatus.WAITING);
+            case REJECTED -> timeline.byStatus.get(BookingStatus.REJECTED);
+        };
+        if (after != null) {
+            keys = keys.tailSet(after, false);
+        }
+        return keys.stream().map(Key::bookingId);
+    }
+
+    int size() {
+        return timelines.size();
+    }
+
+    record Key(LocalDateTime start, Long bookingId) {
+    }
+
+    private static class UserTimeline {
+        private final NavigableSet<Key> all = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+        private final Map<BookingStatus, NavigableSet<Key>> byStatus = new EnumMap<>(BookingStatus.class);
+        private final Map<BookingPhase, NavigableSet<Key>> byPhase = new EnumMap<>(BookingPhase.class);
+
+        private UserTimeline() {
+            for (BookingStatus status : BookingStatus.values()) {
+                byStatus.put(status, new ConcurrentSkipListSet<>(NEWEST_FIRST));
+            }
+            for (BookingPhase phase : BookingPhase.values()) {
+                byPhase.put(phase, new ConcurrentSkipListSet<>(NEWEST_FIRST));
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package ru.practicum.shareit.booking.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.exceptions.BookingConflictException;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.storage.SequenceIdAllocator;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Пересечение броней одной вещи проверяется в транзакции под блокировкой строки вещи (SELECT ... FOR UPDATE),
+// поэтому параллельные брони разных вещей не мешают друг другу. Состояния считаются запросом по индексам
+// (booker_id|owner_id, start_date DESC), устаревшие WAITING отклоняются одним UPDATE в advanceTime.
+// Имя и версия вещи и арендатора хранятся в строке брони снимком на момент создания, без соединений.
+@Slf4j
+@Repository
+@Profile("jdbc")
+public class JdbcBookingRepository implements BookingRepository {
+    private static final String SELECT_BOOKING = "SELECT b.id, b.version, b.item_id, b.owner_id, b.booker_id, "
+            + "b.start_date, b.end_date, b.status, b.item_name, b.item_version, b.booker_name, b.booker_version "
+            + "FROM bookings b ";
+    private static final String OCCUPYING = "('WAITING', 'APPROVED')";
+    private static final RowMapper<Booking> BOOKING_MAPPER = (rs, rowNum) -> {
+        Item item = new Item();
+        item.setId(rs.getLong("item_id"));
+        item.setOwnerId(rs.getLong("owner_id"));
+        item.setName(rs.getString("item_name"));
+        item.setVersion(rs.getLong("item_version"));
+        UserResponseDto booker = new UserResponseDto();
+        booker.setId(rs.getLong("booker_id"));
+        booker.setName(rs.getString("booker_name"));
+        booker.setVersion(rs.getLong("booker_version"));
+        Booking booking = new Booking();
+        booking.setId(rs.getLong("id"));
+        booking.setVersion(rs.getLong("version"));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(rs.getObject("start_date", LocalDateTime.class));
+        booking.setEnd(rs.getObject("end_date", LocalDateTime.class));
+        booking.setStatus(BookingStatus.valueOf(rs.getString("status")));
+        return booking;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SequenceIdAllocator ids;
+
+    public JdbcBookingRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 @Value("${shareit.jdbc.id-block-size:50}") int idBlockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ids = new SequenceIdAllocator(jdbcTemplate, "bookings_seq", idBlockSize);
+    }
+
+    @Override
+    public Booking save(Booking booking) {
+        booking.setId(ids.nextId());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (occupiesItem(booking.getStatus())) {
+                requireFree(booking.getItem().getId(), booking.getId(), booking.getStart(), booking.getEnd());
+            }
+            jdbcTemplate.update("INSERT INTO bookings (id, item_id, owner_id, booker_id, start_date, end_date, status, "
+                            + "item_name, item_version, booker_name, booker_version) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", booking.getId(), booking.getItem().getId(),
+                    booking.getItem().getOwnerId(), booking.getBooker().getId(), booking.getStart(), booking.getEnd(),
+                    booking.getStatus().name(), booking.getItem().getName(), booking.getItem().getVersion(),
+                    booking.getBooker().getName(), booking.getBooker().getVersion());
+        });
+        booking.setVersion(1);
+        log.debug("Сохраняю бронь : {}", booking.getId());
+        return booking;
+    }
+
+    @Override
+    public Booking update(Booking booking) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Booking stored = lockBooking(booking.getId());
+            if (occupiesItem(booking.getStatus())) {
+                requireFree(stored.getItem().getId(), stored.getId(), booking.getStart(), booking.getEnd());
+            }
+            jdbcTemplate.update("UPDATE bookings SET start_date = ?, end_date = ?, status = ?, "
+                            + "version = version + 1 WHERE id = ?",
+                    booking.getStart(), booking.getEnd(), booking.getStatus().name(), booking.getId());
+        });
+        return getById(booking.getId());
+    }
+
+    @Override
+    public Booking updateStatus(Long bookingId, BookingStatus expected, BookingStatus status) {
+        transactionTemplate.executeWithoutResult(transaction -> {
+            Booking stored = lockBooking(bookingId);
+            if (stored.getStatus() != expected) {
+                throw new ValidationException("Статус бронирования уже был изменен");
+            }
+            if (occupiesItem(status) && !occupiesItem(stored.getStatus())) {
+                requireFree(stored.getItem().getId(), stored.getId(), stored.getStart(), stored.getEnd());
+            }
+            jdbcTemplate.update("UPDATE bookings SET status = ?, version = version + 1 WHERE id = ?", status.name(),
+                    bookingId);
+        });
+        return getById(bookingId);
+    }
+
+    @Override
+    public Booking getById(Long bookingId) {
+        List<Booking> bookings = jdbcTemplate.query(SELECT_BOOKING + "WHERE b.id = ?", BOOKING_MAPPER, bookingId);
+        if (bookings.isEmpty()) {
+            throw new NotFoundException("Бронь не найдена");
+        }
+        return bookings.getFirst();
+    }
+
+    @Override
+    public Collection<Booking> findByBookerId(Long bookerId, BookingState state, PageParams page) {
+        return find("b.booker_id", bookerId, state, page);
+    }
+
+    @Override
+    public Collection<Booking> findByOwnerId(Long ownerId, BookingState state, PageParams page) {
+        return find("b.owner_id", ownerId, state, page);
+    }
+
+    @Override
+    public void advanceTime(LocalDateTime now) {
+        int rejected = jdbcTemplate.update("UPDATE bookings SET status = 'REJECTED', version = version + 1 "
+                + "WHERE status = 'WAITING' AND start_date <= ?", now);
+        if (rejected > 0) {
+            log.info("Отклонено неподтвержденных до начала броней: {}", rejected);
+        }
+    }
+
+    @Override
+    public Booking findLastBooking(Long itemId) {
+        List<Booking> bookings = jdbcTemplate.query(SELECT_BOOKING + "WHERE b.item_id = ? AND b.status = 'APPROVED' "
+                + "AND b.start_date <= ? ORDER BY b.start_date DESC LIMIT 1", BOOKING_MAPPER, itemId,
+                LocalDateTime.now());
+        return bookings.isEmpty() ? null : bookings.getFirst();
+    }
+
+    @Override
+    public Booking findNextBooking(Long itemId) {
+        List<Booking> bookings = jdbcTemplate.query(SELECT_BOOKING + "WHERE b.item_id = ? AND b.status = 'APPROVED' "
+                + "AND b.start_date > ? ORDER BY b.start_date LIMIT 1", BOOKING_MAPPER, itemId, LocalDateTime.now());
+        return bookings.isEmpty() ? null : bookings.getFirst();
+    }
+
+    @Override
+    public void deleteById(Long bookingId) {
+        jdbcTemplate.update("DELETE FROM bookings WHERE id = ?", bookingId);
+    }
+
+    private Collection<Booking> find(String userColumn, Long userId, BookingState state, PageParams page) {
+        LocalDateTime now = LocalDateTime.now();
+        StringBuilder sql = new StringBuilder(SELECT_BOOKING).append("WHERE ").append(userColumn).append(" = ?");
+        List<Object> args = new ArrayList<>(List.of(userId));
+        switch (state) {
+            case CURRENT -> {
+                sql.append(" AND b.start_date <= ? AND b.end_date > ?");
+                args.add(now);
+                args.add(now);
+            }
+            case PAST -> {
+                sql.append(" AND b.end_date <= ?");
+                args.add(now);
+            }
+            case FUTURE -> {
+                sql.append(" AND b.start_date > ?");
+                args.add(now);
+            }
+            case WAITING, REJECTED -> {
+                sql.append(" AND b.status = ?");
+                args.add(state.name());
+            }
+            case ALL -> {
+            }
+        }
+        if (page.hasCursor()) {
+            List<LocalDateTime> cursorStart = jdbcTemplate.queryForList(
+                    "SELECT start_date FROM bookings WHERE id = ?", LocalDateTime.class, page.getAfterId());
+            if (cursorStart.isEmpty()) {
+                throw new ValidationException("Некорректный курсор страницы");
+            }
+            sql.append(" AND (b.start_date < ? OR (b.start_date = ? AND b.id < ?))");
+            args.add(cursorStart.getFirst());
+            args.add(cursorStart.getFirst());
+            args.add(page.getAfterId());
+        }
+        sql.append(" ORDER BY b.start_date DESC, b.id DESC LIMIT ? OFFSET ?");
+        args.add(page.getSize());
+        args.add(page.getFrom());
+        return jdbcTemplate.query(sql.toString(), BOOKING_MAPPER, args.toArray());
+    }
+
+    private Booking lockBooking(Long bookingId) {
+        List<Long> locked = jdbcTemplate.queryForList("SELECT id FROM bookings WHERE id = ? FOR UPDATE", Long.class,
+                bookingId);
+        if (locked.isEmpty()) {
+            throw new NotFoundException("Бронь не найдена");
+        }
+        return getById(bookingId);
+    }
+
+    // Вызывается в транзакции: блокирует строку вещи и проверяет, что период свободен
+    private void requireFree(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        jdbcTemplate.queryForList("SELECT id FROM items WHERE id = ? FOR UPDATE", Long.class, itemId);
+        Integer overlapping = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM bookings WHERE item_id = ? "
+                        + "AND id <> ? AND status IN " + OCCUPYING + " AND start_date < ? AND end_date > ?",
+                Integer.class, itemId, bookingId, end, start);
+        if (overlapping != null && overlapping > 0) {
+            throw new BookingConflictException("Вещь уже забронирована на эти даты");
+        }
+    }
+
+    private static boolean occupiesItem(BookingStatus status) {
+        return status == BookingStatus.WAITING || status == BookingStatus.APPROVED;
+    }
+}
@@ -2,18 +2,28 @@ package ru.practicum.shareit.booking.service;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.etag.Tagged;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.user.principal.Sharer;
 
 import java.util.Collection;
 
 public interface BookingService {
 
-    BookingResponseDto create(BookingDto bookingDto, Long userId);
+    BookingResponseDto create(BookingDto bookingDto, Sharer booker);
 
-    BookingResponseDto update(Long bookingId, Long userId, Boolean approved);
+    BookingResponseDto update(Long bookingId, Sharer owner, Boolean approved);
 
-    BookingResponseDto getById(Long userId, Long bookingId);
+    Tagged<BookingResponseDto> update(Long bookingId, Sharer owner, Boolean approved, String ifMatch);
 
-    Collection<BookingResponseDto> getAll(Long userId);
+    BookingResponseDto getById(Sharer user, Long bookingId);
+
+    Tagged<BookingResponseDto> getTaggedById(Sharer user, Long bookingId);
+
+    Collection<BookingResponseDto> getAllByBooker(Sharer booker, BookingState state, PageParams page);
+
+    Collection<BookingResponseDto> getAllByOwner(Sharer owner, BookingState state, PageParams page);
 
     void deleteById(Long bookingId);
 }
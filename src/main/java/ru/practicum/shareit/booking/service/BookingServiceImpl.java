@@ -1,17 +1,27 @@
 package ru.practicum.shareit.booking.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingResponseDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.booking.model.BookingState;
 import ru.practicum.shareit.booking.model.BookingStatus;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.etag.Tagged;
+import ru.practicum.shareit.exceptions.BookingConflictException;
 import ru.practicum.shareit.exceptions.NotOwnerException;
 import ru.practicum.shareit.exceptions.ValidationException;
-import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.user.principal.Sharer;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.stream.Collectors;
 
@@ -20,42 +30,93 @@ import java.util.stream.Collectors;
 public class BookingServiceImpl implements BookingService {
     private final BookingMapper bookingMapper;
     private final BookingRepository bookingRepository;
-    private final UserService userService;
+    private final ItemRepository itemRepository;
+    private final MeterRegistry meterRegistry;
 
     @Override
-    public BookingResponseDto create(BookingDto bookingDto, Long userId) {
-        bookingDto.setBooker(userService.getById(userId));
-        return bookingMapper.toResponseDto(bookingRepository.save(bookingMapper.toBooking(bookingDto)));
+    public BookingResponseDto create(BookingDto bookingDto, Sharer booker) {
+        if (bookingDto.getStart().isBefore(LocalDateTime.now())) {
+            throw new ValidationException("Дата начала бронирования не может быть в прошлом");
+        }
+        if (!bookingDto.getStart().isBefore(bookingDto.getEnd())) {
+            throw new ValidationException("Дата окончания бронирования должна быть позже даты начала");
+        }
+        Item item = itemRepository.findById(bookingDto.getItemId());
+        if (!item.isAvailable()) {
+            throw new ValidationException("Вещь недоступна для бронирования");
+        }
+        if (item.getOwnerId().equals(booker.getId())) {
+            throw new ValidationException("Владелец не может бронировать свою вещь");
+        }
+        // Профиль нужен только для сохраняемой брони, поэтому загружается после всех проверок
+        bookingDto.setBooker(booker.getProfile());
+        Booking booking = bookingMapper.toBooking(bookingDto);
+        booking.setItem(bookingMapper.toItemSnapshot(item));
+        booking.setBooker(bookingDto.getBooker());
+        try {
+            return bookingMapper.toResponseDto(bookingRepository.save(booking));
+        } catch (BookingConflictException e) {
+            conflict("create");
+            throw e;
+        }
     }
 
     @Override
-    public BookingResponseDto update(Long bookingId, Long userId, Boolean approved) {
+    public BookingResponseDto update(Long bookingId, Sharer owner, Boolean approved) {
+        return update(bookingId, owner, approved, null).getBody();
+    }
+
+    @Override
+    public Tagged<BookingResponseDto> update(Long bookingId, Sharer owner, Boolean approved, String ifMatch) {
         Booking booking = bookingRepository.getById(bookingId);
 
-        if (!booking.getItem().getOwnerId().equals(userId)) {
+        if (!booking.getItem().getOwnerId().equals(owner.getId())) {
             throw new NotOwnerException("Только владелец вещи может подтверждать бронирование");
         }
-        booking.setBooker(userService.getById(userId));
+        // Сам переход статуса атомарен в репозитории, If-Match лишь отсекает решение по устаревшему представлению
+        if (ifMatch != null) {
+            EntityTags.requireMatch(ifMatch, tag(booking));
+        }
         if (booking.getStatus() != BookingStatus.WAITING) {
+            approval("already_decided");
             throw new ValidationException("Статус бронирования уже был изменен");
         }
-        if (approved) {
-            booking.setStatus(BookingStatus.APPROVED);
-        } else {
-            booking.setStatus(BookingStatus.REJECTED);
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        Booking decided;
+        try {
+            decided = bookingRepository.updateStatus(bookingId, BookingStatus.WAITING, status);
+        } catch (ValidationException e) {
+            approval("already_decided");
+            throw e;
+        } catch (BookingConflictException e) {
+            conflict("approve");
+            approval("conflict");
+            throw e;
         }
-        return bookingMapper.toResponseDto(bookingRepository.update(booking));
+        approval(approved ? "approved" : "rejected");
+        return tagged(decided);
+    }
+
+    @Override
+    public BookingResponseDto getById(Sharer user, Long bookingId) {
+        return getTaggedById(user, bookingId).getBody();
     }
 
     @Override
-    public BookingResponseDto getById(Long userId, Long bookingId) {
-        userService.getById(userId);
-        return bookingMapper.toResponseDto(bookingRepository.getById(bookingId));
+    public Tagged<BookingResponseDto> getTaggedById(Sharer user, Long bookingId) {
+        return tagged(bookingRepository.getById(bookingId));
     }
 
     @Override
-    public Collection<BookingResponseDto> getAll(Long userId) {
-        return bookingRepository.getAll(userId).stream()
+    public Collection<BookingResponseDto> getAllByBooker(Sharer booker, BookingState state, PageParams page) {
+        return bookingRepository.findByBookerId(booker.getId(), state, page).stream()
+                .map(bookingMapper::toResponseDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Collection<BookingResponseDto> getAllByOwner(Sharer owner, BookingState state, PageParams page) {
+        return bookingRepository.findByOwnerId(owner.getId(), state, page).stream()
                 .map(bookingMapper::toResponseDto)
                 .collect(Collectors.toList());
     }
@@ -64,4 +125,22 @@ public class BookingServiceImpl implements BookingService {
     public void deleteById(Long bookingId) {
         bookingRepository.deleteById(bookingId);
     }
+
+    private void conflict(String operation) {
+        meterRegistry.counter(ShareItMetrics.BOOKING_CONFLICTS, "operation", operation).increment();
+    }
+
+    private void approval(String outcome) {
+        meterRegistry.counter(ShareItMetrics.BOOKING_APPROVALS, "outcome", outcome).increment();
+    }
+
+    private Tagged<BookingResponseDto> tagged(Booking booking) {
+        return Tagged.of(tag(booking), () -> bookingMapper.toResponseDto(booking));
+    }
+
+    // В ответе есть вещь и автор брони, поэтому их версии тоже входят в ETag
+    private static String tag(Booking booking) {
+        return EntityTags.of(booking.getId(), booking.getVersion(), booking.getItem().getVersion(),
+                booking.getBooker().getVersion());
+    }
 }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.LocalDateTime;
+
+// Единственный поток планировщика Spring раз в тик продвигает время репозитория броней
+@Component
+@RequiredArgsConstructor
+public class BookingStateTicker {
+    private final BookingRepository bookingRepository;
+
+    @Scheduled(fixedDelayString = "${shareit.booking.state-tick-ms:1000}")
+    public void tick() {
+        bookingRepository.advanceTime(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,69 @@
+package ru.practicum.shareit.etag;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+
+public final class EntityTags {
+    private static final String WEAK_PREFIX = "W/";
+
+    private EntityTags() {
+    }
+
+    // Сильный ETag из Ид и версий всех сущностей, из которых собран ответ
+    public static String of(Long id, long... versions) {
+        StringBuilder tag = new StringBuilder().append('"').append(id);
+        for (long version : versions) {
+            tag.append('-').append(version);
+        }
+        return tag.append('"').toString();
+    }
+
+    // If-None-Match сравнивается слабо (RFC 9110, 13.1.2): совпадение дает 304 без построения тела
+    public static <T> ResponseEntity<T> conditional(Tagged<T> tagged, String ifNoneMatch, String... varyBy) {
+        if (ifNoneMatch != null && matches(ifNoneMatch, tagged.getEtag(), false)) {
+            return headers(ResponseEntity.status(HttpStatus.NOT_MODIFIED), tagged, varyBy).build();
+        }
+        return ok(tagged, varyBy);
+    }
+
+    public static <T> ResponseEntity<T> ok(Tagged<T> tagged, String... varyBy) {
+        return headers(ResponseEntity.ok(), tagged, varyBy).body(tagged.getBody());
+    }
+
+    // If-Match сравнивается строго (RFC 9110, 13.1.1); без заголовка изменение безусловное
+    public static void requireMatch(String ifMatch, String etag) {
+        if (ifMatch != null && !matches(ifMatch, etag, true)) {
+            throw new PreconditionFailedException("Версия изменилась, текущий ETag: " + etag);
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder headers(ResponseEntity.BodyBuilder response, Tagged<?> tagged,
+                                                      String... varyBy) {
+        response.eTag(tagged.getEtag());
+        // Представление зависит от заголовка (например, владелец видит брони), кэши должны это учитывать
+        if (varyBy.length > 0) {
+            response.varyBy(varyBy);
+        }
+        return response;
+    }
+
+    private static boolean matches(String header, String etag, boolean strong) {
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith(WEAK_PREFIX)) {
+                if (strong) {
+                    continue;
+                }
+                tag = tag.substring(WEAK_PREFIX.length());
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.etag;
+
+import java.util.function.Supplier;
+
+// Ответ вместе с его ETag. Тело строится только по запросу, поэтому ответ 304 обходится без маппера и Jackson
+public final class Tagged<T> {
+    private final String etag;
+    private final Supplier<T> body;
+
+    private Tagged(String etag, Supplier<T> body) {
+        this.etag = etag;
+        this.body = body;
+    }
+
+    public static <T> Tagged<T> of(String etag, Supplier<T> body) {
+        return new Tagged<>(etag, body);
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public T getBody() {
+        return body.get();
+    }
+}
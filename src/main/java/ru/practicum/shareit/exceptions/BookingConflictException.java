@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions;
+
+public class BookingConflictException extends DomainException {
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.exceptions;
+
+// Доменные ошибки - обычный поток управления (неизвестный Ид, чужая вещь, занятый email), и у них один
+// обработчик, который отдает только сообщение. Стек вызовов и подавленные исключения не собираются:
+// заполнение стека было самой дорогой частью ответа на запрос к несуществующему Ид
+public abstract class DomainException extends RuntimeException {
+    protected DomainException(String message) {
+        super(message, null, false, false);
+    }
+}
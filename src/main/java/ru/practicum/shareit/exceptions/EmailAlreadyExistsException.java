@@ -1,6 +1,6 @@
 package ru.practicum.shareit.exceptions;
 
-public class EmailAlreadyExistsException extends RuntimeException {
+public class EmailAlreadyExistsException extends DomainException {
     public EmailAlreadyExistsException(String message) {
         super(message);
     }
@@ -0,0 +1,55 @@
+package ru.practicum.shareit.exceptions;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Неизменяемые ответы одного вида ошибок, по одному на текст сообщения. Сообщения доменных исключений
+// почти всегда константы, поэтому повторная ошибка отдает уже готовый ответ. Сообщения с подставленными
+// значениями тоже попадают в кэш, но не больше MAX_CACHED штук, дальше ответ собирается заново
+final class ErrorResponses {
+    private static final int MAX_CACHED = 1024;
+
+    private final String messageKey;
+    private final HttpStatus status;
+    private final HttpHeaders headers;
+    private final Map<String, ResponseEntity<Map<String, String>>> cache = new ConcurrentHashMap<>();
+
+    ErrorResponses(String messageKey, HttpStatus status) {
+        this(messageKey, status, HttpHeaders.EMPTY);
+    }
+
+    ErrorResponses(String messageKey, HttpStatus status, HttpHeaders headers) {
+        this.messageKey = messageKey;
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    ResponseEntity<Map<String, String>> of(String message) {
+        if (message == null) {
+            return build(null);
+        }
+        ResponseEntity<Map<String, String>> response = cache.get(message);
+        if (response != null) {
+            return response;
+        }
+        response = build(message);
+        if (cache.size() < MAX_CACHED) {
+            ResponseEntity<Map<String, String>> raced = cache.putIfAbsent(message, response);
+            return raced == null ? response : raced;
+        }
+        return response;
+    }
+
+    private ResponseEntity<Map<String, String>> build(String message) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put(messageKey, message);
+        body.put("status", status.name());
+        return new ResponseEntity<>(Collections.unmodifiableMap(body), headers, status);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -12,6 +13,17 @@ import java.util.Map;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private static final ErrorResponses NOT_FOUND = new ErrorResponses("error", HttpStatus.NOT_FOUND);
+    private static final ErrorResponses BAD_REQUEST = new ErrorResponses("message", HttpStatus.BAD_REQUEST);
+    private static final ErrorResponses EMAIL_CONFLICT = new ErrorResponses("message", HttpStatus.CONFLICT);
+    private static final ErrorResponses BOOKING_CONFLICT = new ErrorResponses("message", HttpStatus.CONFLICT);
+    private static final ErrorResponses PRECONDITION_FAILED =
+            new ErrorResponses("message", HttpStatus.PRECONDITION_FAILED);
+    private static final ErrorResponses NOT_OWNER = new ErrorResponses("message", HttpStatus.CONFLICT);
+    private static final ErrorResponses TOO_MANY_REQUESTS =
+            new ErrorResponses("message", HttpStatus.TOO_MANY_REQUESTS, retryAfter(1));
+    private static final ErrorResponses SERVICE_UNAVAILABLE =
+            new ErrorResponses("message", HttpStatus.SERVICE_UNAVAILABLE, retryAfter(1));
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(
@@ -28,10 +40,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(NotFoundException.class)
     public ResponseEntity<Map<String, String>> handleNotFoundException(NotFoundException ex) {
-        Map<String, String> errorResponse = new HashMap<>();
-        errorResponse.put("error", ex.getMessage());
-        errorResponse.put("status", HttpStatus.NOT_FOUND.name());
-        return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+        return NOT_FOUND.of(ex.getMessage());
     }
 
     @ExceptionHandler(ConstraintViolationException.class)
@@ -49,26 +58,37 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<Map<String, String>> handleValidationException(ValidationException ex) {
-        Map<String, String> errorResponse = new HashMap<>();
-        errorResponse.put("message", ex.getMessage());
-        errorResponse.put("status", HttpStatus.BAD_REQUEST.name());
-        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        return BAD_REQUEST.of(ex.getMessage());
     }
 
     @ExceptionHandler(EmailAlreadyExistsException.class)
     public ResponseEntity<Map<String, String>> handleEmailAlreadyExistsException(EmailAlreadyExistsException ex) {
-        Map<String, String> errorResponse = new HashMap<>();
-        errorResponse.put("message", ex.getMessage());
-        errorResponse.put("status", HttpStatus.CONFLICT.name());
-        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+        return EMAIL_CONFLICT.of(ex.getMessage());
+    }
+
+    @ExceptionHandler(BookingConflictException.class)
+    public ResponseEntity<Map<String, String>> handleBookingConflictException(BookingConflictException ex) {
+        return BOOKING_CONFLICT.of(ex.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<Map<String, String>> handlePreconditionFailedException(PreconditionFailedException ex) {
+        return PRECONDITION_FAILED.of(ex.getMessage());
     }
 
     @ExceptionHandler(NotOwnerException.class)
-    public ResponseEntity<Map<String, String>> handleNotOwnerException(EmailAlreadyExistsException ex) {
-        Map<String, String> errorResponse = new HashMap<>();
-        errorResponse.put("message", ex.getMessage());
-        errorResponse.put("status", HttpStatus.CONFLICT.name());
-        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    public ResponseEntity<Map<String, String>> handleNotOwnerException(NotOwnerException ex) {
+        return NOT_OWNER.of(ex.getMessage());
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<Map<String, String>> handleTooManyRequestsException(TooManyRequestsException ex) {
+        return TOO_MANY_REQUESTS.of(ex.getMessage());
+    }
+
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<Map<String, String>> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        return SERVICE_UNAVAILABLE.of(ex.getMessage());
     }
 
     @ExceptionHandler(Throwable.class)
@@ -78,4 +98,10 @@ public class GlobalExceptionHandler {
         errorResponse.put("status", HttpStatus.INTERNAL_SERVER_ERROR.name());
         return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
     }
+
+    private static HttpHeaders retryAfter(int seconds) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, Integer.toString(seconds));
+        return headers;
+    }
 }
\ No newline at end of file
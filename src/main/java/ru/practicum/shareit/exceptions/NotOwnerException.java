@@ -1,6 +1,6 @@
 package ru.practicum.shareit.exceptions;
 
-public class NotOwnerException extends RuntimeException {
+public class NotOwnerException extends DomainException {
   public NotOwnerException(String message) {
     super(message);
   }
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions;
+
+public class PreconditionFailedException extends DomainException {
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions;
+
+public class ServiceOverloadedException extends DomainException {
+    public ServiceOverloadedException(String message) {
+        super(message);
+    }
+}
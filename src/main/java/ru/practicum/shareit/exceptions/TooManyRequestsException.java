@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exceptions;
+
+public class TooManyRequestsException extends DomainException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
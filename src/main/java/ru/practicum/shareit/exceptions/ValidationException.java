@@ -1,6 +1,6 @@
 package ru.practicum.shareit.exceptions;
 
-public class ValidationException extends RuntimeException {
+public class ValidationException extends DomainException {
     public ValidationException(String message) {
         super(message);
     }
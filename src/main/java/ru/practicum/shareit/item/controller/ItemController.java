@@ -3,12 +3,19 @@ package ru.practicum.shareit.item.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.etag.EntityTags;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.pagination.PageResponse;
+import ru.practicum.shareit.user.principal.Sharer;
+import ru.practicum.shareit.user.principal.SharerArgumentResolver;
 
 import java.util.Collection;
 
@@ -21,46 +28,62 @@ public class ItemController {
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
-    public ItemResponseDto add(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public ItemResponseDto add(Sharer user,
                                @RequestBody @Valid ItemDto item) {
-        log.info("Принял запрос на сохранение новой вещи: {}", item.getName());
-        return itemService.create(item, userId);
+        log.debug("Принял запрос на сохранение новой вещи: {}", item.getName());
+        return itemService.create(item, user);
     }
 
     @PatchMapping("/{itemId}")
-    public ItemResponseDto update(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                  @PathVariable Long itemId,
-                                  @RequestBody ItemPatchDto itemPatchDto) {
-        log.info("Принял запрос на обновление новой вещи: {}, Ид: {}, владелец: {}", itemPatchDto.getName(),
-                itemId, userId);
-        return itemService.update(itemPatchDto, itemId, userId);
+    public ResponseEntity<ItemResponseDto> update(Sharer user,
+                                                  @PathVariable Long itemId,
+                                                  @RequestBody ItemPatchDto itemPatchDto,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                  String ifMatch) {
+        if (log.isDebugEnabled()) {
+            log.debug("Принял запрос на обновление новой вещи: {}, Ид: {}, владелец: {}", itemPatchDto.getName(),
+                    itemId, user.getId());
+        }
+        return EntityTags.ok(itemService.update(itemPatchDto, itemId, user, ifMatch),
+                SharerArgumentResolver.HEADER);
     }
 
     @GetMapping("/{itemId}")
-    public ItemResponseDto getById(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                   @PathVariable Long itemId) {
-        log.info("Принял запрос на получение новой вещи: {}", itemId);
-        return itemService.getById(itemId, userId);
+    public ResponseEntity<ItemResponseDto> getById(Sharer user,
+                                                   @PathVariable Long itemId,
+                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                   String ifNoneMatch) {
+        log.debug("Принял запрос на получение новой вещи: {}", itemId);
+        return EntityTags.conditional(itemService.getTaggedById(itemId, user), ifNoneMatch,
+                SharerArgumentResolver.HEADER);
     }
 
     @GetMapping
-    public Collection<ItemResponseDto> get(@RequestHeader("X-Sharer-User-Id") Long userId) {
-        log.info("Принял запрос на получение всех вещей пользователя: {}", userId);
-        return itemService.getItems(userId);
+    public ResponseEntity<Collection<ItemResponseDto>> get(Sharer user,
+                                                           @RequestParam(required = false) Integer from,
+                                                           @RequestParam(required = false) Integer size,
+                                                           @RequestParam(required = false) String cursor) {
+        log.debug("Принял запрос на получение всех вещей пользователя: {}", user.getId());
+        PageParams page = PageParams.of(from, size, cursor);
+        return PageResponse.of(itemService.getItems(user, page), page, ItemResponseDto::getId);
     }
 
     @GetMapping("/search")
-    public Collection<ItemResponseDto> search(@RequestParam String text,
-                                              @RequestHeader("X-Sharer-User-Id") Long userId) {
-        log.info("Принял запрос на поиск вещи : {}", text);
-        return itemService.search(text, userId);
+    public ResponseEntity<Collection<ItemResponseDto>> search(@RequestParam String text,
+                                                              Sharer user,
+                                                              @RequestParam(required = false) Integer from,
+                                                              @RequestParam(required = false) Integer size,
+                                                              @RequestParam(required = false) String cursor) {
+        log.debug("Принял запрос на поиск вещи : {}", text);
+        PageParams page = PageParams.of(from, size, cursor);
+        return PageResponse.of(itemService.search(text, user, page), page, ItemResponseDto::getId);
     }
 
     @DeleteMapping("/{itemId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteItem(@RequestHeader("X-Sharer-User-Id") Long userId,
+    public void deleteItem(Sharer user,
                            @PathVariable(name = "itemId") Long itemId) {
-        log.info("Принял запрос на удаление вещи: ид пользователя {}, ид вещи {}", userId, itemId);
-        itemService.deleteItem(userId, itemId);
+        log.debug("Принял запрос на удаление вещи: ид пользователя {}, ид вещи {}", user.getId(), itemId);
+        itemService.deleteItem(user, itemId);
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.item.dto;
 
 import lombok.Data;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 
 @Data
 public class ItemResponseDto {
@@ -10,4 +11,6 @@ public class ItemResponseDto {
     private String description;
     private Long requestId;
     private boolean available;
+    private BookingShortDto lastBooking;
+    private BookingShortDto nextBooking;
 }
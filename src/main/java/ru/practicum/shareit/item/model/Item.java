@@ -1,14 +1,30 @@
 package ru.practicum.shareit.item.model;
 
 import lombok.Data;
+import ru.practicum.shareit.storage.Versioned;
 
 @Data
-public class Item {
+public class Item implements Versioned {
     private Long id;
+    private long version;
     private Long ownerId;
     private String url;
     private String name;
     private String description;
     private Long requestId;
     private boolean available;
-}
\ No newline at end of file
+
+    // Копия для изменения в хранилище: опубликованный экземпляр не меняется
+    public Item copy() {
+        Item copy = new Item();
+        copy.setId(id);
+        copy.setVersion(version);
+        copy.setOwnerId(ownerId);
+        copy.setUrl(url);
+        copy.setName(name);
+        copy.setDescription(description);
+        copy.setRequestId(requestId);
+        copy.setAvailable(available);
+        return copy;
+    }
+}
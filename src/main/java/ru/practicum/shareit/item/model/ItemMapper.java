@@ -13,6 +13,7 @@ public class ItemMapper {
         item.setDescription(itemDto.getDescription());
         item.setOwnerId(itemDto.getOwnerId());
         item.setName(itemDto.getName());
+        item.setRequestId(itemDto.getRequestId());
         item.setAvailable(itemDto.getAvailable() != null ? itemDto.getAvailable() : true);
         return item;
     }
@@ -28,20 +29,14 @@ public class ItemMapper {
         return itemDto;
     }
 
-    public Item updateItemFromPatchDto(ItemPatchDto itemPatchDto, Item existingItem) {
-        if (itemPatchDto.getName().isPresent()) {
-            existingItem.setName(itemPatchDto.getName().get());
-        }
-
-        if (itemPatchDto.getDescription().isPresent()) {
-            existingItem.setDescription(itemPatchDto.getDescription().get());
-        }
-
-        if (itemPatchDto.getAvailable().isPresent()) {
-            existingItem.setAvailable(itemPatchDto.getAvailable().get());
-        }
-
-        return existingItem;
+    // Только переданные клиентом поля; накладываются на вещь уже в хранилище
+    public ItemPatch toItemPatch(ItemPatchDto itemPatchDto) {
+        ItemPatch patch = new ItemPatch();
+        patch.setId(itemPatchDto.getId());
+        patch.setName(itemPatchDto.getName().orElse(null));
+        patch.setDescription(itemPatchDto.getDescription().orElse(null));
+        patch.setAvailable(itemPatchDto.getAvailable().orElse(null));
+        return patch;
     }
 
     public ItemResponseDto toResponseDto(Item item) {
@@ -51,6 +46,7 @@ public class ItemMapper {
         itemResponseDto.setDescription(item.getDescription());
         itemResponseDto.setName(item.getName());
         itemResponseDto.setOwnerId(item.getOwnerId());
+        itemResponseDto.setRequestId(item.getRequestId());
         return itemResponseDto;
     }
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item.model;
+
+import lombok.Data;
+
+// Изменение вещи: null - поле не передано и остается прежним. Поля накладываются на текущее состояние
+// внутри хранилища, поэтому параллельные PATCH разных полей не затирают друг друга
+@Data
+public class ItemPatch {
+    private Long id;
+    // Ожидаемая версия вещи, 0 - без проверки
+    private long version;
+    private Long ownerId;
+    private String name;
+    private String description;
+    private Boolean available;
+}
@@ -0,0 +1,150 @@
+package ru.practicum.shareit.item.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.storage.cache.RepositoryCaches;
+import ru.practicum.shareit.storage.cache.WriteBehindBuffer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Кэш вещей по Ид перед базой. Поиск, списки владельца и ответы на запросы не кэшируются,
+// но перед ними дописываются отложенные вставки, чтобы автор сразу видел свои вещи
+@Primary
+@Repository
+@Profile("jdbc")
+@ConditionalOnProperty(name = "shareit.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingItemRepository implements ItemRepository {
+    private final ItemRepository delegate;
+    private final Cache<Long, Item> cache;
+    private final WriteBehindBuffer<Item> writeBehind;
+
+    public CachingItemRepository(@Qualifier("jdbcItemRepository") ItemRepository delegate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${shareit.cache.item-max-bytes:67108864}") long maxBytes,
+                                 @Value("${shareit.cache.ttl-seconds:600}") long ttlSeconds,
+                                 @Value("${shareit.cache.write-behind.enabled:false}") boolean writeBehind,
+                                 @Value("${shareit.cache.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${shareit.cache.write-behind.flush-ms:200}") long flushMs,
+                                 @Value("${shareit.cache.write-behind.max-retries:5}") int maxRetries) {
+        this.delegate = delegate;
+        this.cache = RepositoryCaches.build("items", maxBytes, Duration.ofSeconds(ttlSeconds),
+                (id, item) -> RepositoryCaches.weight(item.getName(), item.getDescription(), item.getUrl()),
+                meterRegistry);
+        this.writeBehind = writeBehind
+                ? new WriteBehindBuffer<>("items", delegate::saveAll, item -> cache.invalidate(item.getId()),
+                        batchSize, flushMs, maxRetries, meterRegistry)
+                : null;
+    }
+
+    @Override
+    public Item save(Item item) {
+        if (writeBehind == null) {
+            Item saved = delegate.save(item);
+            cache.put(saved.getId(), saved);
+            return saved;
+        }
+        item.setId(delegate.nextId());
+        item.setVersion(1);
+        cache.put(item.getId(), item);
+        writeBehind.add(item.getId(), item);
+        return item;
+    }
+
+    @Override
+    public Collection<Item> saveAll(Collection<Item> items) {
+        flushPending();
+        return delegate.saveAll(items);
+    }
+
+    @Override
+    public Long nextId() {
+        return delegate.nextId();
+    }
+
+    @Override
+    public Collection<Item> findByOwnerId(Long ownerId, PageParams page) {
+        flushPending();
+        return delegate.findByOwnerId(ownerId, page);
+    }
+
+    @Override
+    public void deleteByUserIdAndItemId(Long userId, Long itemId) {
+        flushPending();
+        try {
+            delegate.deleteByUserIdAndItemId(userId, itemId);
+        } finally {
+            cache.invalidate(itemId);
+        }
+    }
+
+    // Из кэша сбрасываются вещи владельца по списку из базы, без перебора всего кэша
+    @Override
+    public void deleteByOwnerId(Long ownerId) {
+        flushPending();
+        List<Long> itemIds = delegate.findByOwnerId(ownerId, PageParams.of(null, null, null)).stream()
+                .map(Item::getId)
+                .toList();
+        try {
+            delegate.deleteByOwnerId(ownerId);
+        } finally {
+            cache.invalidateAll(itemIds);
+        }
+    }
+
+    @Override
+    public Item findById(Long itemId) {
+        Item pending = writeBehind == null ? null : writeBehind.get(itemId);
+        if (pending != null) {
+            return pending;
+        }
+        return cache.get(itemId, delegate::findById);
+    }
+
+    @Override
+    public Item update(ItemPatch item) {
+        flushPending();
+        try {
+            return delegate.update(item);
+        } finally {
+            cache.invalidate(item.getId());
+        }
+    }
+
+    @Override
+    public Collection<Item> search(String text, PageParams page) {
+        flushPending();
+        return delegate.search(text, page);
+    }
+
+    @Override
+    public Map<Long, List<Item>> findByRequestIds(Collection<Long> requestIds) {
+        flushPending();
+        return delegate.findByRequestIds(requestIds);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
+
+    private void flushPending() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+}
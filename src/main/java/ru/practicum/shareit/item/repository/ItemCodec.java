@@ -0,0 +1,31 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.storage.journal.EntityCodec;
+import ru.practicum.shareit.storage.journal.RecordReader;
+import ru.practicum.shareit.storage.journal.RecordWriter;
+
+class ItemCodec implements EntityCodec<Item> {
+
+    @Override
+    public void write(Item item, RecordWriter out) {
+        out.putNullableLong(item.getOwnerId())
+                .putString(item.getUrl())
+                .putString(item.getName())
+                .putString(item.getDescription())
+                .putNullableLong(item.getRequestId())
+                .putBoolean(item.isAvailable());
+    }
+
+    @Override
+    public Item read(RecordReader in) {
+        Item item = new Item();
+        item.setOwnerId(in.getNullableLong());
+        item.setUrl(in.getString());
+        item.setName(in.getString());
+        item.setDescription(in.getString());
+        item.setRequestId(in.getNullableLong());
+        item.setAvailable(in.getBoolean());
+        return item;
+    }
+}
@@ -1,20 +1,34 @@
 package ru.practicum.shareit.item.repository;
 
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.pagination.PageParams;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 public interface ItemRepository {
 
     Item save(Item item);
 
-    Collection<Item> findByOwnerId(Long ownerId);
+    // Пакетное сохранение; Ид, заранее выданные nextId(), сохраняются
+    Collection<Item> saveAll(Collection<Item> items);
+
+    Long nextId();
+
+    Collection<Item> findByOwnerId(Long ownerId, PageParams page);
 
     void deleteByUserIdAndItemId(Long userId, Long itemId);
 
+    void deleteByOwnerId(Long ownerId);
+
     Item findById(Long itemId);
 
-    Item update(Item item);
+    Item update(ItemPatch patch);
+
+    Collection<Item> search(String text, PageParams page);
 
-    Collection<Item> search(String text);
+    // Вещи, созданные в ответ на запросы, сгруппированные по Ид запроса
+    Map<Long, List<Item>> findByRequestIds(Collection<Long> requestIds);
 }
\ No newline at end of file
@@ -1,87 +1,254 @@
 package ru.practicum.shareit.item.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.storage.EntityStore;
+import ru.practicum.shareit.storage.journal.EntityCodec;
+import ru.practicum.shareit.storage.journal.JournaledRepository;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Repository
-public class ItemRepositoryImpl implements ItemRepository {
-    private static final Set<Item> items = new HashSet<>();
-    private final AtomicLong generateIds = new AtomicLong(0);
+@Profile("!jdbc")
+@ConditionalOnProperty(name = "shareit.item.storage", havingValue = "heap", matchIfMissing = true)
+public class ItemRepositoryImpl implements ItemRepository, JournaledRepository<Item>, MeterBinder {
+    private static final EntityCodec<Item> CODEC = new ItemCodec();
+
+    private final EntityStore<Item> items = new EntityStore<>(Item::copy, this::rollback);
+    private final Map<Long, NavigableSet<Long>> itemsByOwner = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Long>> itemsByRequest = new ConcurrentHashMap<>();
+    private final ItemSearchIndex searchIndex = new ItemSearchIndex();
 
     @Override
     public Item save(Item item) {
-        log.info("Сохраняю вещь : {}", item.getName());
-        item.setId(generateIds.incrementAndGet());
-        items.add(item);
-        return item;
+        log.debug("Сохраняю вещь : {}", item.getName());
+        item.setId(null);
+        return items.insert(item, this::index);
     }
 
     @Override
-    public Collection<Item> findByOwnerId(Long ownerId) {
-        log.info("Ищу вещи владельца : {}", ownerId);
+    public Collection<Item> saveAll(Collection<Item> items) {
         return items.stream()
-                .filter(item -> item.getOwnerId().equals(ownerId))
+                .map(item -> this.items.insert(item, this::index))
                 .collect(Collectors.toList());
     }
 
     @Override
-    public void deleteByUserIdAndItemId(Long userId, Long itemId) {
-        log.info("Удаляю вещь : {}, {}", itemId, userId);
-        items.removeIf(item -> item.getOwnerId().equals(userId) && item.getId().equals(itemId));
+    public Long nextId() {
+        return items.nextId();
     }
 
     @Override
-    public Item findById(Long itemId) {
-        log.info("Ищу по Ид вещь : {}", itemId);
-        return items.stream()
-                .filter(item -> item.getId().equals(itemId))
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Предмет не найден"));
+    public Collection<Item> findByOwnerId(Long ownerId, PageParams page) {
+        log.debug("Ищу вещи владельца : {}", ownerId);
+        NavigableSet<Long> itemIds = ownerId == null ? null : itemsByOwner.get(ownerId);
+        if (itemIds == null) {
+            return Collections.emptyList();
+        }
+        if (page.hasCursor()) {
+            itemIds = itemIds.tailSet(page.getAfterId(), false);
+        }
+        return page.apply(itemIds.stream()
+                        .map(items::get)
+                        .filter(Objects::nonNull))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void deleteByUserIdAndItemId(Long userId, Long itemId) {
+        log.debug("Удаляю вещь : {}, {}", itemId, userId);
+        items.remove(itemId, item -> item.getOwnerId().equals(userId), this::unindex);
     }
 
     @Override
-    public Item update(Item item) {
-        log.info("Обновляю вещь : {}", item.getName());
-        Item item1 = findById(item.getId());
-        if (item.getOwnerId() != null) {
-            item1.setOwnerId(item.getOwnerId());
+    public void deleteByOwnerId(Long ownerId) {
+        log.debug("Удаляю все вещи владельца : {}", ownerId);
+        Set<Long> itemIds = ownerId == null ? null : itemsByOwner.remove(ownerId);
+        if (itemIds == null) {
+            return;
         }
-        if (item.getDescription() != null && !item.getDescription().isBlank()) {
-            item1.setDescription(item.getDescription());
+        for (Long itemId : itemIds) {
+            items.remove(itemId, item -> item.getOwnerId().equals(ownerId), item -> {
+                removeFrom(itemsByRequest, item.getRequestId(), item.getId());
+                searchIndex.remove(item.getId());
+            });
         }
-        if (item.getName() != null && !item.getName().isBlank()) {
-            item1.setName(item.getName());
+    }
+
+    @Override
+    public Item findById(Long itemId) {
+        log.debug("Ищу по Ид вещь : {}", itemId);
+        Item item = items.get(itemId);
+        if (item == null) {
+            throw new NotFoundException("Предмет не найден");
         }
-        item1.setAvailable(item.isAvailable());
+        return item;
+    }
 
-        return item1;
+    @Override
+    public Item update(ItemPatch patch) {
+        log.debug("Обновляю вещь : {}", patch.getId());
+        Item updated = items.update(patch.getId(), item1 -> {
+            if (patch.getVersion() != 0 && patch.getVersion() != item1.getVersion()) {
+                throw new PreconditionFailedException("Вещь была изменена другим запросом");
+            }
+            if (patch.getOwnerId() != null && !patch.getOwnerId().equals(item1.getOwnerId())) {
+                removeFromOwner(item1.getOwnerId(), item1.getId());
+                item1.setOwnerId(patch.getOwnerId());
+                addToOwner(item1.getOwnerId(), item1.getId());
+            }
+            if (patch.getDescription() != null && !patch.getDescription().isBlank()) {
+                item1.setDescription(patch.getDescription());
+            }
+            if (patch.getName() != null && !patch.getName().isBlank()) {
+                item1.setName(patch.getName());
+            }
+            if (patch.getAvailable() != null) {
+                item1.setAvailable(patch.getAvailable());
+            }
+            searchIndex.index(item1.getId(), item1.getName(), item1.getDescription());
+        });
+        if (updated == null) {
+            throw new NotFoundException("Предмет не найден");
+        }
+        return updated;
     }
 
     @Override
-    public Collection<Item> search(String text) {
-        log.info("Ищу вещь по имени и описанию : {}", text);
+    public Collection<Item> search(String text, PageParams page) {
+        log.debug("Ищу вещь по имени и описанию : {}", text);
         if (text == null || text.isBlank()) {
             return Collections.emptyList();
         }
 
-        String searchText = text.toLowerCase();
-
-        return items.stream()
-                .filter(Item::isAvailable)
-                .filter(item -> (item.getName() != null && item.getName().toLowerCase().contains(searchText)) ||
-                        (item.getDescription() != null && item.getDescription().toLowerCase().contains(searchText))
-                )
+        String query = text.toLowerCase();
+        return page.apply(searchIndex.candidates(query, page.getAfterId())
+                        .filter(id -> searchIndex.matches(id, query))
+                        .map(items::get)
+                        .filter(Objects::nonNull)
+                        .filter(Item::isAvailable))
                 .collect(Collectors.toList());
     }
 
-}
\ No newline at end of file
+    @Override
+    public Map<Long, List<Item>> findByRequestIds(Collection<Long> requestIds) {
+        Map<Long, List<Item>> result = new HashMap<>();
+        for (Long requestId : requestIds) {
+            NavigableSet<Long> itemIds = requestId == null ? null : itemsByRequest.get(requestId);
+            if (itemIds == null) {
+                continue;
+            }
+            List<Item> answers = itemIds.stream()
+                    .map(items::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            if (!answers.isEmpty()) {
+                result.put(requestId, answers);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ShareItMetrics.storeSize(registry, "items", items, EntityStore::size);
+        ShareItMetrics.indexSize(registry, "items.owner", itemsByOwner, Map::size);
+        ShareItMetrics.indexSize(registry, "items.request", itemsByRequest, Map::size);
+        ShareItMetrics.indexSize(registry, "items.search", searchIndex, ItemSearchIndex::size);
+    }
+
+    @Override
+    public byte journalTag() {
+        return 2;
+    }
+
+    @Override
+    public EntityStore<Item> store() {
+        return items;
+    }
+
+    @Override
+    public EntityCodec<Item> codec() {
+        return CODEC;
+    }
+
+    @Override
+    public void restore(Item item) {
+        items.insert(item, this::index);
+    }
+
+    @Override
+    public void evict(Long itemId) {
+        items.remove(itemId, item -> true, this::unindex);
+    }
+
+    private void index(Item item) {
+        addToOwner(item.getOwnerId(), item.getId());
+        addTo(itemsByRequest, item.getRequestId(), item.getId());
+        searchIndex.index(item.getId(), item.getName(), item.getDescription());
+    }
+
+    private void unindex(Item item) {
+        removeFromOwner(item.getOwnerId(), item.getId());
+        removeFrom(itemsByRequest, item.getRequestId(), item.getId());
+        searchIndex.remove(item.getId());
+    }
+
+    // Изменение не попало в журнал: индексы возвращаются к опубликованному состоянию
+    private void rollback(Item failed, Item published) {
+        unindex(failed);
+        if (published != null) {
+            index(published);
+        }
+    }
+
+    private void addToOwner(Long ownerId, Long itemId) {
+        addTo(itemsByOwner, ownerId, itemId);
+    }
+
+    private void removeFromOwner(Long ownerId, Long itemId) {
+        removeFrom(itemsByOwner, ownerId, itemId);
+    }
+
+    private static void addTo(Map<Long, NavigableSet<Long>> index, Long key, Long itemId) {
+        if (key == null) {
+            return;
+        }
+        index.compute(key, (id, itemIds) -> {
+            NavigableSet<Long> keyItems = itemIds == null ? new ConcurrentSkipListSet<>() : itemIds;
+            keyItems.add(itemId);
+            return keyItems;
+        });
+    }
+
+    private static void removeFrom(Map<Long, NavigableSet<Long>> index, Long key, Long itemId) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfPresent(key, (id, itemIds) -> {
+            itemIds.remove(itemId);
+            return itemIds.isEmpty() ? null : itemIds;
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package ru.practicum.shareit.item.repository;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+// Инвертированный индекс по n-граммам (длиной от 1 до 3) названия и описания вещи.
+// Запрос длиной от 3 символов раскладывается на триграммы, короткий запрос ищется как единая n-грамма;
+// кандидаты из пересечения списков затем проверяются на вхождение подстроки.
+// Списки отсортированы по Ид, поэтому пересечение строится лениво и обрывается вместе со страницей.
+class ItemSearchIndex {
+    private static final int MAX_GRAM_LENGTH = 3;
+
+    private final Map<String, Posting> postings = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedText> texts = new ConcurrentHashMap<>();
+
+    void index(Long itemId, String name, String description) {
+        IndexedText text = new IndexedText(lower(name), lower(description));
+        texts.compute(itemId, (id, previous) -> {
+            Set<String> oldGrams = previous == null ? Set.of() : previous.grams();
+            Set<String> newGrams = text.grams();
+            for (String gram : oldGrams) {
+                if (!newGrams.contains(gram)) {
+                    removePosting(gram, id);
+                }
+            }
+            for (String gram : newGrams) {
+                if (!oldGrams.contains(gram)) {
+                    addPosting(gram, id);
+                }
+            }
+            return text;
+        });
+    }
+
+    void remove(Long itemId) {
+        texts.computeIfPresent(itemId, (id, previous) -> {
+            previous.grams().forEach(gram -> removePosting(gram, id));
+            return null;
+        });
+    }
+
+    // Лениво возвращает по возрастанию Ид вещей после afterId, содержащих все n-граммы запроса;
+    // обходится хвост самого короткого списка, остальные только проверяются. query уже в нижнем регистре
+    Stream<Long> candidates(String query, Long afterId) {
+        List<Posting> lists = new ArrayList<>();
+        for (String gram : queryGrams(query)) {
+            Posting posting = postings.get(gram);
+            if (posting == null) {
+                return Stream.empty();
+            }
+            lists.add(posting);
+        }
+        lists.sort(Comparator.comparingInt(Posting::size));
+
+        NavigableSet<Long> smallest = lists.getFirst().ids;
+        List<Posting> others = lists.subList(1, lists.size());
+        NavigableSet<Long> tail = afterId == null ? smallest : smallest.tailSet(afterId, false);
+        return tail.stream()
+                .filter(id -> others.stream().allMatch(posting -> posting.ids.contains(id)));
+    }
+
+    // Проверяет, что название или описание вещи действительно содержит подстроку запроса
+    boolean matches(Long itemId, String query) {
+        IndexedText indexed = texts.get(itemId);
+        return indexed != null && indexed.contains(query);
+    }
+
+    int size() {
+        return postings.size();
+    }
+
+    private void addPosting(String gram, Long itemId) {
+        postings.compute(gram, (key, posting) -> {
+            Posting gramPosting = posting == null ? new Posting() : posting;
+            if (gramPosting.ids.add(itemId)) {
+                gramPosting.size++;
+            }
+            return gramPosting;
+        });
+    }
+
+    private void removePosting(String gram, Long itemId) {
+        postings.computeIfPresent(gram, (key, posting) -> {
+            if (posting.ids.remove(itemId)) {
+                posting.size--;
+            }
+            return posting.size == 0 ? null : posting;
+        });
+    }
+
+    private static Set<String> queryGrams(String query) {
+        if (query.length() <= MAX_GRAM_LENGTH) {
+            return Set.of(query);
+        }
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + MAX_GRAM_LENGTH <= query.length(); i++) {
+            grams.add(query.substring(i, i + MAX_GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String lower(String value) {
+        return value == null ? "" : value.toLowerCase();
+    }
+
+    // Размер ведется отдельно: size() у ConcurrentSkipListSet обходит весь список.
+    // Меняется только внутри compute по своей n-грамме, поэтому достаточно volatile
+    private static final class Posting {
+        private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+        private volatile int size;
+
+        int size() {
+            return size;
+        }
+    }
+
+    private record IndexedText(String name, String description) {
+
+        boolean contains(String query) {
+            return name.contains(query) || description.contains(query);
+        }
+
+        Set<String> grams() {
+            Set<String> grams = new HashSet<>();
+            addGrams(name, grams);
+            addGrams(description, grams);
+            return grams;
+        }
+
+        private static void addGrams(String value, Set<String> grams) {
+            for (int i = 0; i < value.length(); i++) {
+                for (int length = 1; length <= MAX_GRAM_LENGTH && i + length <= value.length(); length++) {
+                    grams.add(value.substring(i, i + length));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package ru.practicum.shareit.item.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.storage.SequenceIdAllocator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@Repository
+@Profile("jdbc")
+public class JdbcItemRepository implements ItemRepository {
+    private static final String SELECT_ITEM =
+            "SELECT id, version, owner_id, name, description, url, request_id, available FROM items ";
+    private static final String INSERT_ITEM = "INSERT INTO items (id, owner_id, name, description, url, request_id, "
+            + "available) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final RowMapper<Item> ITEM_MAPPER = (rs, rowNum) -> {
+        Item item = new Item();
+        item.setId(rs.getLong("id"));
+        item.setVersion(rs.getLong("version"));
+        item.setOwnerId(rs.getLong("owner_id"));
+        item.setName(rs.getString("name"));
+        item.setDescription(rs.getString("description"));
+        item.setUrl(rs.getString("url"));
+        item.setRequestId(rs.getObject("request_id", Long.class));
+        item.setAvailable(rs.getBoolean("available"));
+        return item;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final SequenceIdAllocator ids;
+    private final int batchSize;
+
+    public JdbcItemRepository(JdbcTemplate jdbcTemplate,
+                              @Value("${shareit.jdbc.id-block-size:50}") int idBlockSize,
+                              @Value("${shareit.jdbc.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.ids = new SequenceIdAllocator(jdbcTemplate, "items_seq", idBlockSize);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Item save(Item item) {
+        log.debug("Сохраняю вещь : {}", item.getName());
+        if (item.getId() == null) {
+            item.setId(ids.nextId());
+        }
+        jdbcTemplate.update(INSERT_ITEM, item.getId(), item.getOwnerId(), item.getName(), item.getDescription(),
+                item.getUrl(), item.getRequestId(), item.isAvailable());
+        item.setVersion(1);
+        return item;
+    }
+
+    @Override
+    public Collection<Item> saveAll(Collection<Item> items) {
+        List<Item> saved = new ArrayList<>(items);
+        for (Item item : saved) {
+            if (item.getId() == null) {
+                item.setId(ids.nextId());
+            }
+            item.setVersion(1);
+        }
+        jdbcTemplate.batchUpdate(INSERT_ITEM, saved, batchSize, (ps, item) -> {
+            ps.setLong(1, item.getId());
+            ps.setLong(2, item.getOwnerId());
+            ps.setString(3, item.getName());
+            ps.setString(4, item.getDescription());
+            ps.setString(5, item.getUrl());
+            ps.setObject(6, item.getRequestId());
+            ps.setBoolean(7, item.isAvailable());
+        });
+        return saved;
+    }
+
+    @Override
+    public Long nextId() {
+        return ids.nextId();
+    }
+
+    @Override
+    public Collection<Item> findByOwnerId(Long ownerId, PageParams page) {
+        log.debug("Ищу вещи владельца : {}", ownerId);
+        long afterId = page.hasCursor() ? page.getAfterId() : 0L;
+        return jdbcTemplate.query(SELECT_ITEM + "WHERE owner_id = ? AND id > ? ORDER BY id LIMIT ? OFFSET ?",
+                ITEM_MAPPER, ownerId, afterId, page.getSize(), page.getFrom());
+    }
+
+    @Override
+    public void deleteByUserIdAndItemId(Long userId, Long itemId) {
+        log.debug("Удаляю вещь : {}, {}", itemId, userId);
+        jdbcTemplate.update("DELETE FROM items WHERE id = ? AND owner_id = ?", itemId, userId);
+    }
+
+    @Override
+    public void deleteByOwnerId(Long ownerId) {
+        log.debug("Удаляю все вещи владельца : {}", ownerId);
+        jdbcTemplate.update("DELETE FROM items WHERE owner_id = ?", ownerId);
+    }
+
+    @Override
+    public Item findById(Long itemId) {
+        log.debug("Ищу по Ид вещь : {}", itemId);
+        List<Item> items = jdbcTemplate.query(SELECT_ITEM + "WHERE id = ?", ITEM_MAPPER, itemId);
+        if (items.isEmpty()) {
+            throw new NotFoundException("Предмет не найден");
+        }
+        return items.getFirst();
+    }
+
+    @Override
+    public Item update(ItemPatch item) {
+        log.debug("Обновляю вещь : {}", item.getId());
+        String name = item.getName() != null && !item.getName().isBlank() ? item.getName() : null;
+        String description = item.getDescription() != null && !item.getDescription().isBlank()
+                ? item.getDescription() : null;
+        int updated = jdbcTemplate.update("UPDATE items SET owner_id = COALESCE(?, owner_id), "
+                        + "name = COALESCE(?, name), description = COALESCE(?, description), "
+                        + "available = COALESCE(?, available), "
+                        + "version = version + 1 WHERE id = ? AND (? = 0 OR version = ?)",
+                item.getOwnerId(), name, description, item.getAvailable(), item.getId(), item.getVersion(),
+                item.getVersion());
+        Item stored = findById(item.getId());
+        if (updated == 0) {
+            throw new PreconditionFailedException("Вещь была изменена другим запросом");
+        }
+        return stored;
+    }
+
+    @Override
+    public Collection<Item> search(String text, PageParams page) {
+        log.debug("Ищу вещь по имени и описанию : {}", text);
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String pattern = "%" + escapeLike(text.toLowerCase()) + "%";
+        long afterId = page.hasCursor() ? page.getAfterId() : 0L;
+        return jdbcTemplate.query(SELECT_ITEM + "WHERE available AND id > ? AND (LOWER(name) LIKE ? ESCAPE '\\' "
+                        + "OR LOWER(description) LIKE ? ESCAPE '\\') ORDER BY id LIMIT ? OFFSET ?",
+                ITEM_MAPPER, afterId, pattern, pattern, page.getSize(), page.getFrom());
+    }
+
+    @Override
+    public Map<Long, List<Item>> findByRequestIds(Collection<Long> requestIds) {
+        if (requestIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, List<Item>> result = new LinkedHashMap<>();
+        namedJdbcTemplate.query(SELECT_ITEM + "WHERE request_id IN (:ids) ORDER BY request_id, id",
+                Map.of("ids", requestIds), rs -> {
+                    Item item = ITEM_MAPPER.mapRow(rs, 0);
+                    result.computeIfAbsent(item.getRequestId(), id -> new ArrayList<>()).add(item);
+                });
+        return result;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
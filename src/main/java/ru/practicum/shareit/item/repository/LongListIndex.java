@@ -0,0 +1,81 @@
+package ru.practicum.shareit.item.repository;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Ид вещей по ключу (владелец, запрос) в отсортированных примитивных массивах вместо множеств Long.
+// Доступ под блокировкой хранилища
+final class LongListIndex {
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<Long, LongList> lists = new HashMap<>();
+
+    void add(Long key, long id) {
+        if (key != null) {
+            lists.computeIfAbsent(key, k -> new LongList()).add(id);
+        }
+    }
+
+    void remove(Long key, long id) {
+        if (key == null) {
+            return;
+        }
+        LongList list = lists.get(key);
+        if (list != null && list.remove(id) && list.size == 0) {
+            lists.remove(key);
+        }
+    }
+
+    // Копия Ид по ключу, больших afterId, по возрастанию
+    long[] after(Long key, long afterId) {
+        LongList list = key == null ? null : lists.get(key);
+        if (list == null) {
+            return EMPTY;
+        }
+        int from = Arrays.binarySearch(list.values, 0, list.size, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        return Arrays.copyOfRange(list.values, from, list.size);
+    }
+
+    long heapBytes() {
+        long bytes = 0;
+        for (LongList list : lists.values()) {
+            bytes += 64 + (long) list.values.length * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    int size() {
+        return lists.size();
+    }
+
+    private static final class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = value;
+            size++;
+        }
+
+        boolean remove(long value) {
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
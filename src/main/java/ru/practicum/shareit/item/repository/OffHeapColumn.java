@@ -0,0 +1,66 @@
+package ru.practicum.shareit.item.repository;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Столбец значений фиксированной ширины вне кучи. Память выделяется блоками по CHUNK_ROWS строк,
+// поэтому рост не копирует уже записанные данные. Доступ только абсолютный (get/put по индексу),
+// синхронизация - на стороне владельца столбца
+final class OffHeapColumn {
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_ROWS = 1 << CHUNK_SHIFT;
+
+    private final int width;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    OffHeapColumn(int width) {
+        this.width = width;
+    }
+
+    void ensureRows(long rows) {
+        while ((long) chunks.size() * CHUNK_ROWS < rows) {
+            chunks.add(ByteBuffer.allocateDirect(CHUNK_ROWS * width));
+        }
+    }
+
+    long capacity() {
+        return (long) chunks.size() * CHUNK_ROWS;
+    }
+
+    long bytes() {
+        return (long) chunks.size() * CHUNK_ROWS * width;
+    }
+
+    long getLong(long row) {
+        return chunk(row).getLong(offset(row));
+    }
+
+    void putLong(long row, long value) {
+        chunk(row).putLong(offset(row), value);
+    }
+
+    int getInt(long row) {
+        return chunk(row).getInt(offset(row));
+    }
+
+    void putInt(long row, int value) {
+        chunk(row).putInt(offset(row), value);
+    }
+
+    byte getByte(long row) {
+        return chunk(row).get(offset(row));
+    }
+
+    void putByte(long row, byte value) {
+        chunk(row).put(offset(row), value);
+    }
+
+    private ByteBuffer chunk(long row) {
+        return chunks.get((int) (row >>> CHUNK_SHIFT));
+    }
+
+    private int offset(long row) {
+        return (int) (row & (CHUNK_ROWS - 1)) * width;
+    }
+}
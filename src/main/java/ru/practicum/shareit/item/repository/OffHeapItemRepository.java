@@ -0,0 +1,424 @@
+package ru.practicum.shareit.item.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.pagination.PageParams;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+// Вещи в столбцах вне кучи: строка столбца - это Ид - 1, поэтому сам Ид не хранится.
+// Тексты лежат в Utf8Arena, поиск идет последовательным просмотром флагов и поискового текста
+// (название и описание в нижнем регистре через байт 0xFF, который не встречается в UTF-8).
+// В куче остаются только индексы по владельцу и запросу. Журнал изменений для этого хранилища не ведется
+@Slf4j
+@Repository
+@Profile("!jdbc")
+@ConditionalOnProperty(name = "shareit.item.storage", havingValue = "offheap")
+public class OffHeapItemRepository implements ItemRepository, MeterBinder {
+    private static final byte PRESENT = 1;
+    private static final byte AVAILABLE = 2;
+    private static final long NO_REQUEST = Long.MIN_VALUE;
+    private static final byte SEPARATOR = (byte) 0xFF;
+    private static final int SEARCH_CHUNK_ROWS = 4096;
+
+    private final StampedLock lock = new StampedLock();
+    private final OffHeapColumn flags = new OffHeapColumn(Byte.BYTES);
+    private final OffHeapColumn versions = new OffHeapColumn(Long.BYTES);
+    private final OffHeapColumn owners = new OffHeapColumn(Long.BYTES);
+    private final OffHeapColumn requests = new OffHeapColumn(Long.BYTES);
+    private final Utf8Arena arena = new Utf8Arena();
+    private final TextColumn names = new TextColumn();
+    private final TextColumn descriptions = new TextColumn();
+    private final TextColumn urls = new TextColumn();
+    private final TextColumn searchTexts = new TextColumn();
+    private final LongListIndex itemsByOwner = new LongListIndex();
+    private final LongListIndex itemsByRequest = new LongListIndex();
+    // Последний выданный Ид; все строки до него выделены
+    private long sequence;
+    private long count;
+
+    @Override
+    public Item save(Item item) {
+        log.debug("Сохраняю вещь : {}", item.getName());
+        return write(() -> {
+            item.setId(++sequence);
+            item.setVersion(1);
+            insert(item);
+            return item;
+        });
+    }
+
+    @Override
+    public Collection<Item> saveAll(Collection<Item> items) {
+        return write(() -> {
+            List<Item> saved = new ArrayList<>(items.size());
+            for (Item item : items) {
+                if (item.getId() == null) {
+                    item.setId(++sequence);
+                    item.setVersion(Math.max(item.getVersion(), 1));
+                } else if (isPresent(item.getId())) {
+                    // Как и хранилище в куче, запись с тем же Ид заменяется новой версией
+                    item.setVersion(versions.getLong(item.getId() - 1) + 1);
+                    delete(item.getId() - 1);
+                } else {
+                    sequence = Math.max(sequence, item.getId());
+                    item.setVersion(Math.max(item.getVersion(), 1));
+                }
+                insert(item);
+                saved.add(item);
+            }
+            return saved;
+        });
+    }
+
+    @Override
+    public Long nextId() {
+        return write(() -> ++sequence);
+    }
+
+    @Override
+    public Collection<Item> findByOwnerId(Long ownerId, PageParams page) {
+        log.debug("Ищу вещи владельца : {}", ownerId);
+        return read(() -> {
+            long[] itemIds = itemsByOwner.after(ownerId, page.hasCursor() ? page.getAfterId() : Long.MIN_VALUE);
+            List<Item> result = new ArrayList<>();
+            for (int i = page.getFrom(); i < itemIds.length && result.size() < page.getSize(); i++) {
+                result.add(materialize(itemIds[i] - 1));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public void deleteByUserIdAndItemId(Long userId, Long itemId) {
+        log.debug("Удаляю вещь : {}, {}", itemId, userId);
+        write(() -> {
+            if (userId != null && isPresent(itemId) && owners.getLong(itemId - 1) == userId) {
+                delete(itemId - 1);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteByOwnerId(Long ownerId) {
+        log.debug("Удаляю все вещи владельца : {}", ownerId);
+        write(() -> {
+            for (long itemId : itemsByOwner.after(ownerId, Long.MIN_VALUE)) {
+                delete(itemId - 1);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public Item findById(Long itemId) {
+        log.debug("Ищу по Ид вещь : {}", itemId);
+        Item item = read(() -> isPresent(itemId) ? materialize(itemId - 1) : null);
+        if (item == null) {
+            throw new NotFoundException("Предмет не найден");
+        }
+        return item;
+    }
+
+    @Override
+    public Item update(ItemPatch item) {
+        log.debug("Обновляю вещь : {}", item.getId());
+        Item updated = write(() -> {
+            Long itemId = item.getId();
+            if (!isPresent(itemId)) {
+                return null;
+            }
+            long row = itemId - 1;
+            long version = versions.getLong(row);
+            if (item.getVersion() != 0 && item.getVersion() != version) {
+                throw new PreconditionFailedException("Вещь была изменена другим запросом");
+            }
+            long ownerId = owners.getLong(row);
+            if (item.getOwnerId() != null && item.getOwnerId() != ownerId) {
+                itemsByOwner.remove(ownerId, itemId);
+                owners.putLong(row, item.getOwnerId());
+                itemsByOwner.add(item.getOwnerId(), itemId);
+            }
+            boolean textChanged = false;
+            if (item.getDescription() != null && !item.getDescription().isBlank()) {
+                descriptions.write(row, item.getDescription());
+                textChanged = true;
+            }
+            if (item.getName() != null && !item.getName().isBlank()) {
+                names.write(row, item.getName());
+                textChanged = true;
+            }
+            if (textChanged) {
+                searchTexts.write(row, searchText(names.read(row), descriptions.read(row)));
+            }
+            if (item.getAvailable() != null) {
+                flags.putByte(row, flags(item.getAvailable()));
+            }
+            versions.putLong(row, version + 1);
+            return materialize(row);
+        });
+        if (updated == null) {
+            throw new NotFoundException("Предмет не найден");
+        }
+        return updated;
+    }
+
+    @Override
+    public Collection<Item> search(String text, PageParams page) {
+        log.debug("Ищу вещь по имени и описанию : {}", text);
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        byte[] needle = text.toLowerCase().getBytes(StandardCharsets.UTF_8);
+        long wanted = (long) page.getFrom() + page.getSize();
+        List<Item> result = new ArrayList<>();
+        byte[] scratch = new byte[256];
+        long matched = 0;
+        long row = page.hasCursor() ? Math.max(page.getAfterId(), 0) : 0;
+        // Просмотр идет кусками, между ними блокировка чтения отпускается, чтобы длинный поиск не задерживал
+        // запись. Строки не переезжают, поэтому следующий кусок видит более свежие данные,
+        // но ни одна строка не пропускается и не просматривается дважды
+        while (matched < wanted) {
+            long stamp = lock.readLock();
+            try {
+                long end = Math.min(sequence, row + SEARCH_CHUNK_ROWS);
+                if (row >= end) {
+                    break;
+                }
+                for (; row < end && matched < wanted; row++) {
+                    if (flags.getByte(row) == (PRESENT | AVAILABLE) && searchTexts.contains(row, needle, scratch)) {
+                        if (matched++ >= page.getFrom()) {
+                            result.add(materialize(row));
+                        }
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Long, List<Item>> findByRequestIds(Collection<Long> requestIds) {
+        return read(() -> {
+            Map<Long, List<Item>> result = new HashMap<>();
+            for (Long requestId : requestIds) {
+                long[] itemIds = itemsByRequest.after(requestId, Long.MIN_VALUE);
+                if (itemIds.length == 0) {
+                    continue;
+                }
+                List<Item> answers = new ArrayList<>(itemIds.length);
+                for (long itemId : itemIds) {
+                    answers.add(materialize(itemId - 1));
+                }
+                result.put(requestId, answers);
+            }
+            return result;
+        });
+    }
+
+    // Память вне кучи под столбцы и тексты, включая еще не занятые строки и мусор в арене
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ShareItMetrics.storeSize(registry, "items", this, OffHeapItemRepository::size);
+        ShareItMetrics.indexSize(registry, "items.owner", this,
+                repository -> repository.read(repository.itemsByOwner::size));
+        ShareItMetrics.indexSize(registry, "items.request", this,
+                repository -> repository.read(repository.itemsByRequest::size));
+        Gauge.builder("shareit.store.offheap.bytes", this, OffHeapItemRepository::offHeapBytes)
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("shareit.store.offheap.garbage", this, OffHeapItemRepository::garbageBytes)
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    public long offHeapBytes() {
+        return read(() -> flags.bytes() + versions.bytes() + owners.bytes() + requests.bytes() + names.bytes() + descriptions.bytes()
+                + urls.bytes() + searchTexts.bytes() + arena.allocatedBytes());
+    }
+
+    public long garbageBytes() {
+        return read(arena::garbageBytes);
+    }
+
+    public long size() {
+        return read(() -> count);
+    }
+
+    private void insert(Item item) {
+        long row = item.getId() - 1;
+        ensureRows(row + 1);
+        versions.putLong(row, item.getVersion());
+        owners.putLong(row, item.getOwnerId() == null ? 0 : item.getOwnerId());
+        requests.putLong(row, item.getRequestId() == null ? NO_REQUEST : item.getRequestId());
+        names.write(row, item.getName());
+        descriptions.write(row, item.getDescription());
+        urls.write(row, item.getUrl());
+        searchTexts.write(row, searchText(item.getName(), item.getDescription()));
+        flags.putByte(row, flags(item.isAvailable()));
+        itemsByOwner.add(item.getOwnerId(), item.getId());
+        itemsByRequest.add(item.getRequestId(), item.getId());
+        count++;
+    }
+
+    private void delete(long row) {
+        long itemId = row + 1;
+        itemsByOwner.remove(owners.getLong(row), itemId);
+        long requestId = requests.getLong(row);
+        if (requestId != NO_REQUEST) {
+            itemsByRequest.remove(requestId, itemId);
+        }
+        names.clear(row);
+        descriptions.clear(row);
+        urls.clear(row);
+        searchTexts.clear(row);
+        flags.putByte(row, (byte) 0);
+        count--;
+    }
+
+    private Item materialize(long row) {
+        Item item = new Item();
+        item.setId(row + 1);
+        item.setVersion(versions.getLong(row));
+        item.setOwnerId(owners.getLong(row));
+        long requestId = requests.getLong(row);
+        item.setRequestId(requestId == NO_REQUEST ? null : requestId);
+        item.setName(names.read(row));
+        item.setDescription(descriptions.read(row));
+        item.setUrl(urls.read(row));
+        item.setAvailable((flags.getByte(row) & AVAILABLE) != 0);
+        return item;
+    }
+
+    private boolean isPresent(Long itemId) {
+        return itemId != null && itemId > 0 && itemId <= sequence && (flags.getByte(itemId - 1) & PRESENT) != 0;
+    }
+
+    // Новые строки заполняются нулями, то есть флагом "нет записи"; строки под выданные nextId() тоже
+    private void ensureRows(long rows) {
+        flags.ensureRows(rows);
+        versions.ensureRows(rows);
+        owners.ensureRows(rows);
+        requests.ensureRows(rows);
+        names.ensureRows(rows);
+        descriptions.ensureRows(rows);
+        urls.ensureRows(rows);
+        searchTexts.ensureRows(rows);
+    }
+
+    private <T> T read(Supplier<T> action) {
+        long stamp = lock.readLock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> action) {
+        long stamp = lock.writeLock();
+        try {
+            T result = action.get();
+            ensureRows(sequence);
+            return result;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static byte flags(boolean available) {
+        return available ? PRESENT | AVAILABLE : PRESENT;
+    }
+
+    private static byte[] searchText(String name, String description) {
+        byte[] lowerName = lower(name);
+        byte[] lowerDescription = lower(description);
+        byte[] text = new byte[lowerName.length + 1 + lowerDescription.length];
+        System.arraycopy(lowerName, 0, text, 0, lowerName.length);
+        text[lowerName.length] = SEPARATOR;
+        System.arraycopy(lowerDescription, 0, text, lowerName.length + 1, lowerDescription.length);
+        return text;
+    }
+
+    private static byte[] lower(String value) {
+        return value == null ? new byte[0] : value.toLowerCase().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Ссылка на текст в арене и его длина в байтах; длина -1 означает null
+    private final class TextColumn {
+        private final OffHeapColumn refs = new OffHeapColumn(Long.BYTES);
+        private final OffHeapColumn lengths = new OffHeapColumn(Integer.BYTES);
+
+        void ensureRows(long rows) {
+            long before = lengths.capacity();
+            refs.ensureRows(rows);
+            lengths.ensureRows(rows);
+            for (long row = before; row < lengths.capacity(); row++) {
+                lengths.putInt(row, -1);
+            }
+        }
+
+        void write(long row, String value) {
+            clear(row);
+            if (value != null) {
+                write(row, value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        void write(long row, byte[] bytes) {
+            clear(row);
+            refs.putLong(row, arena.append(bytes));
+            lengths.putInt(row, bytes.length);
+        }
+
+        String read(long row) {
+            int length = lengths.getInt(row);
+            return length < 0 ? null : arena.read(refs.getLong(row), length);
+        }
+
+        boolean contains(long row, byte[] needle, byte[] scratch) {
+            int length = lengths.getInt(row);
+            if (length < needle.length) {
+                return false;
+            }
+            if (length > scratch.length) {
+                return arena.contains(refs.getLong(row), length, needle, new byte[length]);
+            }
+            return arena.contains(refs.getLong(row), length, needle, scratch);
+        }
+
+        void clear(long row) {
+            int length = lengths.getInt(row);
+            if (length >= 0) {
+                arena.release(length);
+                lengths.putInt(row, -1);
+            }
+        }
+
+        long bytes() {
+            return refs.bytes() + lengths.bytes();
+        }
+    }
+}
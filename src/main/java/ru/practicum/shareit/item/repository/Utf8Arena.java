@@ -0,0 +1,78 @@
+package ru.practicum.shareit.item.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Строки в UTF-8 подряд в блоках вне кучи. Ссылка на строку - номер блока в старших 32 битах
+// и смещение в младших; строка никогда не пересекает границу блока. Место не переиспользуется:
+// при изменении текста новая версия дописывается в конец, а старая учитывается как мусор
+final class Utf8Arena {
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private long allocated;
+    private long garbage;
+
+    long append(byte[] bytes) {
+        if (current == null || current.remaining() < bytes.length) {
+            current = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, bytes.length));
+            chunks.add(current);
+            allocated += current.capacity();
+        }
+        int offset = current.position();
+        current.put(bytes);
+        return ((long) (chunks.size() - 1) << 32) | offset;
+    }
+
+    String read(long ref, int length) {
+        byte[] bytes = new byte[length];
+        chunks.get(chunk(ref)).get(offset(ref), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Побайтовый поиск подстроки; для корректного UTF-8 совпадает с поиском по символам.
+    // Текст копируется в scratch одним блочным чтением: это быстрее поштучного get() из прямого буфера.
+    // Кандидаты отбираются по последнему байту искомой строки: у кириллицы первый байт почти всегда 0xD0 или 0xD1
+    boolean contains(long ref, int length, byte[] needle, byte[] scratch) {
+        chunks.get(chunk(ref)).get(offset(ref), scratch, 0, length);
+        int tail = needle.length - 1;
+        byte anchor = needle[tail];
+        for (int i = tail; i < length; i++) {
+            if (scratch[i] != anchor) {
+                continue;
+            }
+            int start = i - tail;
+            int j = 0;
+            while (j < tail && scratch[start + j] == needle[j]) {
+                j++;
+            }
+            if (j == tail) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void release(int length) {
+        garbage += length;
+    }
+
+    long allocatedBytes() {
+        return allocated;
+    }
+
+    long garbageBytes() {
+        return garbage;
+    }
+
+    private static int chunk(long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    private static int offset(long ref) {
+        return (int) ref;
+    }
+}
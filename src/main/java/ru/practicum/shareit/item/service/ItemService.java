@@ -1,22 +1,29 @@
 package ru.practicum.shareit.item.service;
 
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.user.principal.Sharer;
 
 import java.util.Collection;
 
 public interface ItemService {
 
-    ItemResponseDto create(ItemDto itemDto, Long ownerId);
+    ItemResponseDto create(ItemDto itemDto, Sharer owner);
 
-    ItemResponseDto getById(Long itemId, Long userId);
+    ItemResponseDto getById(Long itemId, Sharer user);
 
-    ItemResponseDto update(ItemPatchDto itemPatchDto, Long itemId, Long ownerId);
+    Tagged<ItemResponseDto> getTaggedById(Long itemId, Sharer user);
 
-    Collection<ItemResponseDto> search(String text, Long userId);
+    ItemResponseDto update(ItemPatchDto itemPatchDto, Long itemId, Sharer owner);
 
-    Collection<ItemResponseDto> getItems(Long ownerId);
+    Tagged<ItemResponseDto> update(ItemPatchDto itemPatchDto, Long itemId, Sharer owner, String ifMatch);
 
-    void deleteItem(Long userId, Long itemId);
+    Collection<ItemResponseDto> search(String text, Sharer user, PageParams page);
+
+    Collection<ItemResponseDto> getItems(Sharer owner, PageParams page);
+
+    void deleteItem(Sharer user, Long itemId);
 }
@@ -1,16 +1,26 @@
 package ru.practicum.shareit.item.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.exceptions.NotOwnerException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.model.ItemMapper;
+import ru.practicum.shareit.item.model.ItemPatch;
 import ru.practicum.shareit.item.repository.ItemRepository;
-import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.principal.Sharer;
 
 import java.util.Collection;
 import java.util.stream.Collectors;
@@ -21,60 +31,119 @@ import java.util.stream.Collectors;
 public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
     private final ItemMapper itemMapper;
-    private final UserService userService;
+    private final BookingRepository bookingRepository;
+    private final BookingMapper bookingMapper;
+    private final ItemRequestRepository itemRequestRepository;
+    private final MeterRegistry meterRegistry;
 
     @Override
-    public ItemResponseDto create(ItemDto itemDto, Long ownerId) {
-        userService.getById(ownerId);
-        log.info("Сервис вещей принял запрос на создание : {}, {}", itemDto.getName(), ownerId);
-        itemDto.setOwnerId(ownerId);
+    public ItemResponseDto create(ItemDto itemDto, Sharer owner) {
+        log.debug("Сервис вещей принял запрос на создание : {}, {}", itemDto.getName(), owner.getId());
+        itemDto.setOwnerId(owner.getId());
+        if (itemDto.getRequestId() != null) {
+            itemRequestRepository.getById(itemDto.getRequestId());
+        }
         Item savedItem = itemRepository.save(itemMapper.toItem(itemDto));
         log.info("Сервис вещей сохранил вещь : {}, ид вещи {}", itemDto.getName(), savedItem.getId());
         return itemMapper.toResponseDto(savedItem);
     }
 
     @Override
-    public ItemResponseDto getById(Long itemId, Long userId) {
-        log.info("Сервис вещей принял запрос на вывод вещи : {}", itemId);
-        userService.getById(userId);
-        return itemMapper.toResponseDto(itemRepository.findById(itemId));
+    public ItemResponseDto getById(Long itemId, Sharer user) {
+        return getTaggedById(itemId, user).getBody();
     }
 
     @Override
-    public ItemResponseDto update(ItemPatchDto itemPatchDto, Long itemId, Long ownerId) {
-        log.info("Сервис вещей принял запрос на обновление вещи : {}, владелец {}", itemPatchDto.getName(), ownerId);
-        userService.getById(ownerId);
-        itemPatchDto.setId(itemId);
-        Item existingItem = itemRepository.findById(itemPatchDto.getId());
-        if (!existingItem.getOwnerId().equals(ownerId)) {
-            throw new NotOwnerException("Только владелец может редактировать вещь");
+    public Tagged<ItemResponseDto> getTaggedById(Long itemId, Sharer user) {
+        log.debug("Сервис вещей принял запрос на вывод вещи : {}", itemId);
+        Item item = itemRepository.findById(itemId);
+        if (!item.getOwnerId().equals(user.getId())) {
+            return Tagged.of(EntityTags.of(item.getId(), item.getVersion()), () -> itemMapper.toResponseDto(item));
         }
-        Item updatedItem = itemMapper.updateItemFromPatchDto(itemPatchDto, existingItem);
-        Item savedItem = itemRepository.update(updatedItem);
+        return ownerView(item);
+    }
+
+    @Override
+    public ItemResponseDto update(ItemPatchDto itemPatchDto, Long itemId, Sharer owner) {
+        findOwnItem(itemPatchDto, itemId, owner);
+        Item savedItem = itemRepository.update(itemMapper.toItemPatch(itemPatchDto));
         return itemMapper.toResponseDto(savedItem);
     }
 
     @Override
-    public Collection<ItemResponseDto> search(String text, Long userId) {
-        log.info("Сервис вещей принял запрос на поиск вещи : {}", text);
-        userService.getById(userId);
-        return itemRepository.search(text).stream()
+    public Tagged<ItemResponseDto> update(ItemPatchDto itemPatchDto, Long itemId, Sharer owner, String ifMatch) {
+        // Опубликованный экземпляр не меняется: ETag и ожидаемая версия берутся из одного снимка
+        Item snapshot = findOwnItem(itemPatchDto, itemId, owner);
+        ItemPatch patch = itemMapper.toItemPatch(itemPatchDto);
+        if (ifMatch != null) {
+            // Клиент видел представление владельца; версия уходит в репозиторий для сравнения с обменом
+            EntityTags.requireMatch(ifMatch, ownerView(snapshot).getEtag());
+            patch.setVersion(snapshot.getVersion());
+        }
+        // Тело ответа и его ETag строятся из экземпляра, который вернул репозиторий
+        Item saved = itemRepository.update(patch);
+        return ownerView(saved);
+    }
+
+    @Override
+    public Collection<ItemResponseDto> search(String text, Sharer user, PageParams page) {
+        log.debug("Сервис вещей принял запрос на поиск вещи : {}", text);
+        meterRegistry.counter(ShareItMetrics.SEARCH_QUERIES).increment();
+        Collection<Item> found = itemRepository.search(text, page);
+        if (found.isEmpty()) {
+            meterRegistry.counter(ShareItMetrics.SEARCH_EMPTY).increment();
+        }
+        return found.stream()
                 .map(itemMapper::toResponseDto)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public Collection<ItemResponseDto> getItems(Long userId) {
-        log.info("Сервис вещей принял запрос на вывод вещей пользователя : {}", userId);
-        userService.getById(userId);
-        return itemRepository.findByOwnerId(userId).stream()
+    public Collection<ItemResponseDto> getItems(Sharer owner, PageParams page) {
+        log.debug("Сервис вещей принял запрос на вывод вещей пользователя : {}", owner.getId());
+        return itemRepository.findByOwnerId(owner.getId(), page).stream()
                 .map(itemMapper::toResponseDto)
+                .map(this::withBookings)
                 .collect(Collectors.toList());
     }
 
     @Override
-    public void deleteItem(Long userId, Long itemId) {
-        log.info("Сервис вещей принял запрос на удаление вещи : {}, пользователь {}", itemId, userId);
-        itemRepository.deleteByUserIdAndItemId(userId, itemId);
+    public void deleteItem(Sharer user, Long itemId) {
+        log.debug("Сервис вещей принял запрос на удаление вещи : {}, пользователь {}", itemId, user.getId());
+        itemRepository.deleteByUserIdAndItemId(user.getId(), itemId);
+    }
+
+    private Item findOwnItem(ItemPatchDto itemPatchDto, Long itemId, Sharer owner) {
+        log.debug("Сервис вещей принял запрос на обновление вещи : {}, владелец {}", itemPatchDto.getName(),
+                owner.getId());
+        itemPatchDto.setId(itemId);
+        Item existingItem = itemRepository.findById(itemPatchDto.getId());
+        if (!existingItem.getOwnerId().equals(owner.getId())) {
+            throw new NotOwnerException("Только владелец может редактировать вещь");
+        }
+        return existingItem;
+    }
+
+    // Представление владельца меняется и вместе с его бронями, поэтому их версии входят в ETag
+    private Tagged<ItemResponseDto> ownerView(Item item) {
+        Booking last = bookingRepository.findLastBooking(item.getId());
+        Booking next = bookingRepository.findNextBooking(item.getId());
+        String etag = EntityTags.of(item.getId(), item.getVersion(),
+                last == null ? 0 : last.getId(), last == null ? 0 : last.getVersion(),
+                next == null ? 0 : next.getId(), next == null ? 0 : next.getVersion());
+        return Tagged.of(etag, () -> withBookings(itemMapper.toResponseDto(item), last, next));
+    }
+
+    // Последняя и следующая брони видны только владельцу; берутся из индекса броней по вещи
+    private ItemResponseDto withBookings(ItemResponseDto itemResponseDto) {
+        Booking last = bookingRepository.findLastBooking(itemResponseDto.getId());
+        Booking next = bookingRepository.findNextBooking(itemResponseDto.getId());
+        return withBookings(itemResponseDto, last, next);
+    }
+
+    private ItemResponseDto withBookings(ItemResponseDto itemResponseDto, Booking last, Booking next) {
+        itemResponseDto.setLastBooking(last == null ? null : bookingMapper.toShortDto(last));
+        itemResponseDto.setNextBooking(next == null ? null : bookingMapper.toShortDto(next));
+        return itemResponseDto;
     }
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package ru.practicum.shareit.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.practicum.shareit.user.principal.SharerArgumentResolver;
+
+import java.io.IOException;
+
+// Замеряет запрос целиком, включая разбор заголовков и сериализацию ответа, и передает итог в выборочный журнал
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestSummaryFilter extends OncePerRequestFilter {
+    private final RequestSummaryLogger summaryLogger;
+
+    public RequestSummaryFilter(@Value("${shareit.logging.request-summary.sample-rate:0.01}") double sampleRate,
+                                @Value("${shareit.logging.request-summary.slow-ms:500}") long slowMillis) {
+        this.summaryLogger = new RequestSummaryLogger(sampleRate, slowMillis);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startedAt = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            summaryLogger.record(request.getMethod(), request.getRequestURI(), response.getStatus(),
+                    request.getHeader(SharerArgumentResolver.HEADER), System.nanoTime() - startedAt);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.shareit.logging;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Одна строка key=value на запрос. Пишется доля sampleRate обычных запросов, а также все ошибки сервера
+// и все запросы дольше slowMillis. Решение о выборке принимается до форматирования, так что пропущенный
+// запрос не создает ни строки, ни массива аргументов
+@Slf4j
+public class RequestSummaryLogger {
+    private final double sampleRate;
+    private final long slowNanos;
+
+    public RequestSummaryLogger(double sampleRate, long slowMillis) {
+        this.sampleRate = sampleRate;
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowMillis);
+    }
+
+    public void record(String method, String uri, int status, String user, long elapsedNanos) {
+        if (!sampled(status, elapsedNanos) || !log.isInfoEnabled()) {
+            return;
+        }
+        log.info("method={} uri={} status={} user={} timeUs={}", method, uri, status, user,
+                TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    boolean sampled(int status, long elapsedNanos) {
+        return status >= 500
+                || elapsedNanos >= slowNanos
+                || sampleRate >= 1
+                || sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
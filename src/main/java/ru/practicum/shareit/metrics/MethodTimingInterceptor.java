@@ -0,0 +1,72 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Таймер на каждый метод: успешные вызовы берут готовый таймер из кэша, исключения редки и ищутся в реестре
+class MethodTimingInterceptor implements MethodInterceptor {
+    private static final String NO_EXCEPTION = "none";
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+    private volatile MeterRegistry registry;
+
+    MethodTimingInterceptor(ObjectProvider<MeterRegistry> registryProvider) {
+        this.registryProvider = registryProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        long startedAt = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            record(invocation, NO_EXCEPTION, startedAt);
+            return result;
+        } catch (Throwable e) {
+            record(invocation, e.getClass().getSimpleName(), startedAt);
+            throw e;
+        }
+    }
+
+    private void record(MethodInvocation invocation, String exception, long startedAt) {
+        long elapsed = System.nanoTime() - startedAt;
+        Class<?> targetClass = AopUtils.getTargetClass(invocation.getThis());
+        TimerKey key = new TimerKey(targetClass, invocation.getMethod().getName(), exception);
+        timers.computeIfAbsent(key, this::timer).record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(TimerKey key) {
+        String name = AnnotatedElementUtils.hasAnnotation(key.targetClass(), Repository.class)
+                ? ShareItMetrics.REPOSITORY_TIMER
+                : ShareItMetrics.SERVICE_TIMER;
+        return Timer.builder(name)
+                .tag("class", key.targetClass().getSimpleName())
+                .tag("method", key.method())
+                .tag("exception", key.exception())
+                .publishPercentileHistogram()
+                .register(registry());
+    }
+
+    // Реестр берется при первом вызове: постпроцессор создается раньше, чем реестр метрик
+    private MeterRegistry registry() {
+        MeterRegistry current = registry;
+        if (current == null) {
+            current = registryProvider.getObject();
+            registry = current;
+        }
+        return current;
+    }
+
+    private record TimerKey(Class<?> targetClass, String method, String exception) {
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.function.ToDoubleFunction;
+
+public final class ShareItMetrics {
+    public static final String REPOSITORY_TIMER = "shareit.repository";
+    public static final String SERVICE_TIMER = "shareit.service";
+    public static final String STORE_SIZE = "shareit.store.size";
+    public static final String INDEX_SIZE = "shareit.index.size";
+    public static final String SEARCH_QUERIES = "shareit.item.search.queries";
+    public static final String SEARCH_EMPTY = "shareit.item.search.empty";
+    public static final String BOOKING_CONFLICTS = "shareit.booking.conflicts";
+    public static final String BOOKING_APPROVALS = "shareit.booking.approvals";
+    public static final String RATE_LIMIT_REJECTED = "shareit.ratelimit.rejected";
+    public static final String RATE_LIMIT_BUCKETS = "shareit.ratelimit.buckets";
+    public static final String CONCURRENCY_REJECTED = "shareit.concurrency.rejected";
+    public static final String CONCURRENCY_IN_FLIGHT = "shareit.concurrency.in.flight";
+    public static final String WRITE_BEHIND_RETRIED = "shareit.writebehind.retried";
+    public static final String WRITE_BEHIND_DROPPED = "shareit.writebehind.dropped";
+
+    private ShareItMetrics() {
+    }
+
+    // Число записей хранилища; хранилище передается сюда само, поэтому ссылка на него держится слабо
+    public static <T> void storeSize(MeterRegistry registry, String store, T owner, ToDoubleFunction<T> size) {
+        Gauge.builder(STORE_SIZE, owner, size)
+                .tag("store", store)
+                .register(registry);
+    }
+
+    // Число ключей индекса; считается за O(1), чтобы опрос метрик не обходил структуры
+    public static <T> void indexSize(MeterRegistry registry, String index, T owner, ToDoubleFunction<T> size) {
+        Gauge.builder(INDEX_SIZE, owner, size)
+                .tag("index", index)
+                .register(registry);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.aop.ClassFilter;
+import org.springframework.aop.MethodMatcher;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcher;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ReflectionUtils;
+import ru.practicum.shareit.storage.journal.JournaledRepository;
+
+import java.lang.reflect.Method;
+
+// Оборачивает каждый @Repository и @Service прокси с таймерами shareit.repository и shareit.service.
+// Служебные методы журнала и регистрации метрик не замеряются
+@Component
+public class TimedComponentsPostProcessor extends AbstractAdvisingBeanPostProcessor {
+    private static final ClassFilter REPOSITORIES_AND_SERVICES = type ->
+            AnnotatedElementUtils.hasAnnotation(type, Repository.class)
+                    || AnnotatedElementUtils.hasAnnotation(type, Service.class);
+
+    private static final MethodMatcher PUBLIC_API = new StaticMethodMatcher() {
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return method.getDeclaringClass() != Object.class
+                    && !declares(JournaledRepository.class, method)
+                    && !declares(MeterBinder.class, method);
+        }
+    };
+
+    public TimedComponentsPostProcessor(ObjectProvider<MeterRegistry> registryProvider) {
+        setProxyTargetClass(true);
+        setBeforeExistingAdvisors(true);
+        this.advisor = new DefaultPointcutAdvisor(new ComposablePointcut(REPOSITORIES_AND_SERVICES, PUBLIC_API),
+                new MethodTimingInterceptor(registryProvider));
+    }
+
+    private static boolean declares(Class<?> type, Method method) {
+        return ReflectionUtils.findMethod(type, method.getName(), method.getParameterTypes()) != null;
+    }
+}
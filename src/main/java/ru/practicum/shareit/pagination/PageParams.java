@@ -0,0 +1,76 @@
+package ru.practicum.shareit.pagination;
+
+import lombok.Getter;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+// Параметры страницы: from/size и непрозрачный курсор, в котором закодирован Ид последнего элемента
+// предыдущей страницы. Репозиторий продолжает выдачу после этого элемента в своем порядке сортировки.
+// Запрос без from, size и курсора не постраничный и получает весь список, как до введения страниц.
+@Getter
+public class PageParams {
+    public static final int DEFAULT_SIZE = 100;
+    public static final int MAX_SIZE = 1000;
+    private static final int UNPAGED_SIZE = Integer.MAX_VALUE;
+    private static final String CURSOR_PREFIX = "id:";
+
+    private final int from;
+    private final int size;
+    private final Long afterId;
+
+    private PageParams(int from, int size, Long afterId) {
+        this.from = from;
+        this.size = size;
+        this.afterId = afterId;
+    }
+
+    public static PageParams of(Integer from, Integer size, String cursor) {
+        if (from == null && size == null && (cursor == null || cursor.isBlank())) {
+            return new PageParams(0, UNPAGED_SIZE, null);
+        }
+        int offset = from == null ? 0 : from;
+        int limit = size == null ? DEFAULT_SIZE : size;
+        if (offset < 0) {
+            throw new ValidationException("Параметр from не может быть отрицательным");
+        }
+        if (limit <= 0 || limit > MAX_SIZE) {
+            throw new ValidationException("Параметр size должен быть от 1 до " + MAX_SIZE);
+        }
+        return new PageParams(offset, limit, decodeCursor(cursor));
+    }
+
+    public boolean isPaged() {
+        return size != UNPAGED_SIZE;
+    }
+
+    public boolean hasCursor() {
+        return afterId != null;
+    }
+
+    public <T> Stream<T> apply(Stream<T> stream) {
+        return stream.skip(from).limit(size);
+    }
+
+    public static String encodeCursor(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(CURSOR_PREFIX)) {
+                throw new ValidationException("Некорректный курсор страницы");
+            }
+            return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+    }
+}
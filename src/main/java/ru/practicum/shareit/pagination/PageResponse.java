@@ -0,0 +1,24 @@
+package ru.practicum.shareit.pagination;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.Collection;
+import java.util.function.Function;
+
+public final class PageResponse {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private PageResponse() {
+    }
+
+    // Полная страница может быть не последней, поэтому к ней прикладывается курсор на следующую
+    public static <T, C extends Collection<T>> ResponseEntity<C> of(C page, PageParams params,
+                                                                   Function<T, Long> idGetter) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (params.isPaged() && !page.isEmpty() && page.size() >= params.getSize()) {
+            T last = page.stream().reduce((first, second) -> second).orElseThrow();
+            response.header(NEXT_CURSOR_HEADER, PageParams.encodeCursor(idGetter.apply(last)));
+        }
+        return response.body(page);
+    }
+}
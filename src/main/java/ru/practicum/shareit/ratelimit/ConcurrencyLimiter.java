@@ -0,0 +1,38 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Общий предел одновременно обрабатываемых запросов; сверх него запрос отклоняется сразу, а не ждет в очереди
+class ConcurrencyLimiter {
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    ConcurrencyLimiter(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    boolean tryAcquire() {
+        if (maxInFlight <= 0) {
+            return true;
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void release() {
+        if (maxInFlight > 0) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
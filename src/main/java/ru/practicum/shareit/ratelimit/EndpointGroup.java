@@ -0,0 +1,30 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.regex.Pattern;
+
+// Группы конечных точек с отдельными лимитами: поиск дороже остальных чтений, записи идут в журнал
+enum EndpointGroup {
+    SEARCH,
+    WRITE,
+    READ;
+
+    private static final Pattern MATRIX_PARAMS = Pattern.compile(";[^/]*");
+
+    // path - шаблон сопоставленного обработчика (/items/search), а если его нет - путь из normalize()
+    static EndpointGroup of(String method, String path) {
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        return path.endsWith("/search") ? SEARCH : READ;
+    }
+
+    // Путь без параметров матрицы и завершающих "/": /items/search;x=1 и /items/search/ - тот же поиск
+    static String normalize(String uri) {
+        String path = uri.indexOf(';') < 0 ? uri : MATRIX_PARAMS.matcher(uri).replaceAll("");
+        int end = path.length();
+        while (end > 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        return path.substring(0, end);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.practicum.shareit.exceptions.ServiceOverloadedException;
+import ru.practicum.shareit.exceptions.TooManyRequestsException;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.user.principal.SharerArgumentResolver;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Отсекает запрос до вызова контроллера: сначала общий предел одновременных запросов (503),
+// затем корзина пользователя из X-Sharer-User-Id для группы конечной точки (429).
+// Запросы без заголовка или с нечисловым Ид лимитируются только общим пределом - их отклонит разбор Ид.
+// Группа определяется по шаблону сопоставленного обработчика, а не по сырому URI, чтобы завершающий "/"
+// или параметры матрицы не уводили поиск в корзину чтений
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String ACQUIRED = RateLimitInterceptor.class.getName() + ".acquired";
+
+    private final boolean enabled;
+    private final long idleNanos;
+    private final ConcurrencyLimiter concurrency;
+    private final Map<EndpointGroup, UserRateLimiter> limiters = new EnumMap<>(EndpointGroup.class);
+    private final Map<EndpointGroup, Counter> rejected = new EnumMap<>(EndpointGroup.class);
+    private final Counter shed;
+
+    public RateLimitInterceptor(MeterRegistry meterRegistry,
+                                @Value("${shareit.rate-limit.enabled:true}") boolean enabled,
+                                @Value("${shareit.rate-limit.search.per-second:10}") double searchPerSecond,
+                                @Value("${shareit.rate-limit.search.burst:20}") int searchBurst,
+                                @Value("${shareit.rate-limit.write.per-second:20}") double writePerSecond,
+                                @Value("${shareit.rate-limit.write.burst:40}") int writeBurst,
+                                @Value("${shareit.rate-limit.read.per-second:100}") double readPerSecond,
+                                @Value("${shareit.rate-limit.read.burst:200}") int readBurst,
+                                @Value("${shareit.rate-limit.idle-ms:60000}") long idleMillis,
+                                @Value("${shareit.concurrency.max-in-flight:256}") int maxInFlight) {
+        this.enabled = enabled;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.concurrency = new ConcurrencyLimiter(maxInFlight);
+        limiters.put(EndpointGroup.SEARCH, new UserRateLimiter(searchPerSecond, searchBurst));
+        limiters.put(EndpointGroup.WRITE, new UserRateLimiter(writePerSecond, writeBurst));
+        limiters.put(EndpointGroup.READ, new UserRateLimiter(readPerSecond, readBurst));
+
+        for (EndpointGroup group : EndpointGroup.values()) {
+            String tag = group.name().toLowerCase(Locale.ROOT);
+            rejected.put(group, Counter.builder(ShareItMetrics.RATE_LIMIT_REJECTED)
+                    .tag("group", tag)
+                    .register(meterRegistry));
+            Gauge.builder(ShareItMetrics.RATE_LIMIT_BUCKETS, limiters.get(group), UserRateLimiter::size)
+                    .tag("group", tag)
+                    .register(meterRegistry);
+        }
+        this.shed = Counter.builder(ShareItMetrics.CONCURRENCY_REJECTED).register(meterRegistry);
+        Gauge.builder(ShareItMetrics.CONCURRENCY_IN_FLIGHT, concurrency, ConcurrencyLimiter::inFlight)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || request.getAttribute(ACQUIRED) != null) {
+            return true;
+        }
+        if (!concurrency.tryAcquire()) {
+            shed.increment();
+            throw new ServiceOverloadedException("Сервис перегружен, повторите запрос позже");
+        }
+        Long userId = userId(request.getHeader(SharerArgumentResolver.HEADER));
+        if (userId != null) {
+            EndpointGroup group = EndpointGroup.of(request.getMethod(), endpointPath(request));
+            if (!limiters.get(group).tryAcquire(userId, System.nanoTime())) {
+                concurrency.release();
+                rejected.get(group).increment();
+                throw new TooManyRequestsException("Слишком много запросов, повторите позже");
+            }
+        }
+        request.setAttribute(ACQUIRED, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(ACQUIRED) != null) {
+            request.removeAttribute(ACQUIRED);
+            concurrency.release();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.rate-limit.idle-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (UserRateLimiter limiter : limiters.values()) {
+            limiter.evictIdle(now, idleNanos);
+        }
+    }
+
+    private static String endpointPath(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : EndpointGroup.normalize(request.getRequestURI());
+    }
+
+    private static Long userId(String header) {
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Корзина токенов в виде GCRA: состояние - одно число, момент, когда корзина снова станет полной.
+// Запрос проходит, если этот момент отстоит от текущего не больше чем на burst - 1 интервалов,
+// и сдвигает его на один интервал. Изменение - одна операция CAS, блокировок нет
+final class TokenBucket {
+    private final AtomicLong fullAt;
+
+    TokenBucket(long now) {
+        this.fullAt = new AtomicLong(now);
+    }
+
+    boolean tryAcquire(long now, long intervalNanos, long burstNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long start = Math.max(current, now);
+            if (start - now > burstNanos) {
+                return false;
+            }
+            if (fullAt.compareAndSet(current, start + intervalNanos)) {
+                return true;
+            }
+        }
+    }
+
+    // Корзина полна уже idleNanos: ее можно забыть, новая корзина для того же пользователя будет такой же
+    boolean idle(long now, long idleNanos) {
+        return now - fullAt.get() >= idleNanos;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.ratelimit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Корзины одной группы конечных точек по Ид пользователя. Корзина создается при первом запросе
+// и удаляется, когда простояла полной idle-ms. Запрос, взявший корзину перед самым удалением,
+// спишет токен с удаленной корзины: это дает пользователю не больше одного лишнего запроса после простоя
+class UserRateLimiter {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    // Неверные настройки отклоняются при старте: нулевой предел дал бы бесконечный интервал,
+    // а слишком малый предел с большим запасом - переполнение burstNanos
+    UserRateLimiter(double perSecond, int burst) {
+        if (!(perSecond > 0) || Double.isInfinite(perSecond)) {
+            throw new IllegalArgumentException("Предел запросов в секунду должен быть положительным: " + perSecond);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Запас запросов должен быть не меньше 1: " + burst);
+        }
+        this.intervalNanos = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / perSecond), 1);
+        try {
+            this.burstNanos = Math.multiplyExact(intervalNanos, burst - 1L);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Слишком большой запас " + burst + " при пределе " + perSecond
+                    + " запросов в секунду");
+        }
+    }
+
+    boolean tryAcquire(Long userId, long now) {
+        TokenBucket bucket = buckets.get(userId);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(userId, id -> new TokenBucket(now));
+        }
+        return bucket.tryAcquire(now, intervalNanos, burstNanos);
+    }
+
+    void evictIdle(long now, long idleNanos) {
+        buckets.values().removeIf(bucket -> bucket.idle(now, idleNanos));
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
@@ -4,7 +4,11 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.pagination.PageResponse;
+import ru.practicum.shareit.user.principal.Sharer;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.service.RequestService;
@@ -21,31 +25,39 @@ public class ItemRequestController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public ItemRequestResponseDto create(
-            @RequestHeader("X-Sharer-User-Id") Long userId,
+            Sharer user,
             @RequestBody @Valid ItemRequestDto itemRequestDto) {
-        log.info("Получен запрос на создание нового запроса от пользователя ID: {}", userId);
-        return requestService.create(itemRequestDto, userId);
+        log.debug("Получен запрос на создание нового запроса от пользователя ID: {}", user.getId());
+        return requestService.create(itemRequestDto, user);
     }
 
     @GetMapping
-    public Collection<ItemRequestResponseDto> getAllByUser(
-            @RequestHeader("X-Sharer-User-Id") Long userId) {
-        log.info("Получен запрос на получение всех запросов пользователя ID: {}", userId);
-        return requestService.getAll(userId);
+    public ResponseEntity<Collection<ItemRequestResponseDto>> getAllByUser(
+            Sharer user,
+            @RequestParam(required = false) Integer from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.debug("Получен запрос на получение всех запросов пользователя ID: {}", user.getId());
+        PageParams page = PageParams.of(from, size, cursor);
+        return PageResponse.of(requestService.getOwn(user, page), page, ItemRequestResponseDto::getId);
     }
 
     @GetMapping("/all")
-    public Collection<ItemRequestResponseDto> getAll(
-            @RequestHeader("X-Sharer-User-Id") Long userId) {
-        log.info("Получен запрос на получение всех запросов от пользователя ID: {}", userId);
-        return requestService.getAll(userId);
+    public ResponseEntity<Collection<ItemRequestResponseDto>> getAll(
+            Sharer user,
+            @RequestParam(required = false) Integer from,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.debug("Получен запрос на получение всех запросов от пользователя ID: {}", user.getId());
+        PageParams page = PageParams.of(from, size, cursor);
+        return PageResponse.of(requestService.getAll(user, page), page, ItemRequestResponseDto::getId);
     }
 
     @GetMapping("/{requestId}")
     public ItemRequestResponseDto getById(
-            @RequestHeader("X-Sharer-User-Id") Long userId,
+            Sharer user,
             @PathVariable Long requestId) {
-        log.info("Получен запрос на получение запроса ID: {} от пользователя ID: {}", requestId, userId);
-        return requestService.getById(requestId, userId);
+        log.debug("Получен запрос на получение запроса ID: {} от пользователя ID: {}", requestId, user.getId());
+        return requestService.getById(requestId, user);
     }
 }
@@ -1,16 +1,26 @@
 package ru.practicum.shareit.request.model;
 
 import lombok.Data;
-import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.storage.Versioned;
+import ru.practicum.shareit.user.dto.UserResponseDto;
 
 import java.time.LocalDateTime;
 
 @Data
-public class ItemRequest {
+public class ItemRequest implements Versioned {
     private Long id;
+    private long version;
     private String description;
-    private User requester;
+    private UserResponseDto requester;
     private LocalDateTime created;
-    private Item items;
+
+    public ItemRequest copy() {
+        ItemRequest copy = new ItemRequest();
+        copy.setId(id);
+        copy.setVersion(version);
+        copy.setDescription(description);
+        copy.setRequester(requester);
+        copy.setCreated(created);
+        return copy;
+    }
 }
@@ -2,10 +2,13 @@ package ru.practicum.shareit.request.model;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.model.ItemMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
+import ru.practicum.shareit.user.dto.UserDto;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,12 +23,25 @@ public class RequestMapper {
         return itemRequest;
     }
 
+    // Ответы на запрос хранятся в индексе вещей; без них запрос отдается с пустым списком вещей
     public ItemRequestResponseDto toResponseDto(ItemRequest itemRequest) {
+        return toResponseDto(itemRequest, List.of());
+    }
+
+    public ItemRequestResponseDto toResponseDto(ItemRequest itemRequest, Collection<Item> items) {
         ItemRequestResponseDto dto = new ItemRequestResponseDto();
         dto.setId(itemRequest.getId());
         dto.setDescription(itemRequest.getDescription());
         dto.setCreated(itemRequest.getCreated());
-
+        if (itemRequest.getRequester() != null) {
+            UserDto requester = new UserDto();
+            requester.setId(itemRequest.getRequester().getId());
+            requester.setName(itemRequest.getRequester().getName());
+            dto.setRequester(requester);
+        }
+        dto.setItems(items == null ? List.of() : items.stream()
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList()));
         return dto;
     }
 
@@ -0,0 +1,36 @@
+package ru.practicum.shareit.request.repository;
+
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.storage.journal.EntityCodec;
+import ru.practicum.shareit.storage.journal.RecordReader;
+import ru.practicum.shareit.storage.journal.RecordWriter;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+// Ответы на запрос не хранятся: они собираются из индекса вещей по request_id
+class ItemRequestCodec implements EntityCodec<ItemRequest> {
+
+    @Override
+    public void write(ItemRequest itemRequest, RecordWriter out) {
+        UserResponseDto requester = itemRequest.getRequester();
+        out.putString(itemRequest.getDescription())
+                .putDateTime(itemRequest.getCreated())
+                .putNullableLong(requester == null ? null : requester.getId())
+                .putString(requester == null ? null : requester.getName());
+    }
+
+    @Override
+    public ItemRequest read(RecordReader in) {
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setDescription(in.getString());
+        itemRequest.setCreated(in.getDateTime());
+        Long requesterId = in.getNullableLong();
+        String requesterName = in.getString();
+        if (requesterId != null) {
+            UserResponseDto requester = new UserResponseDto();
+            requester.setId(requesterId);
+            requester.setName(requesterName);
+            itemRequest.setRequester(requester);
+        }
+        return itemRequest;
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.request.repository;
 
+import ru.practicum.shareit.pagination.PageParams;
 import ru.practicum.shareit.request.model.ItemRequest;
 
 import java.util.Collection;
@@ -12,7 +13,11 @@ public interface ItemRequestRepository {
 
     ItemRequest getById(Long requestId);
 
-    Collection<ItemRequest> getAll();
+    // Запросы пользователя, от новых к старым
+    Collection<ItemRequest> findByRequesterId(Long requesterId, PageParams page);
+
+    // Запросы остальных пользователей, от новых к старым
+    Collection<ItemRequest> findAllExceptRequester(Long requesterId, PageParams page);
 
     void deleteRequestBuId(Long requestId);
 }
@@ -1,47 +1,177 @@
 package ru.practicum.shareit.request.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.pagination.PageParams;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.storage.EntityStore;
+import ru.practicum.shareit.storage.journal.EntityCodec;
+import ru.practicum.shareit.storage.journal.JournaledRepository;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
 
+// Запросы упорядочены по дате создания от новых к старым: общий набор для /requests/all
+// и отдельный набор на каждого автора для /requests. Курсор страницы переводится в ключ набора.
 @Repository
-public class ItemRequestRepositoryImpl implements ItemRequestRepository {
-    private static final Set<ItemRequest> requests = new HashSet<>();
-    private final AtomicLong generateIds = new AtomicLong(0);
+@Profile("!jdbc")
+public class ItemRequestRepositoryImpl implements ItemRequestRepository, JournaledRepository<ItemRequest>, MeterBinder {
+    private static final EntityCodec<ItemRequest> CODEC = new ItemRequestCodec();
+    private static final Comparator<CreatedKey> NEWEST_FIRST = Comparator.comparing(CreatedKey::created)
+            .thenComparing(CreatedKey::requestId)
+            .reversed();
+
+    private final EntityStore<ItemRequest> requests = new EntityStore<>(ItemRequest::copy, this::rollback);
+    private final NavigableSet<CreatedKey> newestFirst = new ConcurrentSkipListSet<>(NEWEST_FIRST);
+    private final Map<Long, NavigableSet<CreatedKey>> byRequester = new ConcurrentHashMap<>();
 
     @Override
     public ItemRequest save(ItemRequest itemRequest) {
-        itemRequest.setId(generateIds.incrementAndGet());
-        requests.add(itemRequest);
-        return itemRequest;
+        itemRequest.setId(null);
+        if (itemRequest.getCreated() == null) {
+            itemRequest.setCreated(LocalDateTime.now());
+        }
+        return requests.insert(itemRequest, this::index);
     }
 
     @Override
     public ItemRequest update(ItemRequest itemRequest) {
-        return itemRequest;
+        ItemRequest updated = requests.update(itemRequest.getId(), stored -> {
+            stored.setDescription(itemRequest.getDescription());
+        });
+        if (updated == null) {
+            throw new NotFoundException("Запрос не найден");
+        }
+        return updated;
     }
 
     @Override
     public ItemRequest getById(Long requestId) {
-        return requests.stream()
-                .filter(itemRequest -> itemRequest.getId().equals(requestId))
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Запрос не найден"));
+        ItemRequest itemRequest = requests.get(requestId);
+        if (itemRequest == null) {
+            throw new NotFoundException("Запрос не найден");
+        }
+        return itemRequest;
+    }
+
+    @Override
+    public Collection<ItemRequest> findByRequesterId(Long requesterId, PageParams page) {
+        NavigableSet<CreatedKey> keys = requesterId == null ? null : byRequester.get(requesterId);
+        if (keys == null) {
+            return List.of();
+        }
+        return page.apply(after(keys, page).stream()
+                        .map(key -> requests.get(key.requestId()))
+                        .filter(Objects::nonNull))
+                .collect(Collectors.toList());
     }
 
+    // Общий набор обходится с пропуском своих запросов по автору из ключа, не читая сами запросы:
+    // кроме страницы просматриваются только собственные запросы автора, попавшие между ее записями
     @Override
-    public Collection<ItemRequest> getAll() {
-        return new ArrayList<>();
+    public Collection<ItemRequest> findAllExceptRequester(Long requesterId, PageParams page) {
+        return page.apply(after(newestFirst, page).stream()
+                        .filter(key -> !Objects.equals(key.requesterId(), requesterId))
+                        .map(key -> requests.get(key.requestId()))
+                        .filter(Objects::nonNull))
+                .collect(Collectors.toList());
     }
 
     @Override
     public void deleteRequestBuId(Long requestId) {
+        requests.remove(requestId, request -> true, this::unindex);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ShareItMetrics.storeSize(registry, "requests", requests, EntityStore::size);
+        ShareItMetrics.indexSize(registry, "requests.requester", byRequester, Map::size);
+    }
+
+    @Override
+    public byte journalTag() {
+        return 4;
+    }
+
+    @Override
+    public EntityStore<ItemRequest> store() {
+        return requests;
+    }
+
+    @Override
+    public EntityCodec<ItemRequest> codec() {
+        return CODEC;
+    }
+
+    @Override
+    public void restore(ItemRequest itemRequest) {
+        requests.insert(itemRequest, this::index);
+    }
+
+    @Override
+    public void evict(Long requestId) {
+        deleteRequestBuId(requestId);
+    }
+
+    private void index(ItemRequest saved) {
+        newestFirst.add(createdKey(saved));
+        Long requesterId = requesterId(saved);
+        if (requesterId != null) {
+            byRequester.computeIfAbsent(requesterId, id -> new ConcurrentSkipListSet<>(NEWEST_FIRST))
+                    .add(createdKey(saved));
+        }
+    }
+
+    private void unindex(ItemRequest removed) {
+        newestFirst.remove(createdKey(removed));
+        Long requesterId = requesterId(removed);
+        NavigableSet<CreatedKey> keys = requesterId == null ? null : byRequester.get(requesterId);
+        if (keys != null) {
+            keys.remove(createdKey(removed));
+        }
+    }
+
+    // Изменение не попало в журнал: индексы возвращаются к опубликованному состоянию
+    private void rollback(ItemRequest failed, ItemRequest published) {
+        unindex(failed);
+        if (published != null) {
+            index(published);
+        }
+    }
+
+    private NavigableSet<CreatedKey> after(NavigableSet<CreatedKey> keys, PageParams page) {
+        if (!page.hasCursor()) {
+            return keys;
+        }
+        ItemRequest last = requests.get(page.getAfterId());
+        if (last == null) {
+            throw new ValidationException("Некорректный курсор страницы");
+        }
+        return keys.tailSet(createdKey(last), false);
+    }
+
+    private static CreatedKey createdKey(ItemRequest itemRequest) {
+        return new CreatedKey(itemRequest.getCreated(), itemRequest.getId(), requesterId(itemRequest));
+    }
+
+    private static Long requesterId(ItemRequest itemRequest) {
+        return itemRequest.getRequester() == null ? null : itemRequest.getRequester().getId();
+    }
 
+    // Автор в порядке не участвует: по нему /requests/all пропускает свои запросы без чтения хранилища
+    private record CreatedKey(LocalDateTime created, Long requestId, Long requesterId) {
     }
 }
@@ -0,0 +1,117 @@
+package ru.practicum.shareit.request.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.storage.SequenceIdAllocator;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Страницы от новых к старым читаются по индексам (requester_id, created DESC, id DESC) и (created DESC, id DESC);
+// курсор переводится в пару (created, id) последней выданной записи.
+@Repository
+@Profile("jdbc")
+public class JdbcItemRequestRepository implements ItemRequestRepository {
+    private static final String SELECT_REQUEST = "SELECT r.id, r.version, r.description, r.requester_id, r.created, "
+            + "u.name AS requester_name FROM item_requests r LEFT JOIN users u ON u.id = r.requester_id ";
+    private static final RowMapper<ItemRequest> REQUEST_MAPPER = (rs, rowNum) -> {
+        UserResponseDto requester = new UserResponseDto();
+        requester.setId(rs.getLong("requester_id"));
+        requester.setName(rs.getString("requester_name"));
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setId(rs.getLong("id"));
+        itemRequest.setVersion(rs.getLong("version"));
+        itemRequest.setDescription(rs.getString("description"));
+        itemRequest.setRequester(requester);
+        itemRequest.setCreated(rs.getObject("created", LocalDateTime.class));
+        return itemRequest;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator ids;
+
+    public JdbcItemRequestRepository(JdbcTemplate jdbcTemplate,
+                                     @Value("${shareit.jdbc.id-block-size:50}") int idBlockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ids = new SequenceIdAllocator(jdbcTemplate, "item_requests_seq", idBlockSize);
+    }
+
+    @Override
+    public ItemRequest save(ItemRequest itemRequest) {
+        itemRequest.setId(ids.nextId());
+        if (itemRequest.getCreated() == null) {
+            itemRequest.setCreated(LocalDateTime.now());
+        }
+        jdbcTemplate.update("INSERT INTO item_requests (id, description, requester_id, created) VALUES (?, ?, ?, ?)",
+                itemRequest.getId(), itemRequest.getDescription(), itemRequest.getRequester().getId(),
+                itemRequest.getCreated());
+        itemRequest.setVersion(1);
+        return itemRequest;
+    }
+
+    @Override
+    public ItemRequest update(ItemRequest itemRequest) {
+        int updated = jdbcTemplate.update(
+                "UPDATE item_requests SET description = ?, version = version + 1 WHERE id = ?",
+                itemRequest.getDescription(), itemRequest.getId());
+        if (updated == 0) {
+            throw new NotFoundException("Запрос не найден");
+        }
+        return getById(itemRequest.getId());
+    }
+
+    @Override
+    public ItemRequest getById(Long requestId) {
+        List<ItemRequest> requests = jdbcTemplate.query(SELECT_REQUEST + "WHERE r.id = ?", REQUEST_MAPPER,
+                requestId);
+        if (requests.isEmpty()) {
+            throw new NotFoundException("Запрос не найден");
+        }
+        return requests.getFirst();
+    }
+
+    @Override
+    public Collection<ItemRequest> findByRequesterId(Long requesterId, PageParams page) {
+        return find("r.requester_id = ?", requesterId, page);
+    }
+
+    @Override
+    public Collection<ItemRequest> findAllExceptRequester(Long requesterId, PageParams page) {
+        return find("r.requester_id <> ?", requesterId, page);
+    }
+
+    @Override
+    public void deleteRequestBuId(Long requestId) {
+        jdbcTemplate.update("DELETE FROM item_requests WHERE id = ?", requestId);
+    }
+
+    private Collection<ItemRequest> find(String requesterCondition, Long requesterId, PageParams page) {
+        StringBuilder sql = new StringBuilder(SELECT_REQUEST).append("WHERE ").append(requesterCondition);
+        List<Object> args = new ArrayList<>(List.of(requesterId));
+        if (page.hasCursor()) {
+            List<LocalDateTime> created = jdbcTemplate.queryForList(
+                    "SELECT created FROM item_requests WHERE id = ?", LocalDateTime.class, page.getAfterId());
+            if (created.isEmpty()) {
+                throw new ValidationException("Некорректный курсор страницы");
+            }
+            sql.append(" AND (r.created < ? OR (r.created = ? AND r.id < ?))");
+            args.add(created.getFirst());
+            args.add(created.getFirst());
+            args.add(page.getAfterId());
+        }
+        sql.append(" ORDER BY r.created DESC, r.id DESC LIMIT ? OFFSET ?");
+        args.add(page.getSize());
+        args.add(page.getFrom());
+        return jdbcTemplate.query(sql.toString(), REQUEST_MAPPER, args.toArray());
+    }
+}
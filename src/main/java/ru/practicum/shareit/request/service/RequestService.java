@@ -1,20 +1,24 @@
 package ru.practicum.shareit.request.service;
 
+import ru.practicum.shareit.pagination.PageParams;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.user.principal.Sharer;
 
 import java.util.Collection;
 
 public interface RequestService {
 
-    ItemRequestResponseDto create(ItemRequestDto itemRequestDto, Long userId);
+    ItemRequestResponseDto create(ItemRequestDto itemRequestDto, Sharer requester);
 
     ItemRequestResponseDto update(ItemRequest itemRequest);
 
-    ItemRequestResponseDto getById(Long requestId, Long userId);
+    ItemRequestResponseDto getById(Long requestId, Sharer user);
 
-    Collection<ItemRequestResponseDto> getAll(Long userId);
+    Collection<ItemRequestResponseDto> getOwn(Sharer requester, PageParams page);
+
+    Collection<ItemRequestResponseDto> getAll(Sharer user, PageParams page);
 
     void deleteRequestBuId(Long requestId);
 }
@@ -2,14 +2,20 @@ package ru.practicum.shareit.request.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.PageParams;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestResponseDto;
 import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.model.RequestMapper;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
-import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.user.principal.Sharer;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -17,13 +23,14 @@ import java.util.stream.Collectors;
 public class RequestServiceImpl implements RequestService {
     private final RequestMapper itemRequestMapper;
     private final ItemRequestRepository itemRequestRepository;
-    private final UserService userService;
+    private final ItemRepository itemRepository;
 
     @Override
-    public ItemRequestResponseDto create(ItemRequestDto itemRequestDto, Long userId) {
-        userService.getById(userId);
-        return itemRequestMapper.toResponseDto(itemRequestRepository.save(
-                itemRequestMapper.toItemRequest(itemRequestDto)));
+    public ItemRequestResponseDto create(ItemRequestDto itemRequestDto, Sharer requester) {
+        ItemRequest itemRequest = itemRequestMapper.toItemRequest(itemRequestDto);
+        itemRequest.setRequester(requester.getProfile());
+        itemRequest.setCreated(LocalDateTime.now());
+        return itemRequestMapper.toResponseDto(itemRequestRepository.save(itemRequest));
     }
 
     @Override
@@ -32,20 +39,33 @@ public class RequestServiceImpl implements RequestService {
     }
 
     @Override
-    public ItemRequestResponseDto getById(Long requestId, Long userId) {
-        userService.getById(userId);
-        return itemRequestMapper.toResponseDto(itemRequestRepository.getById(requestId));
+    public ItemRequestResponseDto getById(Long requestId, Sharer user) {
+        return withItems(List.of(itemRequestRepository.getById(requestId))).getFirst();
     }
 
     @Override
-    public Collection<ItemRequestResponseDto> getAll(Long userId) {
-        return itemRequestRepository.getAll().stream()
-                .map(itemRequestMapper::toResponseDto)
-                .collect(Collectors.toList());
+    public Collection<ItemRequestResponseDto> getOwn(Sharer requester, PageParams page) {
+        return withItems(itemRequestRepository.findByRequesterId(requester.getId(), page));
+    }
+
+    @Override
+    public Collection<ItemRequestResponseDto> getAll(Sharer user, PageParams page) {
+        return withItems(itemRequestRepository.findAllExceptRequester(user.getId(), page));
     }
 
     @Override
     public void deleteRequestBuId(Long requestId) {
         itemRequestRepository.deleteRequestBuId(requestId);
     }
+
+    // Вещи-ответы подтягиваются одним обращением к индексу вещей по запросам на всю страницу
+    private List<ItemRequestResponseDto> withItems(Collection<ItemRequest> itemRequests) {
+        Map<Long, List<Item>> itemsByRequest = itemRepository.findByRequestIds(itemRequests.stream()
+                .map(ItemRequest::getId)
+                .collect(Collectors.toList()));
+        return itemRequests.stream()
+                .map(itemRequest -> itemRequestMapper.toResponseDto(itemRequest,
+                        itemsByRequest.getOrDefault(itemRequest.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
 }
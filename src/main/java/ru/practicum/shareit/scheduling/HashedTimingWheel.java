@@ -0,0 +1,82 @@
+package ru.practicum.shareit.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Хешированное колесо таймеров: задача кладется в ячейку по номеру своего тика, а продвижение колеса
+// просматривает только ячейки пройденных тиков (или все ячейки один раз, если пройден полный оборот).
+// Собственных потоков нет: колесо продвигает вызывающий, сработавшие задачи он же и выполняет.
+public class HashedTimingWheel<T> {
+    private final List<ArrayDeque<Timeout<T>>> slots;
+    private final int mask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long currentTick;
+    private int size;
+
+    public HashedTimingWheel(int slotCount, long startTick) {
+        int count = Integer.highestOneBit(Math.max(slotCount, 2) - 1) << 1;
+        slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(new ArrayDeque<>());
+        }
+        mask = count - 1;
+        currentTick = startTick;
+    }
+
+    // Ставит задачу на тик deadline; возвращает false, если этот тик уже пройден
+    public boolean schedule(long deadline, T task) {
+        lock.lock();
+        try {
+            if (deadline <= currentTick) {
+                return false;
+            }
+            slots.get((int) deadline & mask).add(new Timeout<>(deadline, task));
+            size++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Продвигает колесо до тика tick и возвращает задачи, срок которых наступил
+    public List<T> advance(long tick) {
+        List<T> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            if (tick <= currentTick) {
+                return expired;
+            }
+            long steps = Math.min(tick - currentTick, slots.size());
+            for (long i = 1; i <= steps; i++) {
+                Iterator<Timeout<T>> timeouts = slots.get((int) (currentTick + i) & mask).iterator();
+                while (timeouts.hasNext()) {
+                    Timeout<T> timeout = timeouts.next();
+                    if (timeout.deadline() <= tick) {
+                        timeouts.remove();
+                        expired.add(timeout.task());
+                    }
+                }
+            }
+            currentTick = tick;
+            size -= expired.size();
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Timeout<T>(long deadline, T task) {
+    }
+}
@@ -0,0 +1,232 @@
+package ru.practicum.shareit.storage;
+
+import ru.practicum.shareit.storage.journal.StoreJournal;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+// Общее потокобезопасное хранилище сущностей по Ид для in-memory репозиториев.
+// Поиск по Ид не блокируется, изменения одной сущности сериализуются блокировкой ее полосы (stripe).
+// Опубликованный экземпляр больше не меняется: update() меняет копию и заменяет ею значение в карте,
+// поэтому get() и любые читатели без блокировки (мапперы, Jackson, ETag) всегда видят сущность целиком.
+// Вторичные индексы репозиториев обновляются внутри мутаторов, то есть под той же блокировкой.
+// Если подключен журнал, итоговое состояние сущности пишется в него под той же блокировкой до публикации,
+// а ожидание сброса на диск происходит уже после ее снятия. Если запись в журнал не удалась, сущность
+// не публикуется, а изменения индексов откатываются через rollback репозитория.
+// Если не удалось ожидание (сброс на диск), изменение уже видно в памяти, но может не пережить перезапуск;
+// вызывающий получает исключение, а журнал после этого отказывает в записи, так что следующие изменения
+// не публикуются.
+// Каждая вставка и каждое изменение увеличивают версию сущности, тоже под блокировкой ее полосы.
+public class EntityStore<T extends Versioned> {
+    private static final int DEFAULT_STRIPES = 64;
+
+    private final Map<Long, T> entities = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+    private final AtomicLong sequence = new AtomicLong(0);
+    private final StampedLock[] stripes;
+    private final UnaryOperator<T> copier;
+    // Откат индексов: (состояние, не попавшее в журнал; опубликованное состояние или null)
+    private final BiConsumer<T, T> rollback;
+    private volatile StoreJournal<T> journal;
+
+    public EntityStore(UnaryOperator<T> copier) {
+        this(copier, (failed, published) -> {
+        });
+    }
+
+    public EntityStore(UnaryOperator<T> copier, BiConsumer<T, T> rollback) {
+        this(copier, rollback, DEFAULT_STRIPES);
+    }
+
+    public EntityStore(UnaryOperator<T> copier, BiConsumer<T, T> rollback, int stripeCount) {
+        this.copier = copier;
+        this.rollback = rollback;
+        int size = Integer.highestOneBit(Math.max(stripeCount, 2) - 1) << 1;
+        stripes = new StampedLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    public long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    public long lastId() {
+        return sequence.get();
+    }
+
+    // Не дает выдать повторно Ид, выданные до перезапуска
+    public void restoreSequence(long lastId) {
+        sequence.accumulateAndGet(lastId, Math::max);
+    }
+
+    public void attachJournal(StoreJournal<T> journal) {
+        this.journal = journal;
+    }
+
+    public T insert(T entity) {
+        return insert(entity, stored -> {
+        });
+    }
+
+    // Сохраняет сущность, назначая Ид, если его нет; onInsert выполняется под блокировкой полосы
+    public T insert(T entity, Consumer<T> onInsert) {
+        if (entity.getId() == null) {
+            entity.setId(nextId());
+        } else {
+            sequence.accumulateAndGet(entity.getId(), Math::max);
+        }
+        StoreJournal<T> journal = this.journal;
+        long ticket = 0;
+        StampedLock lock = stripe(entity.getId());
+        long stamp = lock.writeLock();
+        try {
+            T previous = entities.get(entity.getId());
+            // Восстановленная из журнала сущность сохраняет свою версию
+            entity.setVersion(previous == null ? Math.max(entity.getVersion(), 1) : previous.getVersion() + 1);
+            // Индексы могут поправить сущность (например, статус брони), поэтому она публикуется после них
+            onInsert.accept(entity);
+            ticket = append(journal, entity, previous);
+            entities.put(entity.getId(), entity);
+            orderedIds.add(entity.getId());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (journal != null) {
+            journal.await(ticket);
+        }
+        return entity;
+    }
+
+    public T get(Long id) {
+        return id == null ? null : entities.get(id);
+    }
+
+    public boolean contains(Long id) {
+        return id != null && entities.containsKey(id);
+    }
+
+    // Опубликованные экземпляры неизменяемы, поэтому чтение нескольких полей не требует блокировки
+    public <R> R read(Long id, Function<T, R> reader) {
+        T entity = get(id);
+        return entity == null ? null : reader.apply(entity);
+    }
+
+    // Применяет мутатор к копии сущности под блокировкой полосы, увеличивает версию и публикует копию;
+    // возвращает null, если сущности нет. Исключение из мутатора оставляет в хранилище прежний экземпляр,
+    // но изменения вторичных индексов мутатор должен делать только после своих проверок
+    public T update(Long id, Consumer<T> mutator) {
+        return updateIfChanged(id, entity -> {
+            mutator.accept(entity);
+            return true;
+        });
+    }
+
+    // То же, что update(), но если мутатор вернул false, копия отбрасывается: версия не растет и в журнал
+    // ничего не пишется. Возвращает опубликованный экземпляр или null, если сущности нет
+    public T updateIfChanged(Long id, Predicate<T> mutator) {
+        if (id == null) {
+            return null;
+        }
+        StoreJournal<T> journal = this.journal;
+        long ticket = 0;
+        boolean changed = false;
+        T entity;
+        StampedLock lock = stripe(id);
+        long stamp = lock.writeLock();
+        try {
+            T current = entities.get(id);
+            entity = current == null ? null : copier.apply(current);
+            if (entity != null) {
+                changed = mutator.test(entity);
+                if (!changed) {
+                    return current;
+                }
+                entity.setVersion(current.getVersion() + 1);
+                ticket = append(journal, entity, current);
+                entities.put(id, entity);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (changed && journal != null) {
+            journal.await(ticket);
+        }
+        return entity;
+    }
+
+    public T remove(Long id) {
+        return remove(id, entity -> true, entity -> {
+        });
+    }
+
+    // Удаляет сущность, если она удовлетворяет условию; onRemove выполняется под блокировкой полосы
+    public T remove(Long id, Predicate<T> condition, Consumer<T> onRemove) {
+        if (id == null) {
+            return null;
+        }
+        StoreJournal<T> journal = this.journal;
+        long ticket;
+        T entity;
+        StampedLock lock = stripe(id);
+        long stamp = lock.writeLock();
+        try {
+            entity = entities.get(id);
+            if (entity == null || !condition.test(entity)) {
+                return null;
+            }
+            ticket = journal == null ? 0 : journal.delete(id);
+            entities.remove(id);
+            orderedIds.remove(id);
+            onRemove.accept(entity);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (journal != null) {
+            journal.await(ticket);
+        }
+        return entity;
+    }
+
+    // Сущности по возрастанию Ид, начиная со следующей после afterId (или с первой, если afterId == null)
+    public Stream<T> stream(Long afterId) {
+        NavigableSet<Long> ids = afterId == null ? orderedIds : orderedIds.tailSet(afterId, false);
+        return ids.stream()
+                .map(entities::get)
+                .filter(Objects::nonNull);
+    }
+
+    public int size() {
+        return entities.size();
+    }
+
+    // Пишет состояние в журнал до публикации; при ошибке индексы возвращаются к опубликованному состоянию
+    private long append(StoreJournal<T> journal, T entity, T published) {
+        if (journal == null) {
+            return 0;
+        }
+        try {
+            return journal.put(entity);
+        } catch (RuntimeException e) {
+            rollback.accept(entity, published);
+            throw e;
+        }
+    }
+
+    private StampedLock stripe(Long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (hash >>> 40) & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.shareit.storage;
+
+public interface Identifiable {
+
+    Long getId();
+
+    void setId(Long id);
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Выдает Ид из последовательности базы блоками: один nextval резервирует blockSize значений подряд,
+// поэтому обращение к базе нужно один раз на блок. Шаг последовательности (INCREMENT BY) равен blockSize;
+// это проверяется при создании, иначе блоки соседних экземпляров пересекутся и Ид повторятся.
+public class SequenceIdAllocator {
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long limit;
+
+    public SequenceIdAllocator(JdbcTemplate jdbcTemplate, String sequence, int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = "SELECT nextval('" + sequence + "')";
+        this.blockSize = blockSize;
+        requireIncrement(jdbcTemplate, sequence, blockSize);
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next >= limit) {
+                Long blockStart = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+                next = blockStart;
+                limit = blockStart + blockSize;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static void requireIncrement(JdbcTemplate jdbcTemplate, String sequence, int blockSize) {
+        List<String> increments = jdbcTemplate.queryForList(
+                "SELECT increment FROM information_schema.sequences WHERE LOWER(sequence_name) = ?",
+                String.class, sequence.toLowerCase(Locale.ROOT));
+        if (increments.isEmpty()) {
+            throw new IllegalStateException("Последовательность " + sequence + " не найдена");
+        }
+        long increment = Long.parseLong(increments.getFirst().trim());
+        if (increment != blockSize) {
+            throw new IllegalStateException("Шаг последовательности " + sequence + " (" + increment
+                    + ") не совпадает с shareit.jdbc.id-block-size (" + blockSize + ")");
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.practicum.shareit.storage;
+
+// Сущность с номером версии: хранилище увеличивает его при каждом изменении, из него строится ETag.
+// В изменении, переданном в репозиторий, версия означает ожидаемую текущую версию (If-Match), 0 - без проверки
+public interface Versioned extends Identifiable {
+
+    long getVersion();
+
+    void setVersion(long version);
+}
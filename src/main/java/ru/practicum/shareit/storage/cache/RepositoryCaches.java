@@ -0,0 +1,45 @@
+package ru.practicum.shareit.storage.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Weigher;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+
+// Кэши сущностей по Ид перед репозиториями на базе данных. Caffeine вытесняет по W-TinyLFU,
+// а граница задается в приблизительных байтах через weigher, а не числом записей.
+// Статистика попаданий публикуется в actuator как cache.gets{cache=<name>, result=hit|miss}.
+// Записи живут не дольше ttl после загрузки: строки, измененные в обход этого экземпляра приложения
+// (другой экземпляр, ручной SQL), перечитываются из базы не позже чем через ttl; 0 - без ограничения
+public final class RepositoryCaches {
+    private static final int OBJECT_OVERHEAD = 64;
+
+    private RepositoryCaches() {
+    }
+
+    public static <V> Cache<Long, V> build(String name, long maxBytes, Duration ttl, Weigher<Long, V> weigher,
+                                           MeterRegistry meterRegistry) {
+        Caffeine<Long, V> builder = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(weigher)
+                .recordStats();
+        if (ttl.isPositive()) {
+            builder.expireAfterWrite(ttl);
+        }
+        Cache<Long, V> cache = builder.build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    // Оценка занимаемой памяти: заголовок объекта плюс символы строковых полей
+    public static int weight(String... fields) {
+        int weight = OBJECT_OVERHEAD;
+        for (String field : fields) {
+            if (field != null) {
+                weight += OBJECT_OVERHEAD / 2 + field.length() * 2;
+            }
+        }
+        return weight;
+    }
+}
@@ -0,0 +1,239 @@
+package ru.practicum.shareit.storage.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Отложенная запись новых сущностей: save только кладет сущность в буфер, а фоновый поток
+// отправляет накопленное одним пакетом, когда набралось batchSize штук или прошел flushIntervalMs.
+// Пока сущность не записана, ее можно прочитать через get; flush() дописывает буфер синхронно
+// и вызывается перед изменениями и удалениями, чтобы они не обгоняли вставку.
+// Незаписанные сущности возвращаются в начало очереди и повторяются с удваивающейся паузой;
+// после maxRetries неудачных попыток сущность отбрасывается (запись теряется), учитывается в метрике
+// и передается в onDropped, чтобы владелец буфера убрал ее из кэша и освободил связанные с ней ресурсы.
+@Slf4j
+public class WriteBehindBuffer<T> implements Closeable {
+    private static final int MAX_BACKOFF_SHIFT = 6;
+
+    private final String name;
+    private final Consumer<List<T>> writer;
+    private final Consumer<T> onDropped;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxRetries;
+    private final Counter retried;
+    private final Counter dropped;
+    private final Map<Long, T> pending = new ConcurrentHashMap<>();
+    private final Map<Long, Integer> failures = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    // Одна запись пакета за раз: синхронный flush дожидается пакета, который уже пишет фоновый поток
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread flusher;
+    private List<Long> queued = new ArrayList<>();
+    // Фоновый поток не пишет раньше этого момента после неудачной попытки
+    private long retryAtNanos;
+    private boolean closed;
+
+    public WriteBehindBuffer(String name, Consumer<List<T>> writer, Consumer<T> onDropped, int batchSize,
+                             long flushIntervalMs, int maxRetries, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.writer = writer;
+        this.onDropped = onDropped;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.maxRetries = maxRetries;
+        this.retryAtNanos = System.nanoTime();
+        this.retried = Counter.builder(ShareItMetrics.WRITE_BEHIND_RETRIED)
+                .tag("buffer", name)
+                .register(meterRegistry);
+        this.dropped = Counter.builder(ShareItMetrics.WRITE_BEHIND_DROPPED)
+                .tag("buffer", name)
+                .register(meterRegistry);
+        this.flusher = Thread.ofPlatform()
+                .name("write-behind-" + name)
+                .daemon()
+                .start(this::flushLoop);
+    }
+
+    public void add(Long id, T entity) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Буфер отложенной записи закрыт: " + name);
+            }
+            pending.put(id, entity);
+            queued.add(id);
+            if (queued.size() >= batchSize) {
+                batchReady.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public T get(Long id) {
+        return id == null ? null : pending.get(id);
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Long> batch;
+            lock.lock();
+            try {
+                if (queued.isEmpty()) {
+                    return;
+                }
+                batch = queued;
+                queued = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+            write(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Дописывает буфер, выдерживая паузы между повторами; каждая попытка либо пишет сущность,
+    // либо приближает ее к отбрасыванию, поэтому закрытие ограничено maxRetries попытками
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            batchReady.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+            while (!pending.isEmpty()) {
+                long wait;
+                lock.lock();
+                try {
+                    wait = retryAtNanos - System.nanoTime();
+                } finally {
+                    lock.unlock();
+                }
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Закрытие прервано, не записано {} сущностей ({})", pending.size(), name);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (!closed) {
+                    long now = System.nanoTime();
+                    long wakeAt = Math.max(queued.size() >= batchSize ? now : deadline, retryAtNanos);
+                    if (now >= wakeAt) {
+                        break;
+                    }
+                    batchReady.awaitNanos(wakeAt - now);
+                }
+                if (closed) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            flush();
+        }
+    }
+
+    // Сущности остаются видимыми через get, пока не записаны. Пакет мог записаться частично,
+    // поэтому после ошибки сущности пишутся по одной, а уже записанные (конфликт ключа) считаются успешными
+    private void write(List<Long> ids) {
+        List<T> batch = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            batch.add(pending.get(id));
+        }
+        try {
+            writer.accept(batch);
+            ids.forEach(this::written);
+            return;
+        } catch (RuntimeException e) {
+            log.warn("Не удалось записать пакет из {} сущностей ({}), пишу по одной", batch.size(), name, e);
+        }
+
+        List<Long> retry = new ArrayList<>();
+        int attempts = 0;
+        for (Long id : ids) {
+            try {
+                writer.accept(List.of(pending.get(id)));
+                written(id);
+            } catch (DuplicateKeyException e) {
+                written(id);
+            } catch (RuntimeException e) {
+                int failed = failures.merge(id, 1, Integer::sum);
+                if (failed > maxRetries) {
+                    log.error("Сущность {} ({}) отброшена после {} попыток записи", id, name, failed, e);
+                    drop(id);
+                } else {
+                    retry.add(id);
+                    attempts = Math.max(attempts, failed);
+                    retried.increment();
+                }
+            }
+        }
+        if (!retry.isEmpty()) {
+            requeue(retry, attempts);
+        }
+    }
+
+    private void requeue(List<Long> retry, int attempts) {
+        lock.lock();
+        try {
+            retry.addAll(queued);
+            queued = retry;
+            long backoff = flushIntervalNanos << Math.min(attempts - 1, MAX_BACKOFF_SHIFT);
+            retryAtNanos = System.nanoTime() + backoff;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void drop(Long id) {
+        T entity = pending.get(id);
+        written(id);
+        dropped.increment();
+        try {
+            onDropped.accept(entity);
+        } catch (RuntimeException e) {
+            log.error("Не удалось обработать отброшенную сущность {} ({})", id, name, e);
+        }
+    }
+
+    private void written(Long id) {
+        pending.remove(id);
+        failures.remove(id);
+    }
+}
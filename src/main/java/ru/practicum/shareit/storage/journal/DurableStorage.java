@@ -0,0 +1,265 @@
+package ru.practicum.shareit.storage.journal;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.storage.EntityStore;
+import ru.practicum.shareit.storage.Versioned;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Долговечность in-memory хранилищ: журнал предзаписи wal-N.log и снимки snapshot-N.bin.
+// Снимок N снимается сразу после переключения журнала на wal-N, поэтому состояние восстанавливается
+// как последний целый снимок плюс журналы с его поколения. Записи журнала хранят полное состояние
+// сущности, так что повторное применение уже учтенных снимком записей ничего не портит.
+@Slf4j
+@Component
+@Profile("!jdbc")
+@ConditionalOnProperty(name = "shareit.storage.wal.enabled", havingValue = "true")
+public class DurableStorage {
+    private static final Pattern FILE_NAME = Pattern.compile("(wal|snapshot)-(\\d+)\\.(log|bin)");
+    private static final int SNAPSHOT_BUFFER_SIZE = 1 << 20;
+
+    private final Map<Byte, JournaledRepository<?>> repositories = new HashMap<>();
+    private final Path directory;
+    private final boolean fsync;
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private WriteAheadLog wal;
+    private long generation;
+
+    public DurableStorage(List<JournaledRepository<?>> repositories,
+                          @Value("${shareit.storage.dir:data}") Path directory,
+                          @Value("${shareit.storage.wal.fsync:true}") boolean fsync) {
+        for (JournaledRepository<?> repository : repositories) {
+            if (this.repositories.put(repository.journalTag(), repository) != null) {
+                throw new IllegalStateException("Повторяется номер хранилища в журнале: " + repository.journalTag());
+            }
+        }
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        long startedAt = System.nanoTime();
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> logs = new TreeMap<>();
+        listFiles(snapshots, logs);
+
+        long records = 0;
+        long snapshotGeneration = 0;
+        if (!snapshots.isEmpty()) {
+            snapshotGeneration = snapshots.lastKey();
+            records += loadSnapshot(snapshots.lastEntry().getValue());
+        }
+        Map<Long, Path> tail = logs.tailMap(snapshotGeneration, true);
+        for (Map.Entry<Long, Path> entry : tail.entrySet()) {
+            long[] replayed = new long[1];
+            long validLength = JournalFormat.read(entry.getValue(), record -> {
+                apply(record, true);
+                replayed[0]++;
+            });
+            records += replayed[0];
+            if (validLength < Files.size(entry.getValue())) {
+                log.warn("Журнал {} оборван на {} байте, хвост отброшен", entry.getValue(), validLength);
+                try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.WRITE)) {
+                    channel.truncate(validLength);
+                }
+            }
+        }
+
+        generation = Math.max(1, Math.max(snapshotGeneration, tail.isEmpty() ? 0 : logs.lastKey()));
+        wal = new WriteAheadLog(walFile(generation), fsync);
+        repositories.values().forEach(this::attach);
+        log.info("Хранилища восстановлены: {} записей за {} мс, поколение журнала {}", records,
+                (System.nanoTime() - startedAt) / 1_000_000, generation);
+    }
+
+    // Переключает журнал на новое поколение, пишет снимок во временный файл и атомарно его публикует;
+    // после этого снимки и журналы прошлых поколений больше не нужны
+    @Scheduled(fixedDelayString = "${shareit.storage.snapshot-interval-ms:600000}",
+            initialDelayString = "${shareit.storage.snapshot-interval-ms:600000}")
+    public void snapshot() throws IOException {
+        snapshotLock.lock();
+        try {
+            long startedAt = System.nanoTime();
+            long next = generation + 1;
+            wal.rotate(walFile(next));
+            generation = next;
+
+            Path temporary = directory.resolve("snapshot-" + next + ".tmp");
+            long entities = 0;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_SIZE);
+                RecordWriter record = new RecordWriter(256);
+                for (JournaledRepository<?> repository : repositories.values()) {
+                    entities += writeStore(repository, record, channel, buffer);
+                }
+                write(record.reset(JournalFormat.END, (byte) 0, 0).frame(), channel, buffer);
+                drain(channel, buffer);
+                channel.force(true);
+            }
+            Files.move(temporary, snapshotFile(next), StandardCopyOption.ATOMIC_MOVE);
+            deleteBefore(next);
+            log.info("Снимок хранилищ {} записан: {} сущностей за {} мс", next, entities,
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    private long loadSnapshot(Path snapshot) throws IOException {
+        boolean[] complete = new boolean[1];
+        long[] loaded = new long[1];
+        JournalFormat.read(snapshot, record -> {
+            if (record.op() == JournalFormat.END) {
+                complete[0] = true;
+            } else {
+                apply(record, false);
+                loaded[0]++;
+            }
+        });
+        if (!complete[0]) {
+            throw new IllegalStateException("Снимок хранилищ поврежден: " + snapshot);
+        }
+        return loaded[0];
+    }
+
+    private void apply(RecordReader record, boolean replace) {
+        JournaledRepository<?> repository = repositories.get(record.store());
+        if (repository == null) {
+            throw new IllegalStateException("Неизвестное хранилище в журнале: " + record.store());
+        }
+        switch (record.op()) {
+            case JournalFormat.PUT -> restore(repository, record, replace);
+            case JournalFormat.DELETE -> repository.evict(record.id());
+            case JournalFormat.SEQUENCE -> repository.store().restoreSequence(record.getLong());
+            default -> throw new IllegalStateException("Неизвестная операция в журнале: " + record.op());
+        }
+    }
+
+    private static <T extends Versioned> void restore(JournaledRepository<T> repository, RecordReader record,
+                                                         boolean replace) {
+        long version = record.getLong();
+        T entity = repository.codec().read(record);
+        entity.setId(record.id());
+        entity.setVersion(version);
+        if (replace) {
+            repository.evict(record.id());
+        }
+        repository.restore(entity);
+    }
+
+    private <T extends Versioned> void attach(JournaledRepository<T> repository) {
+        repository.store().attachJournal(wal.journal(repository.journalTag(), repository.codec()));
+    }
+
+    // Каждая сущность кодируется под блокировкой ее полосы, поэтому в снимок не попадает частично измененная
+    private static <T extends Versioned> long writeStore(JournaledRepository<T> repository, RecordWriter record,
+                                                           FileChannel channel, ByteBuffer buffer) throws IOException {
+        EntityStore<T> store = repository.store();
+        EntityCodec<T> codec = repository.codec();
+        byte tag = repository.journalTag();
+        long written = 0;
+        try (Stream<T> entities = store.stream(null)) {
+            for (T entity : (Iterable<T>) entities::iterator) {
+                ByteBuffer frame = store.read(entity.getId(), stored -> {
+                    codec.write(stored, record.reset(JournalFormat.PUT, tag, stored.getId()).putLong(stored.getVersion()));
+                    return record.frame();
+                });
+                if (frame != null) {
+                    write(frame, channel, buffer);
+                    written++;
+                }
+            }
+        }
+        write(record.reset(JournalFormat.SEQUENCE, tag, 0).putLong(store.lastId()).frame(), channel, buffer);
+        return written;
+    }
+
+    private static void write(ByteBuffer frame, FileChannel channel, ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < frame.remaining()) {
+            drain(channel, buffer);
+        }
+        if (buffer.remaining() < frame.remaining()) {
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            return;
+        }
+        buffer.put(frame);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void listFiles(TreeMap<Long, Path> snapshots, TreeMap<Long, Path> logs) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = FILE_NAME.matcher(file.getFileName().toString());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                long fileGeneration = Long.parseLong(matcher.group(2));
+                if (matcher.group(1).equals("wal") && matcher.group(3).equals("log")) {
+                    logs.put(fileGeneration, file);
+                } else if (matcher.group(1).equals("snapshot") && matcher.group(3).equals("bin")) {
+                    snapshots.put(fileGeneration, file);
+                }
+            }
+        }
+    }
+
+    private void deleteBefore(long keepGeneration) throws IOException {
+        TreeMap<Long, Path> snapshots = new TreeMap<>();
+        TreeMap<Long, Path> logs = new TreeMap<>();
+        listFiles(snapshots, logs);
+        for (Path file : snapshots.headMap(keepGeneration).values()) {
+            Files.deleteIfExists(file);
+        }
+        for (Path file : logs.headMap(keepGeneration).values()) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private Path walFile(long fileGeneration) {
+        return directory.resolve("wal-" + fileGeneration + ".log");
+    }
+
+    private Path snapshotFile(long fileGeneration) {
+        return directory.resolve("snapshot-" + fileGeneration + ".bin");
+    }
+}
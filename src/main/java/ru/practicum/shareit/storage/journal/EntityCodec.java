@@ -0,0 +1,10 @@
+package ru.practicum.shareit.storage.journal;
+
+// Двоичное представление сущности в журнале и снимках. Ид хранится в заголовке записи, а версия - перед полями,
+// их пишет и читает сам журнал
+public interface EntityCodec<T> {
+
+    void write(T entity, RecordWriter out);
+
+    T read(RecordReader in);
+}
@@ -0,0 +1,67 @@
+package ru.practicum.shareit.storage.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Общий формат журнала и снимков: последовательность записей [длина][CRC32C][данные].
+// Файлы читаются через отображение в память окнами, чтобы не упираться в предел MappedByteBuffer в 2 ГБ
+final class JournalFormat {
+    static final int HEADER_SIZE = 2 * Integer.BYTES;
+    static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte SEQUENCE = 3;
+    static final byte END = 4;
+
+    private JournalFormat() {
+    }
+
+    // Передает обработчику записи файла по порядку и возвращает длину его целой части:
+    // чтение останавливается на оборванной или поврежденной записи
+    static long read(Path file, Consumer<RecordReader> handler) throws IOException {
+        return read(file, WINDOW_SIZE, handler);
+    }
+
+    static long read(Path file, long windowSize, Consumer<RecordReader> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            CRC32C crc = new CRC32C();
+            while (position < size) {
+                long length = Math.min(size - position, windowSize);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = 0;
+                while (length - consumed >= HEADER_SIZE) {
+                    int recordSize = window.getInt(consumed);
+                    if (recordSize <= 0 || recordSize > MAX_RECORD_SIZE) {
+                        return position + consumed;
+                    }
+                    if (consumed + HEADER_SIZE + recordSize > length) {
+                        break;
+                    }
+                    ByteBuffer payload = window.slice(consumed + HEADER_SIZE, recordSize);
+                    crc.reset();
+                    crc.update(payload.duplicate());
+                    if ((int) crc.getValue() != window.getInt(consumed + Integer.BYTES)) {
+                        return position + consumed;
+                    }
+                    handler.accept(new RecordReader(payload));
+                    consumed += HEADER_SIZE + recordSize;
+                }
+                if (consumed == 0) {
+                    return position;
+                }
+                position += consumed;
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.shareit.storage.journal;
+
+import ru.practicum.shareit.storage.EntityStore;
+import ru.practicum.shareit.storage.Versioned;
+
+// In-memory репозиторий, состояние которого пишется в журнал и восстанавливается после перезапуска
+public interface JournaledRepository<T extends Versioned> {
+
+    // Номер хранилища в журнале и снимках, не должен меняться между версиями
+    byte journalTag();
+
+    EntityStore<T> store();
+
+    EntityCodec<T> codec();
+
+    // Вставляет сущность с известным Ид и строит для нее вторичные индексы
+    void restore(T entity);
+
+    // Удаляет сущность вместе с ее записями во вторичных индексах
+    void evict(Long id);
+}
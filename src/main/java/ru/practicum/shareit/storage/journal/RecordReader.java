@@ -0,0 +1,70 @@
+package ru.practicum.shareit.storage.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Читает поля записи, собранной RecordWriter; буфер может указывать прямо в отображенный в память файл
+public final class RecordReader {
+    private final ByteBuffer buffer;
+    private final byte store;
+    private final byte op;
+    private final long id;
+
+    RecordReader(ByteBuffer payload) {
+        this.buffer = payload;
+        this.store = payload.get();
+        this.op = payload.get();
+        this.id = payload.getLong();
+    }
+
+    public byte store() {
+        return store;
+    }
+
+    public byte op() {
+        return op;
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public byte getByte() {
+        return buffer.get();
+    }
+
+    public boolean getBoolean() {
+        return buffer.get() != 0;
+    }
+
+    public long getLong() {
+        return buffer.getLong();
+    }
+
+    public Long getNullableLong() {
+        long value = buffer.getLong();
+        return RecordWriter.isNull(value) ? null : value;
+    }
+
+    public String getString() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public LocalDateTime getDateTime() {
+        long seconds = buffer.getLong();
+        return RecordWriter.isNull(seconds) ? null : RecordWriter.dateTime(seconds, buffer.getInt());
+    }
+
+    public LocalDate getDate() {
+        long epochDay = buffer.getLong();
+        return RecordWriter.isNull(epochDay) ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
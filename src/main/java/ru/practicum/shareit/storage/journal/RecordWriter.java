@@ -0,0 +1,94 @@
+package ru.practicum.shareit.storage.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.zip.CRC32C;
+
+// Собирает одну запись: [длина][CRC32C][хранилище][операция][Ид][поля сущности].
+// Длина и контрольная сумма считаются по всему, что идет после них, и заполняются в frame()
+public final class RecordWriter {
+    private static final long NULL_LONG = Long.MIN_VALUE;
+
+    private ByteBuffer buffer;
+
+    public RecordWriter(int capacity) {
+        buffer = ByteBuffer.allocate(Math.max(capacity, JournalFormat.HEADER_SIZE + 10));
+    }
+
+    public RecordWriter reset(byte op, byte store, long id) {
+        buffer.clear();
+        buffer.position(JournalFormat.HEADER_SIZE);
+        return putByte(store).putByte(op).putLong(id);
+    }
+
+    public RecordWriter putByte(byte value) {
+        ensure(1).put(value);
+        return this;
+    }
+
+    public RecordWriter putBoolean(boolean value) {
+        return putByte(value ? (byte) 1 : (byte) 0);
+    }
+
+    public RecordWriter putLong(long value) {
+        ensure(Long.BYTES).putLong(value);
+        return this;
+    }
+
+    public RecordWriter putNullableLong(Long value) {
+        return putLong(value == null ? NULL_LONG : value);
+    }
+
+    public RecordWriter putString(String value) {
+        if (value == null) {
+            ensure(Integer.BYTES).putInt(-1);
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes);
+        return this;
+    }
+
+    public RecordWriter putDateTime(LocalDateTime value) {
+        if (value == null) {
+            return putLong(NULL_LONG);
+        }
+        ensure(Long.BYTES + Integer.BYTES).putLong(value.toEpochSecond(ZoneOffset.UTC)).putInt(value.getNano());
+        return this;
+    }
+
+    public RecordWriter putDate(LocalDate value) {
+        return putLong(value == null ? NULL_LONG : value.toEpochDay());
+    }
+
+    // Заполняет заголовок и возвращает готовую запись; буфер действителен до следующего reset
+    public ByteBuffer frame() {
+        int end = buffer.position();
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), JournalFormat.HEADER_SIZE, end - JournalFormat.HEADER_SIZE);
+        buffer.putInt(0, end - JournalFormat.HEADER_SIZE);
+        buffer.putInt(Integer.BYTES, (int) crc.getValue());
+        return ByteBuffer.wrap(buffer.array(), 0, end);
+    }
+
+    static LocalDateTime dateTime(long epochSecond, int nano) {
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    static boolean isNull(long value) {
+        return value == NULL_LONG;
+    }
+
+    private ByteBuffer ensure(int bytes) {
+        if (buffer.remaining() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
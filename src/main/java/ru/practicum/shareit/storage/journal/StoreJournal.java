@@ -0,0 +1,16 @@
+package ru.practicum.shareit.storage.journal;
+
+import ru.practicum.shareit.storage.Versioned;
+
+// Журнал изменений одного хранилища. put и delete вызываются под блокировкой сущности,
+// await - уже после ее снятия, чтобы ожидание сброса на диск не задерживало других писателей
+public interface StoreJournal<T extends Versioned> {
+
+    // Записывает полное текущее состояние сущности; возвращает номер записи для await
+    long put(T entity);
+
+    long delete(Long id);
+
+    // Ждет, пока запись окажется на диске; в асинхронном режиме возвращается сразу
+    void await(long ticket);
+}
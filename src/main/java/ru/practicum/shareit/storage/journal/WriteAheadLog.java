@@ -0,0 +1,222 @@
+package ru.practicum.shareit.storage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.storage.Versioned;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Журнал предзаписи с групповым сбросом: писатели только копируют запись в общий буфер,
+// а отдельный поток забирает все накопленное, пишет одним вызовом FileChannel.write и делает один force
+// на всю группу. Пока идет force, следующая группа копится в запасном буфере.
+@Slf4j
+public class WriteAheadLog implements Closeable {
+    private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+    private final boolean fsync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition pendingAvailable = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    // Держится на время записи группы и смены файла, чтобы группа не попала в файл следующего поколения
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private final Thread writer;
+    private ByteBuffer pending = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long appended;
+    private long durable;
+    private boolean closed;
+    private IOException failure;
+    private FileChannel channel;
+
+    public WriteAheadLog(Path file, boolean fsync) throws IOException {
+        this.fsync = fsync;
+        this.channel = open(file);
+        this.writer = Thread.ofPlatform()
+                .name("wal-writer")
+                .daemon()
+                .start(this::writeLoop);
+    }
+
+    public <T extends Versioned> StoreJournal<T> journal(byte store, EntityCodec<T> codec) {
+        return new StoreJournal<>() {
+            @Override
+            public long put(T entity) {
+                RecordWriter record = new RecordWriter(128).reset(JournalFormat.PUT, store, entity.getId())
+                        .putLong(entity.getVersion());
+                codec.write(entity, record);
+                return append(record.frame());
+            }
+
+            @Override
+            public long delete(Long id) {
+                return append(new RecordWriter(32).reset(JournalFormat.DELETE, store, id).frame());
+            }
+
+            @Override
+            public void await(long ticket) {
+                WriteAheadLog.this.await(ticket);
+            }
+        };
+    }
+
+    long append(ByteBuffer record) {
+        lock.lock();
+        try {
+            checkUsable();
+            if (pending.remaining() < record.remaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+                        pending.position() + record.remaining()));
+                pending.flip();
+                grown.put(pending);
+                pending = grown;
+            }
+            pending.put(record);
+            pendingAvailable.signal();
+            return ++appended;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void await(long ticket) {
+        if (!fsync) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (durable < ticket) {
+                if (failure != null) {
+                    throw new UncheckedIOException("Журнал изменений недоступен", failure);
+                }
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Дописывает накопленное в текущий файл и переключает журнал на новый.
+    // Все записи, добавленные до вызова, остаются в старом файле, все последующие попадут в новый
+    public void rotate(Path next) throws IOException {
+        ioLock.lock();
+        try {
+            flushPending();
+            channel.force(true);
+            channel.close();
+            channel = open(next);
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            pendingAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioLock.lock();
+        try {
+            flushPending();
+            channel.force(true);
+            channel.close();
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.position() == 0 && !closed) {
+                    pendingAvailable.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            ioLock.lock();
+            try {
+                flushPending();
+            } finally {
+                ioLock.unlock();
+            }
+        }
+    }
+
+    // Выполняется под ioLock: забирает группу записей, пишет ее и будит ожидающих
+    private void flushPending() {
+        ByteBuffer batch;
+        long target;
+        lock.lock();
+        try {
+            if (pending.position() == 0) {
+                return;
+            }
+            batch = pending;
+            pending = spare;
+            target = appended;
+        } finally {
+            lock.unlock();
+        }
+
+        IOException error = null;
+        batch.flip();
+        try {
+            while (batch.hasRemaining()) {
+                channel.write(batch);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            log.error("Не удалось записать журнал изменений", e);
+            error = e;
+        }
+
+        lock.lock();
+        try {
+            if (error != null) {
+                failure = error;
+            } else {
+                durable = Math.max(durable, target);
+            }
+            spare = batch.clear();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new UncheckedIOException("Журнал изменений недоступен", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Журнал изменений закрыт");
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+}
@@ -2,9 +2,14 @@ package ru.practicum.shareit.user.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.pagination.PageResponse;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.model.OnCreate;
@@ -23,33 +28,40 @@ public class UserController {
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public UserResponseDto saveNewUser(@RequestBody @Validated(OnCreate.class) UserDto userDto) {
-        log.info("Принял запрос на сохранение нового пользователя: {}", userDto.getName());
+        log.debug("Принял запрос на сохранение нового пользователя: {}", userDto.getName());
         return userService.create(userDto);
     }
 
     @GetMapping("/{userId}")
-    public UserResponseDto getUserById(@PathVariable Long userId) {
-        log.info("Принял запрос на полученик пользователя по Ид: {}", userId);
-        return userService.getById(userId);
+    public ResponseEntity<UserResponseDto> getUserById(@PathVariable Long userId,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                               required = false) String ifNoneMatch) {
+        log.debug("Принял запрос на полученик пользователя по Ид: {}", userId);
+        return EntityTags.conditional(userService.getTaggedById(userId), ifNoneMatch);
     }
 
     @GetMapping
-    public List<UserResponseDto> getAllUsers() {
-        log.info("Принял запрос на вывод списка всех пользователей");
-        return userService.getAllUsers();
+    public ResponseEntity<List<UserResponseDto>> getAllUsers(@RequestParam(required = false) Integer from,
+                                                             @RequestParam(required = false) Integer size,
+                                                             @RequestParam(required = false) String cursor) {
+        log.debug("Принял запрос на вывод списка всех пользователей");
+        PageParams page = PageParams.of(from, size, cursor);
+        return PageResponse.of(userService.getAllUsers(page), page, UserResponseDto::getId);
     }
 
     @PatchMapping("/{userId}")
-    public UserResponseDto updateUser(@RequestBody @Validated(OnUpdate.class) UserDto userDto,
-                                      @PathVariable Long userId) {
-        log.info("Принял запрос на обновление пользователя с Ид: {}", userId);
-        return userService.update(userDto, userId);
+    public ResponseEntity<UserResponseDto> updateUser(@RequestBody @Validated(OnUpdate.class) UserDto userDto,
+                                                      @PathVariable Long userId,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch) {
+        log.debug("Принял запрос на обновление пользователя с Ид: {}", userId);
+        return EntityTags.ok(userService.update(userDto, userId, ifMatch));
     }
 
     @DeleteMapping("/{userId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void deleteUserById(@PathVariable Long userId) {
-        log.info("Принял запрос на удаления пользователя с Ид: {}", userId);
+        log.debug("Принял запрос на удаления пользователя с Ид: {}", userId);
         userService.deleteById(userId);
     }
 }
\ No newline at end of file
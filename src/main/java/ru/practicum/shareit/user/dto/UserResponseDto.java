@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 @Data
@@ -8,4 +9,7 @@ public class UserResponseDto {
     private Long id;
     private String email;
     private String login;
+    // Версия пользователя, с которой снят этот снимок; в ответ не попадает, входит в ETag брони
+    @JsonIgnore
+    private long version;
 }
@@ -1,16 +1,30 @@
 package ru.practicum.shareit.user.model;
 
 import lombok.Data;
+import ru.practicum.shareit.storage.Versioned;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
-public class User {
+public class User implements Versioned {
     private Long id;
+    private long version;
     private String email;
     private String name;
     private String login;
-    private final LocalDateTime registrationDate = LocalDateTime.now();
+    private LocalDateTime registrationDate = LocalDateTime.now();
     private LocalDate birthday;
-}
\ No newline at end of file
+
+    public User copy() {
+        User copy = new User();
+        copy.setId(id);
+        copy.setVersion(version);
+        copy.setEmail(email);
+        copy.setName(name);
+        copy.setLogin(login);
+        copy.setRegistrationDate(registrationDate);
+        copy.setBirthday(birthday);
+        return copy;
+    }
+}
@@ -32,6 +32,7 @@ public class UserMapper {
         dto.setId(user.getId());
         dto.setLogin(user.getLogin());
         dto.setEmail(user.getEmail());
+        dto.setVersion(user.getVersion());
         return dto;
     }
 }
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.user.principal;
+
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import java.util.function.Supplier;
+
+// Пользователь из заголовка X-Sharer-User-Id, уже проверенный при разборе запроса.
+// Профиль загружается не более одного раза и только если он нужен сервису
+public final class Sharer {
+    private final Long id;
+    private Supplier<UserResponseDto> loader;
+    private UserResponseDto profile;
+
+    private Sharer(Long id, UserResponseDto profile, Supplier<UserResponseDto> loader) {
+        this.id = id;
+        this.profile = profile;
+        this.loader = loader;
+    }
+
+    public static Sharer of(UserResponseDto profile) {
+        return new Sharer(profile.getId(), profile, null);
+    }
+
+    public static Sharer of(Long id, Supplier<UserResponseDto> loader) {
+        return new Sharer(id, null, loader);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UserResponseDto getProfile() {
+        if (profile == null) {
+            profile = loader.get();
+            loader = null;
+        }
+        return profile;
+    }
+
+    @Override
+    public String toString() {
+        return "Sharer{id=" + id + "}";
+    }
+}
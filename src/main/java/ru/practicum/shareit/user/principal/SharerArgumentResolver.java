@@ -0,0 +1,51 @@
+package ru.practicum.shareit.user.principal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.MissingRequestHeaderException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.user.service.UserService;
+
+// Разбирает и проверяет X-Sharer-User-Id один раз на запрос; результат хранится в атрибуте запроса
+@Component
+@RequiredArgsConstructor
+public class SharerArgumentResolver implements HandlerMethodArgumentResolver {
+    public static final String HEADER = "X-Sharer-User-Id";
+    private static final String ATTRIBUTE = Sharer.class.getName();
+
+    private final UserService userService;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return Sharer.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Sharer resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory)
+            throws MissingRequestHeaderException {
+        Sharer sharer = (Sharer) webRequest.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (sharer != null) {
+            return sharer;
+        }
+        String header = webRequest.getHeader(HEADER);
+        if (header == null) {
+            throw new MissingRequestHeaderException(HEADER, parameter);
+        }
+        long userId;
+        try {
+            userId = Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Некорректный Ид пользователя в заголовке " + HEADER + ": " + header);
+        }
+        sharer = userService.resolveSharer(userId);
+        webRequest.setAttribute(ATTRIBUTE, sharer, RequestAttributes.SCOPE_REQUEST);
+        return sharer;
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit.user.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.storage.cache.RepositoryCaches;
+import ru.practicum.shareit.storage.cache.WriteBehindBuffer;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.util.Collection;
+
+// Кэш пользователей по Ид перед базой: findById и existsById вызываются почти в каждом запросе.
+// Любое изменение или удаление сбрасывает запись из кэша; списки и проверки email идут в базу напрямую,
+// перед ними дописываются отложенные вставки
+@Primary
+@Repository
+@Profile("jdbc")
+@ConditionalOnProperty(name = "shareit.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class CachingUserRepository implements UserRepository {
+    private final UserRepository delegate;
+    private final Cache<Long, User> cache;
+    private final WriteBehindBuffer<User> writeBehind;
+
+    public CachingUserRepository(@Qualifier("jdbcUserRepository") UserRepository delegate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${shareit.cache.user-max-bytes:33554432}") long maxBytes,
+                                 @Value("${shareit.cache.ttl-seconds:600}") long ttlSeconds,
+                                 @Value("${shareit.cache.write-behind.enabled:false}") boolean writeBehind,
+                                 @Value("${shareit.cache.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${shareit.cache.write-behind.flush-ms:200}") long flushMs,
+                                 @Value("${shareit.cache.write-behind.max-retries:5}") int maxRetries) {
+        this.delegate = delegate;
+        this.cache = RepositoryCaches.build("users", maxBytes, Duration.ofSeconds(ttlSeconds),
+                (id, user) -> RepositoryCaches.weight(user.getEmail(), user.getName(), user.getLogin()),
+                meterRegistry);
+        this.writeBehind = writeBehind
+                ? new WriteBehindBuffer<>("users", delegate::saveAll, this::forgetDropped, batchSize, flushMs,
+                        maxRetries, meterRegistry)
+                : null;
+    }
+
+    @Override
+    public Collection<User> findAll(PageParams page) {
+        flushPending();
+        return delegate.findAll(page);
+    }
+
+    @Override
+    public User save(User user) {
+        if (writeBehind == null) {
+            User saved = delegate.save(user);
+            cache.put(saved.getId(), saved);
+            return saved;
+        }
+        if (user.getId() == null) {
+            user.setId(delegate.nextId());
+        }
+        user.setVersion(1);
+        cache.put(user.getId(), user);
+        writeBehind.add(user.getId(), user);
+        return user;
+    }
+
+    @Override
+    public Collection<User> saveAll(Collection<User> users) {
+        flushPending();
+        return delegate.saveAll(users);
+    }
+
+    @Override
+    public User update(User user) {
+        flushPending();
+        try {
+            return delegate.update(user);
+        } finally {
+            cache.invalidate(user.getId());
+        }
+    }
+
+    @Override
+    public void deleteById(Long userId) {
+        flushPending();
+        try {
+            delegate.deleteById(userId);
+        } finally {
+            cache.invalidate(userId);
+        }
+    }
+
+    @Override
+    public User findById(Long userId) {
+        User pending = writeBehind == null ? null : writeBehind.get(userId);
+        if (pending != null) {
+            return pending;
+        }
+        return cache.get(userId, delegate::findById);
+    }
+
+    @Override
+    public boolean existsById(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        if (cache.getIfPresent(userId) != null || writeBehind != null && writeBehind.get(userId) != null) {
+            return true;
+        }
+        return delegate.existsById(userId);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public boolean existsByEmailAndIdNot(String email, Long excludedUserId) {
+        return delegate.existsByEmailAndIdNot(email, excludedUserId);
+    }
+
+    @Override
+    public Long nextId() {
+        return delegate.nextId();
+    }
+
+    @Override
+    public boolean reserveEmail(String email, Long userId) {
+        return delegate.reserveEmail(email, userId);
+    }
+
+    @Override
+    public void releaseEmail(String email, Long userId) {
+        delegate.releaseEmail(email, userId);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.close();
+        }
+    }
+
+    // Отброшенный буфером пользователь не попал в базу: убираем его из кэша и освобождаем адрес
+    private void forgetDropped(User user) {
+        cache.invalidate(user.getId());
+        delegate.releaseEmail(user.getEmail(), user.getId());
+    }
+
+    private void flushPending() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        }
+    }
+}
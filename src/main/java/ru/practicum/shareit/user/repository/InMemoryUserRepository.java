@@ -1,74 +1,182 @@
 package ru.practicum.shareit.user.repository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.storage.EntityStore;
+import ru.practicum.shareit.storage.journal.EntityCodec;
+import ru.practicum.shareit.storage.journal.JournaledRepository;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Repository
-public class InMemoryUserRepository implements UserRepository {
-    private static final Set<User> USERS = new HashSet<>();
-    private final AtomicLong generateId = new AtomicLong(0);
+@Profile("!jdbc")
+public class InMemoryUserRepository implements UserRepository, JournaledRepository<User>, MeterBinder {
+    private static final EntityCodec<User> CODEC = new UserCodec();
+
+    private final EntityStore<User> users = new EntityStore<>(User::copy, this::rollback);
+    private final Map<String, Long> emailIndex = new ConcurrentHashMap<>();
 
     @Override
     public User save(User user) {
-        user.setId(generateId.incrementAndGet());
-        USERS.add(user);
-        log.info("Пользователь сохранен: {}", user.getId());
+        users.insert(user);
+        log.debug("Пользователь сохранен: {}", user.getId());
         return user;
     }
 
+    @Override
+    public Collection<User> saveAll(Collection<User> users) {
+        List<User> saved = new ArrayList<>(users.size());
+        for (User user : users) {
+            this.users.insert(user);
+            reserveEmail(user.getEmail(), user.getId());
+            saved.add(user);
+        }
+        log.debug("Сохранено пользователей: {}", saved.size());
+        return saved;
+    }
+
     public User findById(Long userId) {
-        log.info("Ищу пользователя по Ид : {}", userId);
-        return USERS.stream()
-                .filter(user -> Objects.equals(user.getId(), userId))
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Пользователь не найден"));
+        log.debug("Ищу пользователя по Ид : {}", userId);
+        User user = users.get(userId);
+        if (user == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return user;
     }
 
     @Override
-    public Collection<User> findAll() {
-        log.info("Ищу всех пользователей");
-        return USERS.stream().toList();
+    public boolean existsById(Long userId) {
+        return users.contains(userId);
     }
 
     @Override
-    public User update(User user) {
-        log.info("Обновляю пользователя по Ид : {}", user.getId());
-        User userFromMemory = findById(user.getId());
-
-        if (user.getName() != null && !user.getName().isEmpty()) {
-            userFromMemory.setName(user.getName());
+    public Collection<User> findAll(PageParams page) {
+        // Три аргумента и упаковка int: без проверки уровня массив и обертки создавались бы на каждый вызов
+        if (log.isDebugEnabled()) {
+            log.debug("Ищу всех пользователей: from {}, size {}, после Ид {}", page.getFrom(), page.getSize(),
+                    page.getAfterId());
         }
-        if (user.getEmail() != null && !user.getEmail().isBlank()) {
-            userFromMemory.setEmail(user.getEmail());
+        return page.apply(users.stream(page.getAfterId())).toList();
+    }
+
+    @Override
+    public User update(User user) {
+        log.debug("Обновляю пользователя по Ид : {}", user.getId());
+        User updated = users.update(user.getId(), userFromMemory -> {
+            if (user.getVersion() != 0 && user.getVersion() != userFromMemory.getVersion()) {
+                throw new PreconditionFailedException("Пользователь был изменен другим запросом");
+            }
+            if (user.getName() != null && !user.getName().isEmpty()) {
+                userFromMemory.setName(user.getName());
+            }
+            if (user.getEmail() != null && !user.getEmail().isBlank()) {
+                String oldEmail = userFromMemory.getEmail();
+                userFromMemory.setEmail(user.getEmail());
+                if (oldEmail != null && !UserRepository.normalizeEmail(oldEmail)
+                        .equals(UserRepository.normalizeEmail(user.getEmail()))) {
+                    releaseEmail(oldEmail, userFromMemory.getId());
+                }
+            }
+        });
+        if (updated == null) {
+            throw new NotFoundException("Пользователь не найден");
         }
-        return userFromMemory;
+        return updated;
     }
 
     @Override
     public void deleteById(Long userId) {
-        log.info("Удаляю пользователя по Ид : {}", userId);
-        findById(userId);
-        USERS.removeIf(user -> user.getId().equals(userId));
+        log.debug("Удаляю пользователя по Ид : {}", userId);
+        if (users.remove(userId, user -> true, this::forget) == null) {
+            throw new NotFoundException("Пользователь не найден");
+        }
     }
 
     @Override
     public boolean existsByEmail(String email) {
-        return USERS.stream()
-                .anyMatch(user -> user.getEmail().equalsIgnoreCase(email));
+        return email != null && emailIndex.containsKey(UserRepository.normalizeEmail(email));
     }
 
     @Override
     public boolean existsByEmailAndIdNot(String email, Long excludedUserId) {
-        return USERS.stream()
-                .anyMatch(user ->
-                        user.getEmail().equalsIgnoreCase(email) &&
-                                !user.getId().equals(excludedUserId)
-                );
+        if (email == null) {
+            return false;
+        }
+        Long ownerId = emailIndex.get(UserRepository.normalizeEmail(email));
+        return ownerId != null && !ownerId.equals(excludedUserId);
+    }
+
+    @Override
+    public Long nextId() {
+        return users.nextId();
+    }
+
+    @Override
+    public boolean reserveEmail(String email, Long userId) {
+        Long ownerId = emailIndex.putIfAbsent(UserRepository.normalizeEmail(email), userId);
+        return ownerId == null || ownerId.equals(userId);
+    }
+
+    @Override
+    public void releaseEmail(String email, Long userId) {
+        if (email != null) {
+            emailIndex.remove(UserRepository.normalizeEmail(email), userId);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ShareItMetrics.storeSize(registry, "users", users, EntityStore::size);
+        ShareItMetrics.indexSize(registry, "users.email", emailIndex, Map::size);
+    }
+
+    @Override
+    public byte journalTag() {
+        return 1;
+    }
+
+    @Override
+    public EntityStore<User> store() {
+        return users;
+    }
+
+    @Override
+    public EntityCodec<User> codec() {
+        return CODEC;
+    }
+
+    @Override
+    public void restore(User user) {
+        users.insert(user);
+        reserveEmail(user.getEmail(), user.getId());
+    }
+
+    @Override
+    public void evict(Long userId) {
+        users.remove(userId, user -> true, this::forget);
+    }
+
+    private void forget(User user) {
+        releaseEmail(user.getEmail(), user.getId());
+    }
+
+    // Изменение не попало в журнал: прежний адрес снова закрепляется за пользователем
+    private void rollback(User failed, User published) {
+        if (published != null) {
+            reserveEmail(published.getEmail(), published.getId());
+        }
     }
-}
\ No newline at end of file
+}
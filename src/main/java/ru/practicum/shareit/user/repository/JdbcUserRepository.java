@@ -0,0 +1,198 @@
+package ru.practicum.shareit.user.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.storage.SequenceIdAllocator;
+import ru.practicum.shareit.user.model.User;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@Repository
+@Profile("jdbc")
+public class JdbcUserRepository implements UserRepository {
+    private static final String SELECT_USER = "SELECT id, version, email, name, login, birthday FROM users ";
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setVersion(rs.getLong("version"));
+        user.setEmail(rs.getString("email"));
+        user.setName(rs.getString("name"));
+        user.setLogin(rs.getString("login"));
+        Date birthday = rs.getDate("birthday");
+        user.setBirthday(birthday == null ? null : birthday.toLocalDate());
+        return user;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SequenceIdAllocator ids;
+    private final int batchSize;
+
+    public JdbcUserRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              @Value("${shareit.jdbc.id-block-size:50}") int idBlockSize,
+                              @Value("${shareit.jdbc.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.ids = new SequenceIdAllocator(jdbcTemplate, "users_seq", idBlockSize);
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Collection<User> findAll(PageParams page) {
+        long afterId = page.hasCursor() ? page.getAfterId() : 0L;
+        return jdbcTemplate.query(SELECT_USER + "WHERE id > ? ORDER BY id LIMIT ? OFFSET ?", USER_MAPPER,
+                afterId, page.getSize(), page.getFrom());
+    }
+
+    @Override
+    public User save(User user) {
+        if (user.getId() == null) {
+            user.setId(ids.nextId());
+        }
+        jdbcTemplate.update("INSERT INTO users (id, email, name, login, birthday) VALUES (?, ?, ?, ?, ?)",
+                user.getId(), user.getEmail(), user.getName(), user.getLogin(), user.getBirthday());
+        user.setVersion(1);
+        log.debug("Пользователь сохранен: {}", user.getId());
+        return user;
+    }
+
+    // Вставка пакетами по batchSize строк; Ид берутся из уже выделенных блоков последовательности
+    @Override
+    public Collection<User> saveAll(Collection<User> users) {
+        List<User> saved = new ArrayList<>(users);
+        for (User user : saved) {
+            if (user.getId() == null) {
+                user.setId(ids.nextId());
+            }
+            user.setVersion(1);
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, name, login, birthday) VALUES (?, ?, ?, ?, ?)",
+                saved, batchSize, (ps, user) -> {
+                    ps.setLong(1, user.getId());
+                    ps.setString(2, user.getEmail());
+                    ps.setString(3, user.getName());
+                    ps.setString(4, user.getLogin());
+                    ps.setObject(5, user.getBirthday());
+                });
+        // Адрес мог быть закреплен заранее через reserveEmail (отложенная запись из кэша)
+        jdbcTemplate.batchUpdate("INSERT INTO user_emails (email_key, user_id) VALUES (?, ?) "
+                        + "ON CONFLICT DO NOTHING",
+                saved, batchSize, (ps, user) -> {
+                    ps.setString(1, UserRepository.normalizeEmail(user.getEmail()));
+                    ps.setLong(2, user.getId());
+                });
+        return saved;
+    }
+
+    @Override
+    public User update(User user) {
+        log.debug("Обновляю пользователя по Ид : {}", user.getId());
+        String name = user.getName() != null && !user.getName().isEmpty() ? user.getName() : null;
+        String email = user.getEmail() != null && !user.getEmail().isBlank() ? user.getEmail() : null;
+        // Строка блокируется до конца транзакции: замененный адрес читается и освобождается без гонок
+        return transactionTemplate.execute(status -> {
+            String oldEmail = lockedEmail(user.getId());
+            int updated = jdbcTemplate.update("UPDATE users SET name = COALESCE(?, name), email = COALESCE(?, email), "
+                            + "version = version + 1 WHERE id = ? AND (? = 0 OR version = ?)",
+                    name, email, user.getId(), user.getVersion(), user.getVersion());
+            if (updated == 0) {
+                throw new PreconditionFailedException("Пользователь был изменен другим запросом");
+            }
+            if (email != null && !UserRepository.normalizeEmail(oldEmail)
+                    .equals(UserRepository.normalizeEmail(email))) {
+                releaseEmail(oldEmail, user.getId());
+            }
+            return findById(user.getId());
+        });
+    }
+
+    @Override
+    public void deleteById(Long userId) {
+        log.debug("Удаляю пользователя по Ид : {}", userId);
+        transactionTemplate.executeWithoutResult(status -> {
+            String email = lockedEmail(userId);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+            releaseEmail(email, userId);
+        });
+    }
+
+    @Override
+    public User findById(Long userId) {
+        log.debug("Ищу пользователя по Ид : {}", userId);
+        List<User> users = jdbcTemplate.query(SELECT_USER + "WHERE id = ?", USER_MAPPER, userId);
+        if (users.isEmpty()) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return users.getFirst();
+    }
+
+    @Override
+    public boolean existsById(Long userId) {
+        return userId != null && !jdbcTemplate.queryForList("SELECT 1 FROM users WHERE id = ?", Integer.class,
+                userId).isEmpty();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return email != null && emailOwner(email) != null;
+    }
+
+    @Override
+    public boolean existsByEmailAndIdNot(String email, Long excludedUserId) {
+        Long ownerId = email == null ? null : emailOwner(email);
+        return ownerId != null && !ownerId.equals(excludedUserId);
+    }
+
+    @Override
+    public Long nextId() {
+        return ids.nextId();
+    }
+
+    // Первичный ключ user_emails делает закрепление атомарным, как putIfAbsent в хранилище в памяти
+    @Override
+    public boolean reserveEmail(String email, Long userId) {
+        try {
+            jdbcTemplate.update("INSERT INTO user_emails (email_key, user_id) VALUES (?, ?)",
+                    UserRepository.normalizeEmail(email), userId);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return userId.equals(emailOwner(email));
+        }
+    }
+
+    @Override
+    public void releaseEmail(String email, Long userId) {
+        if (email != null) {
+            jdbcTemplate.update("DELETE FROM user_emails WHERE email_key = ? AND user_id = ?",
+                    UserRepository.normalizeEmail(email), userId);
+        }
+    }
+
+    private String lockedEmail(Long userId) {
+        List<String> emails = jdbcTemplate.queryForList("SELECT email FROM users WHERE id = ? FOR UPDATE",
+                String.class, userId);
+        if (emails.isEmpty()) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+        return emails.getFirst();
+    }
+
+    private Long emailOwner(String email) {
+        List<Long> owners = jdbcTemplate.queryForList("SELECT user_id FROM user_emails WHERE email_key = ?",
+                Long.class, UserRepository.normalizeEmail(email));
+        return owners.isEmpty() ? null : owners.getFirst();
+    }
+}
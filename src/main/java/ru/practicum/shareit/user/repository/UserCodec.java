@@ -0,0 +1,27 @@
+package ru.practicum.shareit.user.repository;
+
+import ru.practicum.shareit.storage.journal.EntityCodec;
+import ru.practicum.shareit.storage.journal.RecordReader;
+import ru.practicum.shareit.storage.journal.RecordWriter;
+import ru.practicum.shareit.user.model.User;
+
+class UserCodec implements EntityCodec<User> {
+
+    @Override
+    public void write(User user, RecordWriter out) {
+        out.putString(user.getEmail())
+                .putString(user.getName())
+                .putString(user.getLogin())
+                .putDate(user.getBirthday());
+    }
+
+    @Override
+    public User read(RecordReader in) {
+        User user = new User();
+        user.setEmail(in.getString());
+        user.setName(in.getString());
+        user.setLogin(in.getString());
+        user.setBirthday(in.getDate());
+        return user;
+    }
+}
@@ -1,21 +1,45 @@
 package ru.practicum.shareit.user.repository;
 
+import ru.practicum.shareit.pagination.PageParams;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.Collection;
+import java.util.Locale;
 
 public interface UserRepository {
-    Collection<User> findAll();
+
+    // Ключ резервирования адреса: регистр и пробелы по краям не различаются.
+    // Сравнивать адреса нужно только через него, иначе сервис и индекс адресов разойдутся
+    static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    Collection<User> findAll(PageParams page);
 
     User save(User user);
 
+    // Пакетное сохранение; адреса сразу закрепляются за сохраненными пользователями
+    Collection<User> saveAll(Collection<User> users);
+
+    // Новый адрес должен быть уже закреплен за пользователем; замененный адрес освобождается
+    // под той же блокировкой, что и изменение, поэтому параллельные смены адреса не оставляют лишних резервов
     User update(User userDto);
 
+    // Освобождает и адрес удаленного пользователя
     public void deleteById(Long userId);
 
     User findById(Long userId);
 
+    boolean existsById(Long userId);
+
     boolean existsByEmail(String email);
 
     boolean existsByEmailAndIdNot(String email, Long excludedUserId);
+
+    Long nextId();
+
+    // Атомарно закрепляет email за пользователем: true, если адрес был свободен или уже принадлежит ему
+    boolean reserveEmail(String email, Long userId);
+
+    void releaseEmail(String email, Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+package ru.practicum.shareit.user.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Кэш недавно проверенных Ид пользователей с прямым отображением: ячейка хранит последний Ид,
+// попавший в нее, поэтому проверка и запись не создают объектов, а размер ограничен.
+public class RecentUserIdCache {
+    private static final long EMPTY = 0L;
+
+    private final AtomicLongArray slots;
+    private final AtomicLong generation = new AtomicLong();
+    private final int mask;
+
+    public RecentUserIdCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    public boolean contains(long userId) {
+        return userId != EMPTY && slots.get(index(userId)) == userId;
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    // Запоминает Ид, только если с момента проверки в хранилище не было удалений. Удаление может
+    // пройти между проверкой поколения и записью в ячейку, поэтому после записи поколение проверяется
+    // снова и при расхождении запись снимается: удаленный Ид не остается в кэше
+    public void add(long userId, long observedGeneration) {
+        if (userId == EMPTY || generation.get() != observedGeneration) {
+            return;
+        }
+        int index = index(userId);
+        slots.set(index, userId);
+        if (generation.get() != observedGeneration) {
+            slots.compareAndSet(index, userId, EMPTY);
+        }
+    }
+
+    public void invalidate(long userId) {
+        generation.incrementAndGet();
+        slots.compareAndSet(index(userId), userId, EMPTY);
+    }
+
+    private int index(long userId) {
+        return (int) ((userId * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+    }
+}
@@ -1,7 +1,10 @@
 package ru.practicum.shareit.user.service;
 
+import ru.practicum.shareit.etag.Tagged;
+import ru.practicum.shareit.pagination.PageParams;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.shareit.user.principal.Sharer;
 
 import java.util.List;
 
@@ -11,9 +14,19 @@ public interface UserService {
 
     public UserResponseDto getById(Long userId);
 
-    List<UserResponseDto> getAllUsers();
+    Tagged<UserResponseDto> getTaggedById(Long userId);
+
+    boolean exists(Long userId);
+
+    void requireExists(Long userId);
+
+    Sharer resolveSharer(Long userId);
+
+    List<UserResponseDto> getAllUsers(PageParams page);
 
     UserResponseDto update(UserDto userDto, Long userId);
 
+    Tagged<UserResponseDto> update(UserDto userDto, Long userId, String ifMatch);
+
     void deleteById(Long userId);
 }
\ No newline at end of file
@@ -3,11 +3,17 @@ package ru.practicum.shareit.user.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.exceptions.EmailAlreadyExistsException;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.PageParams;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.model.UserMapper;
+import ru.practicum.shareit.user.principal.Sharer;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import java.util.List;
@@ -17,48 +23,150 @@ import java.util.stream.Collectors;
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
+    private static final int VALIDATED_IDS_CACHE_SIZE = 4096;
+
     private final UserRepository repository;
+    private final ItemRepository itemRepository;
     private final UserMapper userMapper;
+    private final RecentUserIdCache validatedIds = new RecentUserIdCache(VALIDATED_IDS_CACHE_SIZE);
 
     @Override
     public UserResponseDto create(UserDto userDto) {
-        log.info("Сервис пользователей принял запрос на создание : {}", userDto.getName());
-        if (repository.existsByEmail(userDto.getEmail())) {
+        log.debug("Сервис пользователей принял запрос на создание : {}", userDto.getName());
+        User user = userMapper.toUser(userDto);
+        user.setId(repository.nextId());
+        if (!repository.reserveEmail(user.getEmail(), user.getId())) {
             throw new EmailAlreadyExistsException("Пользователь с email " + userDto.getEmail() + " уже существует");
         }
 
-        User savedUser = repository.save(userMapper.toUser(userDto));
+        User savedUser;
+        try {
+            savedUser = repository.save(user);
+        } catch (RuntimeException e) {
+            repository.releaseEmail(user.getEmail(), user.getId());
+            throw e;
+        }
         log.info("Сервис пользователей создал пользователя с Ид : {}", savedUser.getId());
         return userMapper.toResponseDto(savedUser);
     }
 
     @Override
     public UserResponseDto getById(Long userId) {
-        log.info("Сервис пользователей принял запрос вывод пользователя по Ид : {}", userId);
+        log.debug("Сервис пользователей принял запрос вывод пользователя по Ид : {}", userId);
         return userMapper.toResponseDto(repository.findById(userId));
     }
 
     @Override
-    public List<UserResponseDto> getAllUsers() {
-        log.info("Сервис пользователей принял запрос вывод всех пользователей");
-        return repository.findAll().stream()
+    public Tagged<UserResponseDto> getTaggedById(Long userId) {
+        log.debug("Сервис пользователей принял запрос вывод пользователя по Ид : {}", userId);
+        return tagged(repository.findById(userId));
+    }
+
+    @Override
+    public boolean exists(Long userId) {
+        if (userId == null) {
+            return false;
+        }
+        if (validatedIds.contains(userId)) {
+            return true;
+        }
+        long generation = validatedIds.generation();
+        if (!repository.existsById(userId)) {
+            return false;
+        }
+        validatedIds.add(userId, generation);
+        return true;
+    }
+
+    @Override
+    public void requireExists(Long userId) {
+        if (!exists(userId)) {
+            throw new NotFoundException("Пользователь не найден");
+        }
+    }
+
+    // Недавно проверенный Ид не требует обращения к хранилищу, а профиль подгрузится только при необходимости.
+    // Иначе проверка сразу загружает профиль, и за запрос выходит не больше одного обращения
+    @Override
+    public Sharer resolveSharer(Long userId) {
+        if (validatedIds.contains(userId)) {
+            return Sharer.of(userId, () -> getById(userId));
+        }
+        long generation = validatedIds.generation();
+        UserResponseDto profile = getById(userId);
+        validatedIds.add(userId, generation);
+        return Sharer.of(profile);
+    }
+
+    @Override
+    public List<UserResponseDto> getAllUsers(PageParams page) {
+        log.debug("Сервис пользователей принял запрос вывод всех пользователей");
+        return repository.findAll(page).stream()
                 .map(userMapper::toResponseDto)
                 .collect(Collectors.toList());
     }
 
     @Override
     public UserResponseDto update(UserDto userDto, Long userId) {
-        log.info("Сервис пользователей принял запрос на обновление пользователя с Ид: {}", userId);
-        if (repository.existsByEmailAndIdNot(userDto.getEmail(), userId)) {
-            throw new EmailAlreadyExistsException("Пользователь с email " + userDto.getEmail() + " уже существует");
-        }
+        return update(userDto, userId, null).getBody();
+    }
+
+    @Override
+    public Tagged<UserResponseDto> update(UserDto userDto, Long userId, String ifMatch) {
+        log.debug("Сервис пользователей принял запрос на обновление пользователя с Ид: {}", userId);
         userDto.setId(userId);
-        return userMapper.toResponseDto(repository.update(userMapper.toUser(userDto)));
+        User user = userMapper.toUser(userDto);
+        if (ifMatch != null) {
+            // Проверенная версия уходит в репозиторий: параллельное изменение после проверки тоже даст 412
+            User current = repository.findById(userId);
+            EntityTags.requireMatch(ifMatch, EntityTags.of(current.getId(), current.getVersion()));
+            user.setVersion(current.getVersion());
+        }
+        String newEmail = user.getEmail();
+        if (newEmail == null || newEmail.isBlank()) {
+            return tagged(repository.update(user));
+        }
+
+        if (!repository.reserveEmail(newEmail, userId)) {
+            throw new EmailAlreadyExistsException("Пользователь с email " + newEmail + " уже существует");
+        }
+        try {
+            // Замененный адрес репозиторий освобождает сам, под блокировкой пользователя
+            return tagged(repository.update(user));
+        } catch (RuntimeException e) {
+            releaseUnlessStored(newEmail, userId);
+            throw e;
+        }
     }
 
     @Override
     public void deleteById(Long userId) {
-        log.info("Сервис пользователей принял запрос удаление пользователя с Ид : {}", userId);
+        log.debug("Сервис пользователей принял запрос удаление пользователя с Ид : {}", userId);
         repository.deleteById(userId);
+        validatedIds.invalidate(userId);
+        itemRepository.deleteByOwnerId(userId);
+    }
+
+    // Неудачное изменение освобождает новый адрес, если только он не был адресом пользователя и раньше
+    private void releaseUnlessStored(String email, Long userId) {
+        String storedEmail;
+        try {
+            storedEmail = repository.findById(userId).getEmail();
+        } catch (NotFoundException e) {
+            storedEmail = null;
+        }
+        if (!sameEmail(email, storedEmail)) {
+            repository.releaseEmail(email, userId);
+        }
+    }
+
+    // Адреса сравниваются так же, как их различает индекс резервирования в репозитории
+    private static boolean sameEmail(String first, String second) {
+        return first != null && second != null
+                && UserRepository.normalizeEmail(first).equals(UserRepository.normalizeEmail(second));
+    }
+
+    private Tagged<UserResponseDto> tagged(User user) {
+        return Tagged.of(EntityTags.of(user.getId(), user.getVersion()), () -> userMapper.toResponseDto(user));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,75 @@
+-- Схема для профиля jdbc (Postgres в работе, H2 в режиме PostgreSQL в тестах).
+-- Последовательности выдают Ид блоками по 50: приложение берет nextval один раз на блок.
+-- Столбец version увеличивается каждым UPDATE строки: из него строится ETag и проверяется If-Match.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS item_requests_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id       BIGINT PRIMARY KEY,
+    version  BIGINT NOT NULL DEFAULT 1,
+    email    VARCHAR(512) NOT NULL,
+    name     VARCHAR(255),
+    login    VARCHAR(255),
+    birthday DATE
+);
+
+-- Закрепленные за пользователями адреса в нормализованном виде (trim + lower)
+CREATE TABLE IF NOT EXISTS user_emails (
+    email_key VARCHAR(512) PRIMARY KEY,
+    user_id   BIGINT       NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS items (
+    id          BIGINT PRIMARY KEY,
+    version     BIGINT        NOT NULL DEFAULT 1,
+    owner_id    BIGINT        NOT NULL,
+    name        VARCHAR(255)  NOT NULL,
+    description VARCHAR(2000),
+    url         VARCHAR(1000),
+    request_id  BIGINT,
+    available   BOOLEAN       NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id, id);
+CREATE INDEX IF NOT EXISTS items_request_idx ON items (request_id, id);
+
+-- item_* и booker_* - снимок вещи и арендатора на момент бронирования, как у брони в памяти:
+-- последующие изменения вещи и пользователя бронь не меняют
+CREATE TABLE IF NOT EXISTS bookings (
+    id             BIGINT PRIMARY KEY,
+    version        BIGINT       NOT NULL DEFAULT 1,
+    item_id        BIGINT       NOT NULL,
+    owner_id       BIGINT       NOT NULL,
+    booker_id      BIGINT       NOT NULL,
+    start_date     TIMESTAMP    NOT NULL,
+    end_date       TIMESTAMP    NOT NULL,
+    status         VARCHAR(16)  NOT NULL,
+    item_name      VARCHAR(255),
+    item_version   BIGINT       NOT NULL DEFAULT 0,
+    booker_name    VARCHAR(255),
+    booker_version BIGINT       NOT NULL DEFAULT 0
+);
+
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS item_name VARCHAR(255);
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS item_version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS booker_name VARCHAR(255);
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS booker_version BIGINT NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_owner_start_idx ON bookings (owner_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_time_idx ON bookings (item_id, start_date, end_date);
+CREATE INDEX IF NOT EXISTS bookings_status_start_idx ON bookings (status, start_date);
+
+CREATE TABLE IF NOT EXISTS item_requests (
+    id           BIGINT PRIMARY KEY,
+    version      BIGINT    NOT NULL DEFAULT 1,
+    description  VARCHAR(2000),
+    requester_id BIGINT    NOT NULL,
+    created      TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS item_requests_requester_idx ON item_requests (requester_id, created DESC, id DESC);
+CREATE INDEX IF NOT EXISTS item_requests_created_idx ON item_requests (created DESC, id DESC);
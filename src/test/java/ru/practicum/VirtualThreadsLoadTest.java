@@ -0,0 +1,170 @@
+package ru.practicum;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Нагрузочный тест приложения целиком: одинаковая смесь запросов при потоках платформы и при виртуальных потоках.
+// Записи ждут fsync журнала, поэтому запросы действительно блокируются. Размер нагрузки задается
+// системными свойствами shareit.load.clients и shareit.load.requests, например:
+// mvn test -Pload -Dtest=VirtualThreadsLoadTest -Dshareit.load.clients=2000 -Dshareit.load.requests=100000
+// Тест долгий и поднимает приложение дважды, поэтому помечен тегом load и в обычный mvn test не входит.
+@Slf4j
+@Tag("load")
+class VirtualThreadsLoadTest {
+    private static final int CLIENTS = Integer.getInteger("shareit.load.clients", 400);
+    private static final int REQUESTS = Integer.getInteger("shareit.load.requests", 4_000);
+    private static final int OWNERS = 50;
+    private static final String[] WORDS = {"Дрель", "Пила", "Лестница", "Палатка", "Самокат", "Проектор"};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void load_ShouldBeServedWithoutErrorsWithPlatformAndVirtualThreads() throws Exception {
+        List<Result> results = List.of(run(false), run(true));
+
+        for (Result result : results) {
+            log.info(String.format("%s: %,d клиентов, %,d запросов -> %,.0f запросов/с, p50 %.2f мс, p99 %.2f мс",
+                    result.mode(), CLIENTS, REQUESTS, result.throughput(), result.p50Millis(), result.p99Millis()));
+        }
+        for (Result result : results) {
+            assertEquals(0, result.errors(), "Ошибки при нагрузке в режиме " + result.mode());
+        }
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "виртуальные потоки" : "потоки платформы";
+        try (var context = (ServletWebServerApplicationContext) new SpringApplicationBuilder(ShareItApp.class)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "shareit.storage.wal.enabled=true",
+                        "shareit.storage.wal.fsync=true",
+                        "shareit.storage.dir=" + directory.resolve(virtualThreads ? "virtual" : "platform"),
+                        "logging.level.ru.practicum.shareit=WARN",
+                        // Замеряется сам сервер под нагрузкой, поэтому лимиты на пользователя и общий предел выключены
+                        "shareit.rate-limit.enabled=false")
+                .run();
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .executor(clients)
+                     .build()) {
+            String baseUrl = "http://localhost:" + context.getWebServer().getPort();
+            for (int owner = 1; owner <= OWNERS; owner++) {
+                send(http, post(baseUrl + "/users", null,
+                        "{\"name\":\"owner" + owner + "\",\"email\":\"owner" + owner + "@example.com\"}"));
+                send(http, post(baseUrl + "/items", owner, item(owner)));
+            }
+
+            // Прогрев JIT на той же смеси запросов, чтобы второй режим не получал преимущества
+            load(http, clients, baseUrl, REQUESTS / 4);
+            return load(http, clients, baseUrl, REQUESTS).named(mode);
+        }
+    }
+
+    private Result load(HttpClient http, ExecutorService clients, String baseUrl, int requests) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long startedAt = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int client = 0; client < CLIENTS; client++) {
+            futures.add(clients.submit(() -> {
+                for (int i = next.getAndIncrement(); i < requests; i = next.getAndIncrement()) {
+                    HttpRequest request = request(baseUrl, new SplittableRandom(i));
+                    long sentAt = System.nanoTime();
+                    if (send(http, request) >= 400) {
+                        errors.incrementAndGet();
+                    }
+                    latencies[i] = System.nanoTime() - sentAt;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - startedAt;
+
+        Arrays.sort(latencies);
+        return new Result(null, requests * 1e9 / elapsed, percentile(latencies, 0.50), percentile(latencies, 0.99),
+                errors.get());
+    }
+
+    // Смесь: 30% создание вещи (запись в журнал с fsync), 40% поиск, 30% чтение вещи по Ид
+    private static HttpRequest request(String baseUrl, SplittableRandom random) {
+        int owner = random.nextInt(1, OWNERS + 1);
+        int kind = random.nextInt(10);
+        if (kind < 3) {
+            return post(baseUrl + "/items", owner, item(random.nextInt(1_000)));
+        }
+        if (kind < 7) {
+            String text = WORDS[random.nextInt(WORDS.length)].substring(1, 4);
+            return get(baseUrl + "/items/search?size=20&text=" + URLEncoder.encode(text, StandardCharsets.UTF_8), owner);
+        }
+        return get(baseUrl + "/items/" + random.nextInt(1, OWNERS + 1), owner);
+    }
+
+    private static String item(int number) {
+        return "{\"name\":\"" + WORDS[number % WORDS.length] + " " + number
+                + "\",\"description\":\"Для нагрузочного теста\",\"available\":true}";
+    }
+
+    private static HttpRequest post(String url, Integer userId, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (userId != null) {
+            builder.header("X-Sharer-User-Id", userId.toString());
+        }
+        return builder.build();
+    }
+
+    private static HttpRequest get(String url, int userId) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("X-Sharer-User-Id", Integer.toString(userId))
+                .GET()
+                .build();
+    }
+
+    private static int send(HttpClient http, HttpRequest request) throws IOException, InterruptedException {
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private record Result(String mode, double throughput, double p50Millis, double p99Millis, int errors) {
+
+        Result named(String name) {
+            return new Result(name, throughput, p50Millis, p99Millis, errors);
+        }
+    }
+}
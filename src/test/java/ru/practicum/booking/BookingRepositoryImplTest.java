@@ -0,0 +1,384 @@
+package ru.practicum.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepositoryImpl;
+import ru.practicum.shareit.exceptions.BookingConflictException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingRepositoryImplTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private static final Long OWNER_ID = 1L;
+    private static final Long BOOKER_ID = 2L;
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+
+    private final BookingRepositoryImpl repository = new BookingRepositoryImpl();
+
+    @Test
+    void save_WhenPeriodsOverlap_ShouldRejectSecondBooking() {
+        save(1L, 0, 10);
+
+        assertThrows(BookingConflictException.class, () -> save(1L, 5, 15));
+        assertThrows(BookingConflictException.class, () -> save(1L, -5, 1));
+        assertThrows(BookingConflictException.class, () -> save(1L, 2, 3));
+        assertThrows(BookingConflictException.class, () -> save(1L, -1, 11));
+        assertThrows(BookingConflictException.class, () -> save(1L, 0, 10));
+    }
+
+    @Test
+    void save_WhenPeriodsTouchOrItemDiffers_ShouldAcceptBooking() {
+        save(1L, 0, 10);
+
+        assertDoesNotThrow(() -> save(1L, 10, 20));
+        assertDoesNotThrow(() -> save(1L, -10, 0));
+        assertDoesNotThrow(() -> save(2L, 0, 10));
+    }
+
+    @Test
+    void update_WhenBookingRejected_ShouldFreePeriod() {
+        Booking booking = save(1L, 0, 10);
+
+        repository.update(withStatus(booking, BookingStatus.REJECTED));
+
+        assertDoesNotThrow(() -> save(1L, 0, 10));
+        assertThrows(BookingConflictException.class,
+                () -> repository.update(withStatus(booking, BookingStatus.APPROVED)));
+        assertEquals(BookingStatus.REJECTED, repository.getById(booking.getId()).getStatus());
+    }
+
+    @Test
+    void update_WhenWaitingBookingApproved_ShouldKeepPeriod() {
+        Booking booking = save(1L, 0, 10);
+
+        repository.update(withStatus(booking, BookingStatus.APPROVED));
+
+        assertEquals(BookingStatus.APPROVED, repository.getById(booking.getId()).getStatus());
+        assertThrows(BookingConflictException.class, () -> save(1L, 0, 10));
+    }
+
+    @Test
+    void save_WhenManyThreadsBookSamePeriod_ShouldAcceptExactlyOne() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int shift = i % 3;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        save(1L, shift, shift + 5);
+                        return true;
+                    } catch (BookingConflictException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(10, TimeUnit.SECONDS)) {
+                    accepted++;
+                }
+            }
+            assertEquals(1, accepted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Booking save(Long itemId, int startHours, int endHours) {
+        return save(itemId, BOOKER_ID, startHours, endHours);
+    }
+
+    private Booking save(Long itemId, Long bookerId, int startHours, int endHours) {
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwnerId(OWNER_ID);
+        UserResponseDto booker = new UserResponseDto();
+        booker.setId(bookerId);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(BASE.plusHours(startHours));
+        booking.setEnd(BASE.plusHours(endHours));
+        return repository.save(booking);
+    }
+
+    @Test
+    void updateStatus_WhenApproveAndRejectRace_ShouldApplyExactlyOneTransition() throws Exception {
+        Booking booking = save(1L, 0, 10);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<BookingStatus>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                BookingStatus target = i % 2 == 0 ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return repository.updateStatus(booking.getId(), BookingStatus.WAITING, target).getStatus();
+                    } catch (ValidationException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+
+            List<BookingStatus> applied = new ArrayList<>();
+            for (Future<BookingStatus> result : results) {
+                BookingStatus status = result.get(10, TimeUnit.SECONDS);
+                if (status != null) {
+                    applied.add(status);
+                }
+            }
+            assertEquals(1, applied.size());
+            assertEquals(applied.getFirst(), repository.getById(booking.getId()).getStatus());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void updateStatus_WhenThreadsApproveManyBookings_ShouldLeaveEveryBookingDecidedOnce() throws Exception {
+        int threads = 8;
+        int perThread = 200;
+        // Четные потоки подтверждают брони своей вещи, нечетные - брони общей вещи 100
+        List<List<Booking>> partitions = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Booking> bookings = new ArrayList<>();
+            for (int i = 0; i < perThread; i++) {
+                long itemId = t % 2 == 0 ? t + 1L : 100L;
+                int slot = (t * perThread + i) * 2;
+                bookings.add(save(itemId, slot, slot + 1));
+            }
+            partitions.add(bookings);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<Booking> bookings = partitions.get(t);
+                BookingStatus target = t % 4 < 2 ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (Booking booking : bookings) {
+                        repository.updateStatus(booking.getId(), BookingStatus.WAITING, target);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int t = 0; t < threads; t++) {
+            BookingStatus target = t % 4 < 2 ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+            for (Booking booking : partitions.get(t)) {
+                Booking stored = repository.getById(booking.getId());
+                assertEquals(target, stored.getStatus());
+                assertEquals(2, stored.getVersion());
+            }
+        }
+        assertTrue(repository.findByOwnerId(OWNER_ID, BookingState.WAITING, ALL).isEmpty());
+        assertEquals(threads * perThread / 2,
+                repository.findByOwnerId(OWNER_ID, BookingState.REJECTED, PageParams.of(null, null, null)).size());
+    }
+
+    @Test
+    void update_WhenNewPeriodIsTaken_ShouldKeepOldPeriod() {
+        Booking booking = save(1L, 0, 10);
+        save(1L, 20, 30);
+        Booking moved = withStatus(booking, BookingStatus.WAITING);
+        moved.setStart(BASE.plusHours(25));
+        moved.setEnd(BASE.plusHours(35));
+
+        assertThrows(BookingConflictException.class, () -> repository.update(moved));
+        assertEquals(BASE, repository.getById(booking.getId()).getStart());
+        assertThrows(BookingConflictException.class, () -> save(1L, 5, 6));
+    }
+
+    @Test
+    void findByBookerAndOwner_ShouldFilterByStateNewestFirst() {
+        Booking past = save(1L, 0, 2);
+        Booking longCurrent = save(2L, 1, 30);
+        Booking current = save(1L, 9, 11);
+        Booking future = save(1L, 20, 22);
+        Booking rejected = save(3L, 12, 14);
+        Booking foreign = save(4L, 3L, 5, 6);
+        repository.update(withStatus(rejected, BookingStatus.REJECTED));
+        for (Booking booking : List.of(past, longCurrent, current, future)) {
+            repository.updateStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.APPROVED);
+        }
+        assertEquals(ids(future, rejected, current, longCurrent, past), bookerIds(BookingState.FUTURE, ALL));
+
+        repository.advanceTime(BASE.plusHours(10));
+
+        assertEquals(ids(future, rejected, current, longCurrent, past), bookerIds(BookingState.ALL, ALL));
+        assertEquals(ids(current, longCurrent), bookerIds(BookingState.CURRENT, ALL));
+        assertEquals(ids(past), bookerIds(BookingState.PAST, ALL));
+        assertEquals(ids(future, rejected), bookerIds(BookingState.FUTURE, ALL));
+        assertTrue(bookerIds(BookingState.WAITING, ALL).isEmpty());
+        assertEquals(ids(rejected), bookerIds(BookingState.REJECTED, ALL));
+
+        assertEquals(ids(future, rejected, current, foreign, longCurrent, past),
+                ids(repository.findByOwnerId(OWNER_ID, BookingState.ALL, ALL)));
+        assertEquals(ids(rejected, foreign), ids(repository.findByOwnerId(OWNER_ID, BookingState.REJECTED, ALL)));
+        assertTrue(repository.findByOwnerId(BOOKER_ID, BookingState.ALL, ALL).isEmpty());
+
+        repository.deleteById(current.getId());
+        assertEquals(ids(longCurrent), bookerIds(BookingState.CURRENT, ALL));
+
+        repository.advanceTime(BASE.plusHours(21));
+        assertEquals(ids(future, longCurrent), bookerIds(BookingState.CURRENT, ALL));
+        assertEquals(ids(rejected, past), bookerIds(BookingState.PAST, ALL));
+        assertTrue(bookerIds(BookingState.FUTURE, ALL).isEmpty());
+    }
+
+    @Test
+    void advanceTime_WhenWaitingBookingStarts_ShouldRejectItAndFreeSlot() {
+        Booking stale = save(1L, 1, 2);
+        Booking approved = save(2L, 1, 2);
+        repository.updateStatus(approved.getId(), BookingStatus.WAITING, BookingStatus.APPROVED);
+
+        repository.advanceTime(BASE.plusMinutes(30));
+        assertEquals(BookingStatus.WAITING, repository.getById(stale.getId()).getStatus());
+
+        repository.advanceTime(BASE.plusHours(1));
+
+        assertEquals(BookingStatus.REJECTED, repository.getById(stale.getId()).getStatus());
+        assertEquals(BookingStatus.APPROVED, repository.getById(approved.getId()).getStatus());
+        assertEquals(ids(stale), bookerIds(BookingState.REJECTED, ALL));
+        assertThrows(ValidationException.class,
+                () -> repository.updateStatus(stale.getId(), BookingStatus.WAITING, BookingStatus.APPROVED));
+
+        Booking replacement = withStatus(stale, BookingStatus.APPROVED);
+        replacement.setStart(BASE.plusHours(3));
+        replacement.setEnd(BASE.plusHours(4));
+        repository.update(replacement);
+        assertEquals(ids(stale), bookerIds(BookingState.FUTURE, ALL));
+    }
+
+    @Test
+    void advanceTime_WhenOnlyPhaseChanges_ShouldKeepVersion() {
+        Booking booking = save(1L, 1, 2);
+        long version = repository.updateStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.APPROVED)
+                .getVersion();
+
+        repository.advanceTime(BASE.plusMinutes(90));
+        assertEquals(ids(booking), bookerIds(BookingState.CURRENT, ALL));
+        repository.advanceTime(BASE.plusHours(3));
+
+        assertEquals(ids(booking), bookerIds(BookingState.PAST, ALL));
+        assertEquals(version, repository.getById(booking.getId()).getVersion());
+    }
+
+    @Test
+    void findLastAndNextBooking_ShouldFollowApprovalsAndTime() {
+        Booking first = save(1L, 0, 2);
+        Booking second = save(1L, 4, 6);
+        Booking third = save(1L, 8, 10);
+        save(2L, 1, 3);
+        assertNull(repository.findNextBooking(1L));
+
+        repository.updateStatus(first.getId(), BookingStatus.WAITING, BookingStatus.APPROVED);
+        repository.updateStatus(second.getId(), BookingStatus.WAITING, BookingStatus.APPROVED);
+        repository.updateStatus(third.getId(), BookingStatus.WAITING, BookingStatus.REJECTED);
+        assertNull(repository.findLastBooking(1L));
+        assertEquals(first.getId(), repository.findNextBooking(1L).getId());
+
+        repository.advanceTime(BASE.plusHours(1));
+        assertEquals(first.getId(), repository.findLastBooking(1L).getId());
+        assertEquals(second.getId(), repository.findNextBooking(1L).getId());
+
+        repository.advanceTime(BASE.plusHours(5));
+        assertEquals(second.getId(), repository.findLastBooking(1L).getId());
+        assertNull(repository.findNextBooking(1L));
+        assertNull(repository.findLastBooking(2L));
+
+        repository.deleteById(second.getId());
+        assertEquals(first.getId(), repository.findLastBooking(1L).getId());
+    }
+
+    @Test
+    void findByBookerId_ShouldContinueAfterCursorWithinState() {
+        List<Booking> saved = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Booking booking = save((long) i, i * 2, i * 2 + 1);
+            repository.updateStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.APPROVED);
+            saved.add(booking);
+        }
+        repository.advanceTime(BASE.plusHours(9));
+
+        assertEquals(ids(saved.get(4), saved.get(3)), bookerIds(BookingState.PAST, PageParams.of(0, 2, null)));
+        String cursor = PageParams.encodeCursor(saved.get(3).getId());
+        assertEquals(ids(saved.get(2), saved.get(1), saved.get(0)),
+                bookerIds(BookingState.PAST, PageParams.of(0, 10, cursor)));
+        assertEquals(ids(saved.get(2)), bookerIds(BookingState.ALL, PageParams.of(0, 1, cursor)));
+        assertTrue(bookerIds(BookingState.FUTURE, PageParams.of(0, 10, cursor)).isEmpty());
+
+        String futureCursor = PageParams.encodeCursor(saved.get(6).getId());
+        assertEquals(ids(saved.get(5)), bookerIds(BookingState.FUTURE, PageParams.of(0, 10, futureCursor)));
+        assertThrows(ValidationException.class,
+                () -> bookerIds(BookingState.ALL, PageParams.of(0, 10, PageParams.encodeCursor(999L))));
+    }
+
+    @Test
+    void bookingState_ShouldRejectUnknownValue() {
+        assertEquals(BookingState.CURRENT, BookingState.from("current"));
+        assertEquals(BookingState.ALL, BookingState.from(null));
+        assertThrows(ValidationException.class, () -> BookingState.from("UNSUPPORTED_STATUS"));
+    }
+
+    private List<Long> bookerIds(BookingState state, PageParams page) {
+        return ids(repository.findByBookerId(BOOKER_ID, state, page));
+    }
+
+    private static List<Long> ids(Booking... bookings) {
+        return Arrays.stream(bookings)
+                .map(Booking::getId)
+                .toList();
+    }
+
+    private static List<Long> ids(Collection<Booking> bookings) {
+        return bookings.stream()
+                .map(Booking::getId)
+                .toList();
+    }
+
+    private static Booking withStatus(Booking booking, BookingStatus status) {
+        Booking changed = new Booking();
+        changed.setId(booking.getId());
+        changed.setStart(booking.getStart());
+        changed.setEnd(booking.getEnd());
+        changed.setStatus(status);
+        return changed;
+    }
+}
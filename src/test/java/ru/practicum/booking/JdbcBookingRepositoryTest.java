@@ -0,0 +1,206 @@
+package ru.practicum.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.JdbcBookingRepository;
+import ru.practicum.shareit.exceptions.BookingConflictException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.storage.TestDatabase;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcBookingRepositoryTest {
+    private static final Long OWNER_ID = 1L;
+    private static final Long BOOKER_ID = 2L;
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private final TestDatabase database = new TestDatabase();
+    private final JdbcTemplate jdbcTemplate = database.jdbcTemplate();
+    private final JdbcBookingRepository repository = new JdbcBookingRepository(jdbcTemplate,
+            new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())), 50);
+
+    @AfterEach
+    void shutdown() {
+        database.close();
+    }
+
+    @Test
+    void save_WhenPeriodsOverlap_ShouldRejectOnlyOccupyingBookings() {
+        Booking booking = save(1L, 10, 20);
+
+        assertThrows(BookingConflictException.class, () -> save(1L, 15, 25));
+        assertDoesNotThrow(() -> save(1L, 20, 30));
+        assertDoesNotThrow(() -> save(2L, 10, 20));
+
+        repository.updateStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.REJECTED);
+        assertDoesNotThrow(() -> save(1L, 12, 18));
+        assertThrows(BookingConflictException.class,
+                () -> repository.updateStatus(booking.getId(), BookingStatus.REJECTED, BookingStatus.APPROVED));
+    }
+
+    @Test
+    void save_WhenManyThreadsBookSamePeriod_ShouldAcceptExactlyOne() throws Exception {
+        insertItem(1L);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int shift = i % 3;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        save(1L, 10 + shift, 15 + shift);
+                        return true;
+                    } catch (BookingConflictException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    accepted++;
+                }
+            }
+            assertEquals(1, accepted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void updateStatus_WhenExpectedStatusChanged_ShouldReject() {
+        Booking booking = save(1L, 10, 20);
+
+        assertEquals(BookingStatus.APPROVED,
+                repository.updateStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.APPROVED).getStatus());
+        assertThrows(ValidationException.class,
+                () -> repository.updateStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.REJECTED));
+        assertEquals("Вещь 1", repository.getById(booking.getId()).getItem().getName());
+        assertEquals("Арендатор", repository.getById(booking.getId()).getBooker().getName());
+    }
+
+    @Test
+    void getById_ShouldKeepItemAndBookerSnapshotTakenAtBooking() {
+        Booking booking = save(1L, 10, 20);
+        jdbcTemplate.update("UPDATE items SET name = 'Переименована', version = version + 1 WHERE id = 1");
+        jdbcTemplate.update("UPDATE users SET name = 'Другое имя', version = version + 1 WHERE id = ?", BOOKER_ID);
+
+        Booking stored = repository.getById(booking.getId());
+
+        assertEquals("Вещь 1", stored.getItem().getName());
+        assertEquals(1, stored.getItem().getVersion());
+        assertEquals("Арендатор", stored.getBooker().getName());
+        assertEquals(1, stored.getBooker().getVersion());
+    }
+
+    @Test
+    void findByBookerAndOwner_ShouldFilterByStateNewestFirstWithCursor() {
+        Booking past = save(1L, -30, -20);
+        Booking current = save(2L, -5, 5);
+        Booking future = save(1L, 10, 20);
+        Booking farFuture = save(3L, 30, 40);
+        repository.updateStatus(farFuture.getId(), BookingStatus.WAITING, BookingStatus.REJECTED);
+
+        assertEquals(ids(farFuture, future, current, past), bookerIds(BookingState.ALL, ALL));
+        assertEquals(ids(current), bookerIds(BookingState.CURRENT, ALL));
+        assertEquals(ids(past), bookerIds(BookingState.PAST, ALL));
+        assertEquals(ids(farFuture, future), bookerIds(BookingState.FUTURE, ALL));
+        assertEquals(ids(future, current, past), bookerIds(BookingState.WAITING, ALL));
+        assertEquals(ids(farFuture), bookerIds(BookingState.REJECTED, ALL));
+        assertEquals(ids(farFuture, future, current, past),
+                ids(repository.findByOwnerId(OWNER_ID, BookingState.ALL, ALL)));
+        assertTrue(repository.findByOwnerId(BOOKER_ID, BookingState.ALL, ALL).isEmpty());
+
+        String cursor = PageParams.encodeCursor(future.getId());
+        assertEquals(ids(current), bookerIds(BookingState.ALL, PageParams.of(0, 1, cursor)));
+        assertEquals(ids(past), bookerIds(BookingState.ALL, PageParams.of(1, 10, cursor)));
+        assertThrows(ValidationException.class,
+                () -> bookerIds(BookingState.ALL, PageParams.of(0, 10, PageParams.encodeCursor(999L))));
+    }
+
+    @Test
+    void advanceTimeAndLastNext_ShouldFollowClockAndApprovals() {
+        Booking started = save(1L, -5, 5);
+        Booking last = save(2L, -10, -5);
+        Booking next = save(2L, 5, 10);
+        repository.updateStatus(last.getId(), BookingStatus.WAITING, BookingStatus.APPROVED);
+        repository.updateStatus(next.getId(), BookingStatus.WAITING, BookingStatus.APPROVED);
+
+        repository.advanceTime(now);
+
+        assertEquals(BookingStatus.REJECTED, repository.getById(started.getId()).getStatus());
+        assertEquals(BookingStatus.APPROVED, repository.getById(next.getId()).getStatus());
+        assertEquals(last.getId(), repository.findLastBooking(2L).getId());
+        assertEquals(next.getId(), repository.findNextBooking(2L).getId());
+        assertNull(repository.findLastBooking(1L));
+
+        repository.deleteById(next.getId());
+        assertNull(repository.findNextBooking(2L));
+    }
+
+    private Booking save(Long itemId, int startMinutes, int endMinutes) {
+        insertItem(itemId);
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwnerId(OWNER_ID);
+        item.setName("Вещь " + itemId);
+        item.setVersion(1);
+        UserResponseDto booker = new UserResponseDto();
+        booker.setId(BOOKER_ID);
+        booker.setName("Арендатор");
+        booker.setVersion(1);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(now.plusMinutes(startMinutes));
+        booking.setEnd(now.plusMinutes(endMinutes));
+        return repository.save(booking);
+    }
+
+    private void insertItem(Long itemId) {
+        jdbcTemplate.update("MERGE INTO users (id, email, name) KEY (id) VALUES (?, ?, ?)",
+                BOOKER_ID, "booker@example.com", "Арендатор");
+        jdbcTemplate.update("MERGE INTO items (id, owner_id, name, available) KEY (id) VALUES (?, ?, ?, TRUE)",
+                itemId, OWNER_ID, "Вещь " + itemId);
+    }
+
+    private List<Long> bookerIds(BookingState state, PageParams page) {
+        return ids(repository.findByBookerId(BOOKER_ID, state, page));
+    }
+
+    private static List<Long> ids(Booking... bookings) {
+        return ids(List.of(bookings));
+    }
+
+    private static List<Long> ids(Collection<Booking> bookings) {
+        return bookings.stream()
+                .map(Booking::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.practicum.exceptions;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.exceptions.GlobalExceptionHandler;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.NotOwnerException;
+import ru.practicum.shareit.exceptions.ValidationException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+
+    @Test
+    void domainExceptions_ShouldNotCaptureStackTrace() {
+        NotFoundException exception = new NotFoundException("Предмет не найден");
+
+        assertEquals(0, exception.getStackTrace().length);
+        exception.addSuppressed(new IllegalStateException());
+        assertEquals(0, exception.getSuppressed().length);
+    }
+
+    @Test
+    void handleNotFoundException_ShouldReuseImmutableResponseForSameMessage() {
+        ResponseEntity<Map<String, String>> first = handler.handleNotFoundException(
+                new NotFoundException("Предмет не найден"));
+        ResponseEntity<Map<String, String>> second = handler.handleNotFoundException(
+                new NotFoundException("Предмет не найден"));
+
+        assertSame(first, second);
+        assertEquals(HttpStatus.NOT_FOUND, first.getStatusCode());
+        assertEquals(Map.of("error", "Предмет не найден", "status", "NOT_FOUND"), first.getBody());
+        assertThrows(UnsupportedOperationException.class, () -> first.getBody().put("error", "другое"));
+        assertNotSame(first, handler.handleNotFoundException(new NotFoundException("Бронь не найдена")));
+    }
+
+    @Test
+    void handleNotOwnerException_ShouldAnswerConflictWithMessage() {
+        ResponseEntity<Map<String, String>> response = handler.handleNotOwnerException(
+                new NotOwnerException("Только владелец вещи может подтверждать бронирование"));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("Только владелец вещи может подтверждать бронирование", response.getBody().get("message"));
+        assertEquals(HttpStatus.BAD_REQUEST,
+                handler.handleValidationException(new ValidationException("Некорректный курсор")).getStatusCode());
+    }
+}
@@ -0,0 +1,256 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.item.repository.ItemRepositoryImpl;
+import ru.practicum.shareit.pagination.PageParams;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemRepositoryImplTest {
+    private static final String[] WORDS = {"Дрель", "дрель ударная", "Отвертка", "Аккумуляторная дрель",
+            "Лестница", "stepladder", "Drill", "DRILL bits", "Пила", "пылесос", "ab", "a"};
+
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+
+    private final ItemRepositoryImpl repository = new ItemRepositoryImpl();
+
+    @Test
+    void search_ShouldMatchCaseInsensitiveSubstringOfAvailableItems() {
+        Item drill = save("Дрель", "Простая дрель", true);
+        save("Дрель ударная", "Мощная", false);
+        Item ladder = save("Лестница", "Стремянка, не дрель", true);
+
+        assertEquals(List.of(drill.getId(), ladder.getId()), ids(repository.search("ДРЕЛЬ", ALL)));
+        assertEquals(List.of(drill.getId()), ids(repository.search("ая др", ALL)));
+        assertEquals(List.of(ladder.getId()), ids(repository.search("стрем", ALL)));
+        assertTrue(repository.search("перфоратор", ALL).isEmpty());
+        assertTrue(repository.search(" ", ALL).isEmpty());
+    }
+
+    @Test
+    void search_ShouldFollowUpdatesAndDeletes() {
+        Item item = save("Дрель", "Простая дрель", true);
+
+        ItemPatch patch = new ItemPatch();
+        patch.setId(item.getId());
+        patch.setName("Пила");
+        patch.setDescription("Ножовка");
+        patch.setAvailable(true);
+        repository.update(patch);
+
+        assertTrue(repository.search("дрель", ALL).isEmpty());
+        assertEquals(List.of(item.getId()), ids(repository.search("ножов", ALL)));
+
+        repository.deleteByUserIdAndItemId(2L, item.getId());
+        assertEquals(1, repository.search("пила", ALL).size());
+
+        repository.deleteByUserIdAndItemId(1L, item.getId());
+        assertTrue(repository.search("пила", ALL).isEmpty());
+    }
+
+    @Test
+    void search_ShouldReturnSameItemsAsFullScan() {
+        Random random = new Random(7);
+        List<Item> saved = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            saved.add(save(WORDS[random.nextInt(WORDS.length)] + " " + i,
+                    WORDS[random.nextInt(WORDS.length)], random.nextInt(4) > 0));
+        }
+
+        for (String query : List.of("дрель", "ДРЕ", "drill", "a", "ab", "ль у", "1", "42", "ер", "bits", "zzz")) {
+            String lower = query.toLowerCase();
+            List<Long> expected = saved.stream()
+                    .filter(Item::isAvailable)
+                    .filter(item -> item.getName().toLowerCase().contains(lower) ||
+                            item.getDescription().toLowerCase().contains(lower))
+                    .map(Item::getId)
+                    .toList();
+            assertEquals(expected, ids(repository.search(query, ALL)), "Запрос: " + query);
+            if (expected.size() > 3) {
+                PageParams afterFirst = PageParams.of(1, 2, PageParams.encodeCursor(expected.getFirst()));
+                assertEquals(expected.subList(2, 4), ids(repository.search(query, afterFirst)), "Запрос: " + query);
+            }
+        }
+    }
+
+    @Test
+    void findByOwnerId_ShouldReturnOnlyOwnerItemsAndForgetDeletedOwner() {
+        Item first = save("Дрель", "Простая дрель", true);
+        Item second = save("Пила", "Ножовка", false);
+        Item foreign = save("Лестница", "Стремянка", true);
+        ItemPatch patch = new ItemPatch();
+        patch.setId(foreign.getId());
+        patch.setOwnerId(2L);
+        patch.setAvailable(true);
+        repository.update(patch);
+
+        assertEquals(List.of(first.getId(), second.getId()), ids(repository.findByOwnerId(1L, ALL)));
+        assertEquals(List.of(foreign.getId()), ids(repository.findByOwnerId(2L, ALL)));
+
+        repository.deleteByOwnerId(1L);
+
+        assertTrue(repository.findByOwnerId(1L, ALL).isEmpty());
+        assertTrue(repository.search("дрель", ALL).isEmpty());
+        assertEquals(List.of(foreign.getId()), ids(repository.search("стрем", ALL)));
+    }
+
+    @Test
+    void findByRequestIds_ShouldGroupAnswersAndForgetDeletedItems() {
+        Item first = save("Дрель", "Ответ на запрос", true, 10L);
+        Item second = save("Перфоратор", "Тоже ответ", false, 10L);
+        Item other = save("Пила", "Другой запрос", true, 20L);
+        save("Лестница", "Без запроса", true);
+
+        Map<Long, List<Item>> answers = repository.findByRequestIds(List.of(10L, 20L, 30L));
+
+        assertEquals(List.of(first.getId(), second.getId()), ids(answers.get(10L)));
+        assertEquals(List.of(other.getId()), ids(answers.get(20L)));
+        assertFalse(answers.containsKey(30L));
+
+        repository.deleteByUserIdAndItemId(1L, first.getId());
+        repository.deleteByOwnerId(1L);
+        assertTrue(repository.findByRequestIds(List.of(10L, 20L)).isEmpty());
+    }
+
+    @Test
+    void searchAndFindByOwnerId_ShouldReturnRequestedPageOnly() {
+        List<Long> all = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            all.add(save("Дрель " + i, "Описание", true).getId());
+        }
+
+        assertEquals(all.subList(2, 5), ids(repository.search("дрель", PageParams.of(2, 3, null))));
+        assertEquals(all.subList(0, 3), ids(repository.findByOwnerId(1L, PageParams.of(0, 3, null))));
+
+        String cursor = PageParams.encodeCursor(all.get(4));
+        assertEquals(all.subList(5, 7), ids(repository.search("дрель", PageParams.of(0, 3, cursor))));
+        assertEquals(all.subList(6, 7), ids(repository.findByOwnerId(1L, PageParams.of(1, 3, cursor))));
+    }
+
+    @Test
+    void update_ShouldBumpVersionAndRejectStaleExpectedVersion() {
+        Item item = save("Дрель", "Простая дрель", true);
+        assertEquals(1, item.getVersion());
+
+        ItemPatch patch = new ItemPatch();
+        patch.setId(item.getId());
+        patch.setName("Пила");
+        patch.setAvailable(true);
+        patch.setVersion(1);
+        assertEquals(2, repository.update(patch).getVersion());
+
+        patch.setName("Лестница");
+        assertThrows(PreconditionFailedException.class, () -> repository.update(patch));
+        assertEquals("Пила", repository.findById(item.getId()).getName());
+
+        patch.setVersion(0);
+        assertEquals(3, repository.update(patch).getVersion());
+    }
+
+    @Test
+    void update_ShouldNotChangePreviouslyReadInstance() {
+        Item item = save("Дрель", "Простая дрель", true);
+        Item read = repository.findById(item.getId());
+
+        ItemPatch patch = new ItemPatch();
+        patch.setId(item.getId());
+        patch.setName("Пила");
+        patch.setAvailable(false);
+        repository.update(patch);
+
+        assertEquals("Дрель", read.getName());
+        assertTrue(read.isAvailable());
+        assertEquals(1, read.getVersion());
+        assertEquals("Пила", repository.findById(item.getId()).getName());
+    }
+
+    @Test
+    void update_WhenPatchesChangeDifferentFields_ShouldKeepBoth() {
+        Item item = save("Дрель", "Простая дрель", true);
+
+        ItemPatch availability = new ItemPatch();
+        availability.setId(item.getId());
+        availability.setAvailable(false);
+        ItemPatch name = new ItemPatch();
+        name.setId(item.getId());
+        name.setName("Пила");
+        repository.update(availability);
+        repository.update(name);
+
+        Item result = repository.findById(item.getId());
+        assertEquals("Пила", result.getName());
+        assertFalse(result.isAvailable());
+        assertEquals(3, result.getVersion());
+    }
+
+    @Test
+    void saveAndDelete_WhenCalledFromManyThreads_ShouldKeepIndexesConsistent() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long ownerId = t + 1;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        Item item = new Item();
+                        item.setOwnerId(ownerId);
+                        item.setName("Вещь " + ownerId);
+                        item.setDescription("Параллельная");
+                        item.setAvailable(true);
+                        repository.save(item);
+                        if (i % 2 == 0) {
+                            repository.deleteByUserIdAndItemId(ownerId, item.getId());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (long ownerId = 1; ownerId <= threads; ownerId++) {
+            assertEquals(perThread / 2, repository.findByOwnerId(ownerId, ALL).size());
+        }
+        assertEquals(perThread / 2, repository.search("вещь 3", ALL).size());
+    }
+
+    private Item save(String name, String description, boolean available) {
+        return save(name, description, available, null);
+    }
+
+    private Item save(String name, String description, boolean available, Long requestId) {
+        Item item = new Item();
+        item.setRequestId(requestId);
+        item.setOwnerId(1L);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        return repository.save(item);
+    }
+
+    private static List<Long> ids(Collection<Item> items) {
+        return items.stream()
+                .map(Item::getId)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+}
@@ -1,21 +1,36 @@
 package ru.practicum.item;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingMapper;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.etag.EntityTags;
+import ru.practicum.shareit.etag.Tagged;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.NotOwnerException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemPatchDto;
 import ru.practicum.shareit.item.dto.ItemResponseDto;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.model.ItemMapper;
+import ru.practicum.shareit.item.model.ItemPatch;
 import ru.practicum.shareit.item.repository.ItemRepository;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
-import ru.practicum.shareit.user.dto.UserResponseDto;
-import ru.practicum.shareit.user.service.UserService;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.principal.Sharer;
 
 import java.util.Collection;
 import java.util.List;
@@ -35,11 +50,22 @@ class ItemServiceTest {
     private ItemMapper itemMapper;
 
     @Mock
-    private UserService userService;
+    private BookingRepository bookingRepository;
+
+    @Mock
+    private BookingMapper bookingMapper;
+
+    @Mock
+    private ItemRequestRepository itemRequestRepository;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @InjectMocks
     private ItemServiceImpl itemService;
 
+    private final PageParams page = PageParams.of(0, 10, null);
+
     @Test
     void create_ShouldCreateItemAndReturnResponseDto() {
         Long ownerId = 1L;
@@ -62,17 +88,11 @@ class ItemServiceTest {
         expectedResponse.setAvailable(true);
         expectedResponse.setOwnerId(ownerId);
 
-        UserResponseDto userResponse = new UserResponseDto();
-        userResponse.setId(ownerId);
-        userResponse.setName("User Name");
-        userResponse.setEmail("user@example.com");
-
-        when(userService.getById(ownerId)).thenReturn(userResponse);
         when(itemMapper.toItem(itemDto)).thenReturn(item);
         when(itemRepository.save(item)).thenReturn(item);
         when(itemMapper.toResponseDto(item)).thenReturn(expectedResponse);
 
-        ItemResponseDto result = itemService.create(itemDto, ownerId);
+        ItemResponseDto result = itemService.create(itemDto, sharer(ownerId));
 
         assertNotNull(result);
         assertEquals(expectedResponse.getId(), result.getId());
@@ -81,7 +101,6 @@ class ItemServiceTest {
         assertEquals(expectedResponse.isAvailable(), result.isAvailable());
         assertEquals(expectedResponse.getOwnerId(), result.getOwnerId());
 
-        verify(userService).getById(ownerId);
         verify(itemMapper).toItem(itemDto);
         verify(itemRepository).save(item);
         verify(itemMapper).toResponseDto(item);
@@ -106,16 +125,10 @@ class ItemServiceTest {
         expectedResponse.setAvailable(true);
         expectedResponse.setOwnerId(userId);
 
-        UserResponseDto userResponse = new UserResponseDto();
-        userResponse.setId(userId);
-        userResponse.setName("User Name");
-        userResponse.setEmail("user@example.com");
-
-        when(userService.getById(userId)).thenReturn(userResponse);
         when(itemRepository.findById(itemId)).thenReturn(item);
         when(itemMapper.toResponseDto(item)).thenReturn(expectedResponse);
 
-        ItemResponseDto result = itemService.getById(itemId, userId);
+        ItemResponseDto result = itemService.getById(itemId, sharer(userId));
 
         assertNotNull(result);
         assertEquals(expectedResponse.getId(), result.getId());
@@ -124,27 +137,134 @@ class ItemServiceTest {
         assertEquals(expectedResponse.isAvailable(), result.isAvailable());
         assertEquals(expectedResponse.getOwnerId(), result.getOwnerId());
 
-        verify(userService).getById(userId);
         verify(itemRepository).findById(itemId);
         verify(itemMapper).toResponseDto(item);
     }
 
+    @Test
+    void getById_ShouldShowLastAndNextBookingsToOwnerOnly() {
+        Long itemId = 1L;
+        Long ownerId = 1L;
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwnerId(ownerId);
+        Booking last = new Booking();
+        last.setId(10L);
+        Booking next = new Booking();
+        next.setId(11L);
+        BookingShortDto lastDto = new BookingShortDto();
+        BookingShortDto nextDto = new BookingShortDto();
+
+        when(itemRepository.findById(itemId)).thenReturn(item);
+        when(itemMapper.toResponseDto(item)).thenAnswer(invocation -> {
+            ItemResponseDto dto = new ItemResponseDto();
+            dto.setId(itemId);
+            return dto;
+        });
+        when(bookingRepository.findLastBooking(itemId)).thenReturn(last);
+        when(bookingRepository.findNextBooking(itemId)).thenReturn(next);
+        when(bookingMapper.toShortDto(last)).thenReturn(lastDto);
+        when(bookingMapper.toShortDto(next)).thenReturn(nextDto);
+
+        ItemResponseDto ownerView = itemService.getById(itemId, sharer(ownerId));
+        ItemResponseDto otherView = itemService.getById(itemId, sharer(2L));
+
+        assertSame(lastDto, ownerView.getLastBooking());
+        assertSame(nextDto, ownerView.getNextBooking());
+        assertNull(otherView.getLastBooking());
+        assertNull(otherView.getNextBooking());
+        verify(bookingRepository, times(1)).findLastBooking(itemId);
+    }
+
+    @Test
+    void getTaggedById_ShouldTagOwnerViewWithBookingsAndSkipMapperWhenNotModified() {
+        Long itemId = 1L;
+        Long ownerId = 1L;
+        Item item = new Item();
+        item.setId(itemId);
+        item.setOwnerId(ownerId);
+        item.setVersion(3);
+        Booking next = new Booking();
+        next.setId(11L);
+        next.setVersion(1);
+
+        when(itemRepository.findById(itemId)).thenReturn(item);
+        when(bookingRepository.findNextBooking(itemId)).thenReturn(next);
+
+        Tagged<ItemResponseDto> ownerView = itemService.getTaggedById(itemId, sharer(ownerId));
+        Tagged<ItemResponseDto> otherView = itemService.getTaggedById(itemId, sharer(2L));
+        ResponseEntity<ItemResponseDto> notModified = EntityTags.conditional(
+                itemService.getTaggedById(itemId, sharer(ownerId)), "W/\"1-0\", " + ownerView.getEtag());
+
+        assertEquals("\"1-3\"", otherView.getEtag());
+        assertEquals("\"1-3-0-0-11-1\"", ownerView.getEtag());
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertEquals(ownerView.getEtag(), notModified.getHeaders().getETag());
+        assertNull(notModified.getBody());
+
+        next.setVersion(2);
+        assertNotEquals(ownerView.getEtag(), itemService.getTaggedById(itemId, sharer(ownerId)).getEtag());
+        verify(itemMapper, never()).toResponseDto(any());
+    }
+
+    @Test
+    void update_WhenIfMatchIsStale_ShouldNotWrite() {
+        Long itemId = 1L;
+        Long ownerId = 1L;
+        ItemPatchDto patchDto = new ItemPatchDto();
+        Item existingItem = new Item();
+        existingItem.setId(itemId);
+        existingItem.setOwnerId(ownerId);
+        existingItem.setVersion(2);
+
+        when(itemRepository.findById(itemId)).thenReturn(existingItem);
+        when(itemMapper.toItemPatch(patchDto)).thenReturn(new ItemPatch());
+
+        assertThrows(PreconditionFailedException.class,
+                () -> itemService.update(patchDto, itemId, sharer(ownerId), "\"1-1-0-0-0-0\""));
+        assertThrows(PreconditionFailedException.class,
+                () -> itemService.update(patchDto, itemId, sharer(ownerId), "W/\"1-2-0-0-0-0\""));
+        verify(itemRepository, never()).update(any());
+    }
+
+    @Test
+    void update_WhenIfMatchIsCurrent_ShouldSendSnapshotVersionAndTagSavedItem() {
+        Long itemId = 1L;
+        Long ownerId = 1L;
+        ItemPatchDto patchDto = new ItemPatchDto();
+        Item existingItem = new Item();
+        existingItem.setId(itemId);
+        existingItem.setOwnerId(ownerId);
+        existingItem.setVersion(2);
+        Item savedItem = new Item();
+        savedItem.setId(itemId);
+        savedItem.setOwnerId(ownerId);
+        savedItem.setVersion(3);
+        ItemPatch patch = new ItemPatch();
+        ItemResponseDto responseDto = new ItemResponseDto();
+
+        when(itemRepository.findById(itemId)).thenReturn(existingItem);
+        when(itemMapper.toItemPatch(patchDto)).thenReturn(patch);
+        when(itemRepository.update(patch)).thenReturn(savedItem);
+        when(itemMapper.toResponseDto(savedItem)).thenReturn(responseDto);
+
+        Tagged<ItemResponseDto> result = itemService.update(patchDto, itemId, sharer(ownerId), "\"1-2-0-0-0-0\"");
+
+        assertEquals(2, patch.getVersion());
+        assertEquals("\"1-3-0-0-0-0\"", result.getEtag());
+        assertSame(responseDto, result.getBody());
+        verify(itemRepository, times(1)).findById(itemId);
+    }
+
     @Test
     void getById_WhenItemNotExists_ShouldThrowException() {
         Long itemId = 999L;
         Long userId = 1L;
 
-        UserResponseDto userResponse = new UserResponseDto();
-        userResponse.setId(userId);
-        userResponse.setName("User Name");
-        userResponse.setEmail("user@example.com");
-
-        when(userService.getById(userId)).thenReturn(userResponse);
         when(itemRepository.findById(itemId)).thenThrow(new NotFoundException("Предмет не найден"));
 
-        assertThrows(NotFoundException.class, () -> itemService.getById(itemId, userId));
+        assertThrows(NotFoundException.class, () -> itemService.getById(itemId, sharer(userId)));
 
-        verify(userService).getById(userId);
         verify(itemRepository).findById(itemId);
         verify(itemMapper, never()).toResponseDto(any());
     }
@@ -180,18 +300,13 @@ class ItemServiceTest {
         expectedResponse.setAvailable(false);
         expectedResponse.setOwnerId(ownerId);
 
-        UserResponseDto userResponse = new UserResponseDto();
-        userResponse.setId(ownerId);
-        userResponse.setName("User Name");
-        userResponse.setEmail("user@example.com");
-
-        when(userService.getById(ownerId)).thenReturn(userResponse);
+        ItemPatch patch = new ItemPatch();
         when(itemRepository.findById(itemId)).thenReturn(existingItem);
-        when(itemMapper.updateItemFromPatchDto(patchDto, existingItem)).thenReturn(updatedItem);
-        when(itemRepository.update(updatedItem)).thenReturn(updatedItem);
+        when(itemMapper.toItemPatch(patchDto)).thenReturn(patch);
+        when(itemRepository.update(patch)).thenReturn(updatedItem);
         when(itemMapper.toResponseDto(updatedItem)).thenReturn(expectedResponse);
 
-        ItemResponseDto result = itemService.update(patchDto, itemId, ownerId);
+        ItemResponseDto result = itemService.update(patchDto, itemId, sharer(ownerId));
 
         assertNotNull(result);
         assertEquals(expectedResponse.getId(), result.getId());
@@ -200,10 +315,9 @@ class ItemServiceTest {
         assertEquals(expectedResponse.isAvailable(), result.isAvailable());
         assertEquals(expectedResponse.getOwnerId(), result.getOwnerId());
 
-        verify(userService).getById(ownerId);
         verify(itemRepository).findById(itemId);
-        verify(itemMapper).updateItemFromPatchDto(patchDto, existingItem);
-        verify(itemRepository).update(updatedItem);
+        verify(itemMapper).toItemPatch(patchDto);
+        verify(itemRepository).update(patch);
         verify(itemMapper).toResponseDto(updatedItem);
     }
 
@@ -223,19 +337,12 @@ class ItemServiceTest {
         existingItem.setAvailable(true);
         existingItem.setOwnerId(otherUserId); // Владелец другой
 
-        UserResponseDto userResponse = new UserResponseDto();
-        userResponse.setId(ownerId);
-        userResponse.setName("User Name");
-        userResponse.setEmail("user@example.com");
-
-        when(userService.getById(ownerId)).thenReturn(userResponse);
         when(itemRepository.findById(itemId)).thenReturn(existingItem);
 
-        assertThrows(NotOwnerException.class, () -> itemService.update(patchDto, itemId, ownerId));
+        assertThrows(NotOwnerException.class, () -> itemService.update(patchDto, itemId, sharer(ownerId)));
 
-        verify(userService).getById(ownerId);
         verify(itemRepository).findById(itemId);
-        verify(itemMapper, never()).updateItemFromPatchDto(any(), any());
+        verify(itemMapper, never()).toItemPatch(any());
         verify(itemRepository, never()).update(any());
         verify(itemMapper, never()).toResponseDto(any());
     }
@@ -273,26 +380,31 @@ class ItemServiceTest {
         response2.setAvailable(true);
         response2.setOwnerId(userId);
 
-        UserResponseDto userResponse = new UserResponseDto();
-        userResponse.setId(userId);
-        userResponse.setName("User Name");
-        userResponse.setEmail("user@example.com");
-
-        when(userService.getById(userId)).thenReturn(userResponse);
-        when(itemRepository.search(searchText)).thenReturn(List.of(item1, item2));
+        when(itemRepository.search(searchText, page)).thenReturn(List.of(item1, item2));
         when(itemMapper.toResponseDto(item1)).thenReturn(response1);
         when(itemMapper.toResponseDto(item2)).thenReturn(response2);
 
-        Collection<ItemResponseDto> result = itemService.search(searchText, userId);
+        Collection<ItemResponseDto> result = itemService.search(searchText, sharer(userId), page);
 
         assertNotNull(result);
         assertEquals(2, result.size());
 
-        verify(userService).getById(userId);
-        verify(itemRepository).search(searchText);
+        verify(itemRepository).search(searchText, page);
         verify(itemMapper, times(2)).toResponseDto(any(Item.class));
     }
 
+    @Test
+    void search_ShouldCountQueriesAndEmptyResults() {
+        when(itemRepository.search("дрель", page)).thenReturn(List.of(new Item()));
+        when(itemRepository.search("перфоратор", page)).thenReturn(List.of());
+
+        itemService.search("дрель", sharer(1L), page);
+        itemService.search("перфоратор", sharer(1L), page);
+
+        assertEquals(2, meterRegistry.counter(ShareItMetrics.SEARCH_QUERIES).count());
+        assertEquals(1, meterRegistry.counter(ShareItMetrics.SEARCH_EMPTY).count());
+    }
+
     @Test
     void getItems_ShouldReturnUserItems() {
         Long userId = 1L;
@@ -325,23 +437,16 @@ class ItemServiceTest {
         response2.setAvailable(true);
         response2.setOwnerId(userId);
 
-        UserResponseDto userResponse = new UserResponseDto();
-        userResponse.setId(userId);
-        userResponse.setName("User Name");
-        userResponse.setEmail("user@example.com");
-
-        when(userService.getById(userId)).thenReturn(userResponse);
-        when(itemRepository.findByOwnerId(userId)).thenReturn(List.of(item1, item2));
+        when(itemRepository.findByOwnerId(userId, page)).thenReturn(List.of(item1, item2));
         when(itemMapper.toResponseDto(item1)).thenReturn(response1);
         when(itemMapper.toResponseDto(item2)).thenReturn(response2);
 
-        Collection<ItemResponseDto> result = itemService.getItems(userId);
+        Collection<ItemResponseDto> result = itemService.getItems(sharer(userId), page);
 
         assertNotNull(result);
         assertEquals(2, result.size());
 
-        verify(userService).getById(userId);
-        verify(itemRepository).findByOwnerId(userId);
+        verify(itemRepository).findByOwnerId(userId, page);
         verify(itemMapper, times(2)).toResponseDto(any(Item.class));
     }
 
@@ -352,8 +457,13 @@ class ItemServiceTest {
 
         doNothing().when(itemRepository).deleteByUserIdAndItemId(userId, itemId);
 
-        itemService.deleteItem(userId, itemId);
+        itemService.deleteItem(sharer(userId), itemId);
 
         verify(itemRepository).deleteByUserIdAndItemId(userId, itemId);
     }
-}
\ No newline at end of file
+
+    // Сервисы получают уже проверенного пользователя и не должны снова обращаться к хранилищу пользователей
+    private static Sharer sharer(Long id) {
+        return Sharer.of(id, () -> fail("Профиль пользователя не должен загружаться"));
+    }
+}
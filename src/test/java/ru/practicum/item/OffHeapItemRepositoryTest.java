@@ -0,0 +1,252 @@
+package ru.practicum.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.item.repository.ItemRepositoryImpl;
+import ru.practicum.shareit.item.repository.OffHeapItemRepository;
+import ru.practicum.shareit.pagination.PageParams;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapItemRepositoryTest {
+    private static final String[] WORDS = {"Дрель", "дрель ударная", "Отвертка", "Аккумуляторная дрель",
+            "Лестница", "stepladder", "Drill", "DRILL bits", "Пила", "пылесос", "ab", "a", "Straße", "ÉCRAN"};
+
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+
+    private final OffHeapItemRepository repository = new OffHeapItemRepository();
+
+    @Test
+    void search_ShouldMatchCaseInsensitiveSubstringOfAvailableItems() {
+        Item drill = save("Дрель", "Простая дрель", true);
+        save("Дрель ударная", "Мощная", false);
+        Item ladder = save("Лестница", "Стремянка, не дрель", true);
+
+        assertEquals(List.of(drill.getId(), ladder.getId()), ids(repository.search("ДРЕЛЬ", ALL)));
+        assertEquals(List.of(drill.getId()), ids(repository.search("ая др", ALL)));
+        assertEquals(List.of(ladder.getId()), ids(repository.search("стрем", ALL)));
+        assertTrue(repository.search("перфоратор", ALL).isEmpty());
+        assertTrue(repository.search(" ", ALL).isEmpty());
+        // Совпадение не может начаться в названии и закончиться в описании
+        assertTrue(repository.search("ельпрос", ALL).isEmpty());
+    }
+
+    @Test
+    void search_ShouldReturnSameItemsAsHeapRepository() {
+        ItemRepositoryImpl heap = new ItemRepositoryImpl();
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + i;
+            String description = random.nextInt(10) == 0 ? null : WORDS[random.nextInt(WORDS.length)];
+            boolean available = random.nextInt(4) > 0;
+            save(name, description, available);
+            heap.save(item(name, description, available, null));
+        }
+
+        for (String query : List.of("дрель", "ДРЕ", "drill", "a", "ab", "ль у", "1", "42", "ер", "bits", "zzz",
+                "ß", "écr")) {
+            assertEquals(ids(heap.search(query, ALL)), ids(repository.search(query, ALL)), "Запрос: " + query);
+        }
+    }
+
+    @Test
+    void findById_ShouldReturnStoredCopyAndFollowUpdatesAndDeletes() {
+        Item item = save("Дрель", "Простая дрель", true, 10L);
+        item.setUrl(null);
+
+        Item found = repository.findById(item.getId());
+        assertEquals(item, found);
+        found.setName("Изменено вне хранилища");
+        assertEquals("Дрель", repository.findById(item.getId()).getName());
+
+        ItemPatch patch = new ItemPatch();
+        patch.setId(item.getId());
+        patch.setName("Пила");
+        patch.setDescription(" ");
+        patch.setAvailable(false);
+        Item updated = repository.update(patch);
+
+        assertEquals("Пила", updated.getName());
+        assertEquals("Простая дрель", updated.getDescription());
+        assertFalse(updated.isAvailable());
+        assertEquals(10L, updated.getRequestId());
+        assertTrue(repository.search("пила", ALL).isEmpty());
+        assertTrue(repository.garbageBytes() > 0);
+
+        repository.deleteByUserIdAndItemId(2L, item.getId());
+        assertEquals(item.getId(), repository.findById(item.getId()).getId());
+
+        repository.deleteByUserIdAndItemId(1L, item.getId());
+        assertThrows(NotFoundException.class, () -> repository.findById(item.getId()));
+        assertThrows(NotFoundException.class, () -> repository.update(patch));
+        assertThrows(NotFoundException.class, () -> repository.findById(999L));
+    }
+
+    @Test
+    void findByOwnerIdAndRequestIds_ShouldFollowOwnerChangesAndDeletes() {
+        Item first = save("Дрель", "Ответ на запрос", true, 10L);
+        Item second = save("Перфоратор", "Тоже ответ", false, 10L);
+        Item foreign = save("Пила", "Другой запрос", true, 20L);
+        ItemPatch patch = new ItemPatch();
+        patch.setId(foreign.getId());
+        patch.setOwnerId(2L);
+        patch.setAvailable(true);
+        repository.update(patch);
+
+        assertEquals(List.of(first.getId(), second.getId()), ids(repository.findByOwnerId(1L, ALL)));
+        assertEquals(List.of(foreign.getId()), ids(repository.findByOwnerId(2L, ALL)));
+        Map<Long, List<Item>> answers = repository.findByRequestIds(List.of(10L, 20L, 30L));
+        assertEquals(List.of(first.getId(), second.getId()), ids(answers.get(10L)));
+        assertEquals(List.of(foreign.getId()), ids(answers.get(20L)));
+        assertFalse(answers.containsKey(30L));
+
+        repository.deleteByOwnerId(1L);
+
+        assertTrue(repository.findByOwnerId(1L, ALL).isEmpty());
+        assertEquals(Map.of(20L, List.of(foreign.getId())), repository.findByRequestIds(List.of(10L, 20L))
+                .entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> ids(entry.getValue()))));
+        assertEquals(1, repository.size());
+    }
+
+    @Test
+    void searchAndFindByOwnerId_ShouldReturnRequestedPageOnly() {
+        List<Long> all = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            all.add(save("Дрель " + i, "Описание", true).getId());
+        }
+
+        assertEquals(all.subList(2, 5), ids(repository.search("дрель", PageParams.of(2, 3, null))));
+        assertEquals(all.subList(0, 3), ids(repository.findByOwnerId(1L, PageParams.of(0, 3, null))));
+
+        String cursor = PageParams.encodeCursor(all.get(4));
+        assertEquals(all.subList(5, 7), ids(repository.search("дрель", PageParams.of(0, 3, cursor))));
+        assertEquals(all.subList(6, 7), ids(repository.findByOwnerId(1L, PageParams.of(1, 3, cursor))));
+        assertTrue(repository.search("дрель", PageParams.of(0, 3, PageParams.encodeCursor(100L))).isEmpty());
+    }
+
+    @Test
+    void search_WhenMatchesSpanManyChunks_ShouldKeepOrderAcrossChunkBoundaries() {
+        List<Long> rare = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            Item item = save(i % 1_000 == 999 ? "Редкая дрель " + i : "Пила " + i, "Описание", true);
+            if (i % 1_000 == 999) {
+                rare.add(item.getId());
+            }
+        }
+
+        assertEquals(rare, ids(repository.search("редкая", PageParams.of(null, null, null))));
+        assertEquals(rare.subList(3, 6), ids(repository.search("редкая", PageParams.of(3, 3, null))));
+        String cursor = PageParams.encodeCursor(rare.get(4));
+        assertEquals(rare.subList(5, 10), ids(repository.search("редкая", PageParams.of(0, 10, cursor))));
+    }
+
+    @Test
+    void saveAll_ShouldKeepPreassignedIdsAcrossColumnChunks() {
+        List<Item> batch = new ArrayList<>();
+        for (int i = 0; i < 70_000; i++) {
+            Item item = item("Вещь " + i, "Пакет", true, null);
+            item.setId(repository.nextId());
+            batch.add(item);
+        }
+        repository.saveAll(batch);
+
+        assertEquals(70_000, repository.size());
+        assertEquals("Вещь 69999", repository.findById(70_000L).getName());
+        assertEquals(List.of(65_537L), ids(repository.search("вещь 65536", ALL)));
+        assertEquals(70_001L, repository.save(item("Новая", null, true, null)).getId());
+    }
+
+    @Test
+    void update_ShouldBumpVersionAndRejectStaleExpectedVersion() {
+        Item item = save("Дрель", "Простая дрель", true);
+        assertEquals(1, item.getVersion());
+
+        ItemPatch patch = new ItemPatch();
+        patch.setId(item.getId());
+        patch.setName("Пила");
+        patch.setAvailable(true);
+        patch.setVersion(1);
+        assertEquals(2, repository.update(patch).getVersion());
+
+        patch.setName("Лестница");
+        assertThrows(PreconditionFailedException.class, () -> repository.update(patch));
+        assertEquals("Пила", repository.findById(item.getId()).getName());
+
+        patch.setVersion(0);
+        assertEquals(3, repository.update(patch).getVersion());
+    }
+
+    @Test
+    void saveAndDelete_WhenCalledFromManyThreads_ShouldKeepIndexesConsistent() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long ownerId = t + 1;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        Item item = item("Вещь " + ownerId, "Параллельная", true, null);
+                        item.setOwnerId(ownerId);
+                        repository.save(item);
+                        if (i % 2 == 0) {
+                            repository.deleteByUserIdAndItemId(ownerId, item.getId());
+                        }
+                        repository.search("параллельная", PageParams.of(0, 10, null));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (long ownerId = 1; ownerId <= threads; ownerId++) {
+            assertEquals(perThread / 2, repository.findByOwnerId(ownerId, ALL).size());
+        }
+        assertEquals(perThread / 2, repository.search("вещь 3", ALL).size());
+    }
+
+    private Item save(String name, String description, boolean available) {
+        return save(name, description, available, null);
+    }
+
+    private Item save(String name, String description, boolean available, Long requestId) {
+        return repository.save(item(name, description, available, requestId));
+    }
+
+    private static Item item(String name, String description, boolean available, Long requestId) {
+        Item item = new Item();
+        item.setRequestId(requestId);
+        item.setOwnerId(1L);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        return item;
+    }
+
+    private static List<Long> ids(Collection<Item> items) {
+        return items.stream()
+                .map(Item::getId)
+                .sorted()
+                .toList();
+    }
+}
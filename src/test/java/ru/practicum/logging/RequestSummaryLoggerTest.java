@@ -0,0 +1,52 @@
+package ru.practicum.logging;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import ru.practicum.shareit.logging.RequestSummaryLogger;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestSummaryLoggerTest {
+    private final Logger logger = (Logger) LoggerFactory.getLogger(RequestSummaryLogger.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attach() {
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detach() {
+        logger.detachAppender(appender);
+    }
+
+    @Test
+    void record_ShouldWriteOneStructuredLine() {
+        new RequestSummaryLogger(1, 500).record("GET", "/items/1", 200, "7", TimeUnit.MICROSECONDS.toNanos(420));
+
+        assertEquals(1, appender.list.size());
+        assertEquals("method=GET uri=/items/1 status=200 user=7 timeUs=420",
+                appender.list.get(0).getFormattedMessage());
+    }
+
+    @Test
+    void record_WhenSamplingIsOff_ShouldWriteOnlyServerErrorsAndSlowRequests() {
+        RequestSummaryLogger summary = new RequestSummaryLogger(0, 500);
+
+        for (int i = 0; i < 1_000; i++) {
+            summary.record("GET", "/items", 200, "1", TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        summary.record("GET", "/items", 500, "1", TimeUnit.MILLISECONDS.toNanos(1));
+        summary.record("GET", "/items", 200, "1", TimeUnit.MILLISECONDS.toNanos(600));
+
+        assertEquals(2, appender.list.size());
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.repository.ItemRepositoryImpl;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.metrics.TimedComponentsPostProcessor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimedComponentsPostProcessorTest {
+
+    @Test
+    void repositoryMethods_ShouldBeTimedByMethodAndException() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+            context.register(TimedComponentsPostProcessor.class, ItemRepositoryImpl.class);
+            context.refresh();
+            MeterRegistry registry = context.getBean(MeterRegistry.class);
+            ItemRepositoryImpl repository = (ItemRepositoryImpl) context.getBean(ItemRepository.class);
+
+            Item item = new Item();
+            item.setOwnerId(1L);
+            item.setName("Дрель");
+            item.setDescription("Простая дрель");
+            item.setAvailable(true);
+            repository.save(item);
+            repository.findById(item.getId());
+            assertThrows(NotFoundException.class, () -> repository.findById(404L));
+            repository.bindTo(registry);
+
+            assertEquals(1, timer(registry, "save", "none").count());
+            assertEquals(1, timer(registry, "findById", "none").count());
+            assertEquals(1, timer(registry, "findById", "NotFoundException").count());
+            assertNull(registry.find(ShareItMetrics.REPOSITORY_TIMER).tag("method", "bindTo").timer());
+            assertEquals(1, registry.get(ShareItMetrics.STORE_SIZE).tag("store", "items").gauge().value());
+            assertEquals(1, registry.get(ShareItMetrics.INDEX_SIZE).tag("index", "items.owner").gauge().value());
+        }
+    }
+
+    private static Timer timer(MeterRegistry registry, String method, String exception) {
+        return registry.get(ShareItMetrics.REPOSITORY_TIMER)
+                .tag("class", "ItemRepositoryImpl")
+                .tag("method", method)
+                .tag("exception", exception)
+                .timer();
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.practicum.shareit.exceptions.ServiceOverloadedException;
+import ru.practicum.shareit.exceptions.TooManyRequestsException;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.ratelimit.RateLimitInterceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitInterceptorTest {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @Test
+    void preHandle_ShouldAllowBurstPerUserAndGroupThenReject() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(0);
+
+        for (int i = 0; i < 3; i++) {
+            handle(interceptor, request("GET", "/items/search", "1"));
+        }
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("GET", "/items/search", "1"), response, null));
+
+        // Другой пользователь и другие группы того же пользователя считаются отдельно
+        handle(interceptor, request("GET", "/items/search", "2"));
+        handle(interceptor, request("GET", "/items/1", "1"));
+        handle(interceptor, request("POST", "/items", "1"));
+        // Без заголовка пользователя остается только общий предел
+        for (int i = 0; i < 10; i++) {
+            handle(interceptor, request("POST", "/users", null));
+        }
+
+        assertEquals(1, registry.get(ShareItMetrics.RATE_LIMIT_REJECTED).tag("group", "search").counter().count());
+        assertEquals(2, registry.get(ShareItMetrics.RATE_LIMIT_BUCKETS).tag("group", "search").gauge().value());
+    }
+
+    @Test
+    void preHandle_WhenSearchPathIsDisguised_ShouldStillUseSearchBucket() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(0);
+        MockHttpServletRequest matched = request("GET", "/items/search", "1");
+        matched.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/items/search");
+
+        handle(interceptor, matched);
+        handle(interceptor, request("GET", "/items/search/", "1"));
+        handle(interceptor, request("GET", "/items/search;text=drill", "1"));
+
+        assertThrows(TooManyRequestsException.class,
+                () -> interceptor.preHandle(request("GET", "/items/search//", "1"), response, null));
+        handle(interceptor, request("GET", "/items/searches", "1"));
+    }
+
+    @Test
+    void constructor_WhenRateIsNotPositiveOrBurstOverflows_ShouldFail() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimitInterceptor(registry, true, 0, 3, 20, 40, 100, 200, 60_000, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimitInterceptor(registry, true, 10, 20, -1, 40, 100, 200, 60_000, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new RateLimitInterceptor(registry, true, 10, 20, 20, 40, 1e-9, Integer.MAX_VALUE, 60_000, 0));
+    }
+
+    @Test
+    void evictIdleBuckets_ShouldForgetOnlyFullBuckets() throws Exception {
+        RateLimitInterceptor interceptor = new RateLimitInterceptor(registry, true, 0.001, 3, 20, 40, 100, 200,
+                0, 0);
+        handle(interceptor, request("GET", "/items/search", "1"));
+        handle(interceptor, request("GET", "/items/1", "1"));
+        // Чтение на 100 запросах в секунду возвращает токен через 10 мс, поиск - только через 1000 с
+        Thread.sleep(50);
+
+        interceptor.evictIdleBuckets();
+
+        assertEquals(1, registry.get(ShareItMetrics.RATE_LIMIT_BUCKETS).tag("group", "search").gauge().value());
+        assertEquals(0, registry.get(ShareItMetrics.RATE_LIMIT_BUCKETS).tag("group", "read").gauge().value());
+    }
+
+    @Test
+    void preHandle_WhenTooManyInFlight_ShouldShedUntilRequestsComplete() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(2);
+        List<MockHttpServletRequest> inFlight = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = request("GET", "/items/1", Integer.toString(i));
+            assertTrue(interceptor.preHandle(request, response, null));
+            inFlight.add(request);
+        }
+
+        assertThrows(ServiceOverloadedException.class,
+                () -> interceptor.preHandle(request("GET", "/items/1", "3"), response, null));
+        assertEquals(2, registry.get(ShareItMetrics.CONCURRENCY_IN_FLIGHT).gauge().value());
+
+        interceptor.afterCompletion(inFlight.get(0), response, null, null);
+        handle(interceptor, request("GET", "/items/1", "3"));
+        assertEquals(1, registry.get(ShareItMetrics.CONCURRENCY_REJECTED).counter().count());
+    }
+
+    // Поиск: 1 запрос в секунду с запасом 3, чтобы тест не зависел от скорости машины
+    private RateLimitInterceptor interceptor(int maxInFlight) {
+        return new RateLimitInterceptor(registry, true, 1, 3, 20, 40, 100, 200, 60_000, maxInFlight);
+    }
+
+    private void handle(RateLimitInterceptor interceptor, MockHttpServletRequest request) throws Exception {
+        assertTrue(interceptor.preHandle(request, response, null));
+        interceptor.afterCompletion(request, response, null, null);
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.request;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepositoryImpl;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemRequestRepositoryImplTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+
+    private final ItemRequestRepositoryImpl repository = new ItemRequestRepositoryImpl();
+
+    @Test
+    void findByRequesterAndOthers_ShouldReturnNewestFirst() {
+        ItemRequest oldOwn = save(1L, 1);
+        ItemRequest foreign = save(2L, 2);
+        ItemRequest newOwn = save(1L, 3);
+        ItemRequest earlyForeign = save(3L, 0);
+
+        assertEquals(List.of(newOwn.getId(), oldOwn.getId()), ids(repository.findByRequesterId(1L, ALL)));
+        assertEquals(List.of(foreign.getId(), earlyForeign.getId()),
+                ids(repository.findAllExceptRequester(1L, ALL)));
+        assertEquals(List.of(newOwn.getId(), foreign.getId(), oldOwn.getId()),
+                ids(repository.findAllExceptRequester(3L, ALL)));
+        assertTrue(repository.findByRequesterId(4L, ALL).isEmpty());
+
+        repository.deleteRequestBuId(newOwn.getId());
+        assertEquals(List.of(oldOwn.getId()), ids(repository.findByRequesterId(1L, ALL)));
+        assertEquals(List.of(foreign.getId(), oldOwn.getId()), ids(repository.findAllExceptRequester(3L, ALL)));
+    }
+
+    @Test
+    void findByRequesterId_ShouldContinueAfterCursor() {
+        for (int i = 0; i < 5; i++) {
+            save(1L, i);
+        }
+
+        assertEquals(List.of(5L, 4L), ids(repository.findByRequesterId(1L, PageParams.of(0, 2, null))));
+        assertEquals(List.of(3L, 2L), ids(repository.findByRequesterId(1L,
+                PageParams.of(0, 2, PageParams.encodeCursor(4L)))));
+        assertEquals(List.of(1L), ids(repository.findAllExceptRequester(2L,
+                PageParams.of(1, 2, PageParams.encodeCursor(3L)))));
+        assertThrows(ValidationException.class,
+                () -> repository.findByRequesterId(1L, PageParams.of(0, 2, PageParams.encodeCursor(99L))));
+    }
+
+    private ItemRequest save(Long requesterId, int createdHours) {
+        UserResponseDto requester = new UserResponseDto();
+        requester.setId(requesterId);
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setDescription("Нужна дрель");
+        itemRequest.setRequester(requester);
+        itemRequest.setCreated(BASE.plusHours(createdHours));
+        return repository.save(itemRequest);
+    }
+
+    private static List<Long> ids(Collection<ItemRequest> itemRequests) {
+        return itemRequests.stream()
+                .map(ItemRequest::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.scheduling;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.scheduling.HashedTimingWheel;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void advance_ShouldFireTasksOnlyWhenTheirTickPasses() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(8, 100);
+
+        assertTrue(wheel.schedule(103, "скоро"));
+        assertTrue(wheel.schedule(111, "через оборот"));
+        assertTrue(wheel.schedule(1_000, "через много оборотов"));
+        assertFalse(wheel.schedule(100, "уже прошло"));
+
+        assertTrue(wheel.advance(102).isEmpty());
+        assertEquals(List.of("скоро"), wheel.advance(104));
+        assertTrue(wheel.advance(110).isEmpty());
+        assertEquals(List.of("через оборот"), wheel.advance(111));
+        assertEquals(1, wheel.size());
+        assertFalse(wheel.schedule(111, "уже прошло"));
+    }
+
+    @Test
+    void advance_WhenJumpingManyRevolutions_ShouldVisitEachSlotOnce() {
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(16, 0);
+        for (int i = 1; i <= 1_000; i++) {
+            wheel.schedule(i * 37L, i);
+        }
+
+        List<Integer> fired = wheel.advance(18_500);
+
+        assertEquals(500, fired.size());
+        assertTrue(fired.stream().allMatch(i -> i * 37L <= 18_500));
+        assertEquals(500, wheel.size());
+        assertEquals(500, wheel.advance(Long.MAX_VALUE / 2).size());
+    }
+}
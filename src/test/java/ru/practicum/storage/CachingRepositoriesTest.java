@@ -0,0 +1,163 @@
+package ru.practicum.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.item.repository.CachingItemRepository;
+import ru.practicum.shareit.item.repository.JdbcItemRepository;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.CachingUserRepository;
+import ru.practicum.shareit.user.repository.JdbcUserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingRepositoriesTest {
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+
+    private final TestDatabase database = new TestDatabase();
+    private final JdbcTemplate jdbcTemplate = database.jdbcTemplate();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AutoCloseable> opened = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() throws Exception {
+        for (AutoCloseable closeable : opened) {
+            closeable.close();
+        }
+        database.close();
+    }
+
+    @Test
+    void findById_ShouldReadThroughOnceAndReloadAfterUpdateAndDelete() {
+        CachingUserRepository users = users(false, 1_000);
+        User user = saveUser(users, "john@example.com");
+        jdbcTemplate.update("UPDATE users SET name = 'Изменено в обход кэша' WHERE id = ?", user.getId());
+
+        assertEquals("john", users.findById(user.getId()).getName());
+        assertTrue(users.existsById(user.getId()));
+
+        User patch = new User();
+        patch.setId(user.getId());
+        patch.setName("Джон");
+        users.update(patch);
+        assertEquals("Джон", users.findById(user.getId()).getName());
+        assertEquals("Джон", users.findById(user.getId()).getName());
+
+        users.deleteById(user.getId());
+        assertThrows(NotFoundException.class, () -> users.findById(user.getId()));
+        assertFalse(users.existsById(user.getId()));
+
+        assertEquals(3.0, gets("users", "hit"));
+        assertEquals(3.0, gets("users", "miss"));
+    }
+
+    @Test
+    void findById_WhenTtlPassed_ShouldReloadRowChangedOutsideCache() throws InterruptedException {
+        CachingUserRepository users = users(false, 1_000, 1);
+        User user = saveUser(users, "john@example.com");
+        jdbcTemplate.update("UPDATE users SET name = 'Изменено в обход кэша' WHERE id = ?", user.getId());
+        assertEquals("john", users.findById(user.getId()).getName());
+
+        Thread.sleep(1_100);
+
+        assertEquals("Изменено в обход кэша", users.findById(user.getId()).getName());
+    }
+
+    @Test
+    void deleteByOwnerId_ShouldDropCachedItemsOfOwner() {
+        CachingItemRepository items = items(false, 1_000);
+        Item first = saveItem(items, 1L, "Дрель");
+        Item foreign = saveItem(items, 2L, "Пила");
+        items.findById(first.getId());
+        items.findById(foreign.getId());
+
+        items.deleteByOwnerId(1L);
+
+        assertThrows(NotFoundException.class, () -> items.findById(first.getId()));
+        assertEquals("Пила", items.findById(foreign.getId()).getName());
+    }
+
+    @Test
+    void writeBehind_ShouldServePendingEntitiesAndWriteThemInBatches() {
+        CachingUserRepository users = users(true, 2);
+        CachingItemRepository items = items(true, 100);
+        User owner = saveUser(users, "owner@example.com");
+        User other = saveUser(users, "other@example.com");
+        Item drill = saveItem(items, owner.getId(), "Дрель");
+        saveItem(items, owner.getId(), "Пила");
+
+        assertEquals("Дрель", items.findById(drill.getId()).getName());
+        assertEquals(0, count("items"));
+
+        assertEquals(2, items.findByOwnerId(owner.getId(), ALL).size());
+        assertEquals(2, count("items"));
+        assertEquals(List.of(owner.getId(), other.getId()), users.findAll(ALL).stream().map(User::getId).toList());
+        assertEquals(2, count("user_emails"));
+        assertFalse(users.reserveEmail("OWNER@example.com", 999L));
+
+        ItemPatch patch = new ItemPatch();
+        patch.setId(saveItem(items, owner.getId(), "Лестница").getId());
+        patch.setName("Стремянка");
+        patch.setAvailable(true);
+        assertEquals("Стремянка", items.update(patch).getName());
+    }
+
+    private CachingUserRepository users(boolean writeBehind, int batchSize) {
+        return users(writeBehind, batchSize, 600);
+    }
+
+    private CachingUserRepository users(boolean writeBehind, int batchSize, long ttlSeconds) {
+        CachingUserRepository users = new CachingUserRepository(new JdbcUserRepository(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())), 50, 500),
+                meterRegistry, 1 << 20, ttlSeconds, writeBehind, batchSize, 60_000, 5);
+        opened.add(users::close);
+        return users;
+    }
+
+    private CachingItemRepository items(boolean writeBehind, int batchSize) {
+        CachingItemRepository items = new CachingItemRepository(new JdbcItemRepository(jdbcTemplate, 50, 500),
+                meterRegistry, 1 << 20, 600, writeBehind, batchSize, 60_000, 5);
+        opened.add(items::close);
+        return items;
+    }
+
+    private static User saveUser(CachingUserRepository users, String email) {
+        User user = new User();
+        user.setId(users.nextId());
+        user.setEmail(email);
+        user.setName(email.substring(0, email.indexOf('@')));
+        assertTrue(users.reserveEmail(email, user.getId()));
+        return users.save(user);
+    }
+
+    private static Item saveItem(CachingItemRepository items, Long ownerId, String name) {
+        Item item = new Item();
+        item.setOwnerId(ownerId);
+        item.setName(name);
+        item.setDescription(name + " в аренду");
+        item.setAvailable(true);
+        return items.save(item);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", cache)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
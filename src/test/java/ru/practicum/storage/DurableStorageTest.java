@@ -0,0 +1,355 @@
+package ru.practicum.storage;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepositoryImpl;
+import ru.practicum.shareit.exceptions.BookingConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.item.repository.ItemRepositoryImpl;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.ItemRequestRepositoryImpl;
+import ru.practicum.shareit.storage.journal.DurableStorage;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.InMemoryUserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableStorageTest {
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+    private static final List<Class<?>> MUTED = List.of(InMemoryUserRepository.class, ItemRepositoryImpl.class,
+            BookingRepositoryImpl.class);
+    private static final List<Level> previousLevels = new ArrayList<>();
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    private Node node;
+
+    @BeforeAll
+    static void muteRepositoryLog() {
+        for (Class<?> type : MUTED) {
+            Logger logger = (Logger) LoggerFactory.getLogger(type);
+            previousLevels.add(logger.getLevel());
+            logger.setLevel(Level.WARN);
+        }
+    }
+
+    @AfterAll
+    static void restoreRepositoryLog() {
+        for (int i = 0; i < MUTED.size(); i++) {
+            ((Logger) LoggerFactory.getLogger(MUTED.get(i))).setLevel(previousLevels.get(i));
+        }
+    }
+
+    @AfterEach
+    void shutdown() throws IOException {
+        if (node != null) {
+            node.storage.close();
+        }
+    }
+
+    @Test
+    void restart_ShouldRestoreEntitiesAndSecondaryIndexesFromLog() throws IOException {
+        node = start(true);
+        User owner = saveUser("owner@example.com");
+        User booker = saveUser("booker@example.com");
+        Item drill = saveItem(owner, "Дрель", 10L);
+        Item saw = saveItem(owner, "Пила", null);
+        ItemRequest request = saveRequest(booker);
+        Booking booking = saveBooking(drill, booker, 10, 20);
+        node.bookings.updateStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.APPROVED);
+        ItemPatch patch = new ItemPatch();
+        patch.setId(saw.getId());
+        patch.setName("Ножовка");
+        patch.setAvailable(false);
+        node.items.update(patch);
+        User removed = saveUser("removed@example.com");
+        node.users.deleteById(removed.getId());
+
+        node = restart(true);
+
+        assertEquals(List.of(owner.getId(), booker.getId()), userIds(node.users.findAll(ALL)));
+        assertEquals(LocalDate.of(1990, 1, 1), node.users.findById(owner.getId()).getBirthday());
+        assertFalse(node.users.reserveEmail("OWNER@example.com", removed.getId()));
+        assertTrue(node.users.reserveEmail("removed@example.com", removed.getId()));
+        assertTrue(node.users.nextId() > removed.getId());
+
+        assertEquals(List.of(drill.getId()), itemIds(node.items.search("дрел", ALL)));
+        assertTrue(node.items.search("ножовка", ALL).isEmpty());
+        assertEquals("Ножовка", node.items.findById(saw.getId()).getName());
+        assertEquals(List.of(drill.getId(), saw.getId()), itemIds(node.items.findByOwnerId(owner.getId(), ALL)));
+        assertEquals(1, node.items.findByRequestIds(List.of(10L)).get(10L).size());
+
+        assertEquals(request.getDescription(), node.requests.getById(request.getId()).getDescription());
+        assertEquals(1, node.requests.findByRequesterId(booker.getId(), ALL).size());
+
+        Booking restored = node.bookings.getById(booking.getId());
+        assertEquals(BookingStatus.APPROVED, restored.getStatus());
+        assertEquals(booking.getStart(), restored.getStart());
+        assertEquals("Дрель", restored.getItem().getName());
+        assertEquals(booking.getId(), node.bookings.findNextBooking(drill.getId()).getId());
+        assertEquals(1, node.bookings.findByOwnerId(owner.getId(), BookingState.FUTURE, ALL).size());
+        assertThrows(BookingConflictException.class, () -> saveBooking(drill, booker, 15, 25));
+    }
+
+    @Test
+    void snapshot_ShouldCompactOldGenerationsAndKeepLaterChanges() throws IOException {
+        node = start(false);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(saveUser("user" + i + "@example.com"));
+        }
+        node.storage.snapshot();
+        for (int i = 0; i < 50; i++) {
+            node.users.deleteById(users.get(i).getId());
+        }
+        User renamed = new User();
+        renamed.setId(users.get(99).getId());
+        renamed.setName("Переименован");
+        node.users.update(renamed);
+        node.storage.snapshot();
+        User late = saveUser("late@example.com");
+
+        node = restart(false);
+
+        assertEquals(List.of("snapshot-3.bin", "wal-3.log"), fileNames());
+        Collection<User> restored = node.users.findAll(ALL);
+        assertEquals(51, restored.size());
+        assertEquals("Переименован", node.users.findById(users.get(99).getId()).getName());
+        assertEquals(late.getId(), node.users.findById(late.getId()).getId());
+        assertTrue(node.users.nextId() > late.getId());
+    }
+
+    @Test
+    void restart_WhenLogTailIsTorn_ShouldKeepWholeRecordsAndContinueLog() throws IOException {
+        node = start(true);
+        User first = saveUser("first@example.com");
+        User second = saveUser("second@example.com");
+        node.storage.close();
+        Path log = directory.resolve("wal-1.log");
+        Files.write(log, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        node = start(true);
+        assertEquals(List.of(first.getId(), second.getId()), userIds(node.users.findAll(ALL)));
+        User third = saveUser("third@example.com");
+
+        node = restart(true);
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()), userIds(node.users.findAll(ALL)));
+    }
+
+    @Test
+    void save_WhenManyThreadsWriteWithFsync_ShouldPersistEveryAcknowledgedEntity() throws Exception {
+        node = start(true);
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        saveUser("user" + thread + "-" + i + "@example.com");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        node = restart(true);
+        assertEquals(threads * perThread, node.users.findAll(PageParams.of(0, PageParams.MAX_SIZE, null)).size()
+                + node.users.findAll(PageParams.of(PageParams.MAX_SIZE, PageParams.MAX_SIZE, null)).size());
+    }
+
+    @Test
+    void save_WhenVirtualThreadsWaitForFsync_ShouldNotPinCarrierThreads() throws Exception {
+        node = start(true);
+        User owner = saveUser("owner@example.com");
+        User booker = saveUser("booker@example.com");
+        Item drill = saveItem(owner, "Дрель", null);
+        List<String> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> pinned.add(event.getStackTrace().getFrames().stream()
+                    .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                    .collect(Collectors.joining(" <- "))));
+            recording.startAsync();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 200; i++) {
+                    int slot = i;
+                    executor.submit(() -> {
+                        saveItem(owner, "Вещь " + slot, null);
+                        try {
+                            saveBooking(drill, booker, slot * 10, slot * 10 + 5);
+                        } catch (BookingConflictException ignored) {
+                            // Конфликты здесь не важны, проверяется только ожидание блокировок и fsync
+                        }
+                    });
+                }
+                // Контрольное закрепление: без него отсутствие событий ничего бы не доказывало
+                Object monitor = new Object();
+                executor.submit(() -> {
+                    synchronized (monitor) {
+                        Thread.sleep(5);
+                    }
+                    return null;
+                });
+            }
+            recording.stop();
+        }
+
+        assertEquals(201, node.items.findByOwnerId(owner.getId(), ALL).size());
+        assertTrue(pinned.stream().anyMatch(stack -> stack.contains(DurableStorageTest.class.getName())));
+        assertEquals(List.of(), pinned.stream().filter(stack -> stack.contains("ru.practicum.shareit.")).toList());
+    }
+
+    @Test
+    void restart_ShouldLoadEveryEntityFromSnapshot() throws IOException {
+        int size = 5_000;
+        node = start(false);
+        List<User> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            batch.add(user);
+        }
+        node.users.saveAll(batch);
+        node.storage.snapshot();
+        node.storage.close();
+
+        node = start(false);
+
+        assertEquals(size, node.users.store().size());
+        assertTrue(node.users.existsByEmail("user" + (size - 1) + "@example.com"));
+        assertEquals("user0", node.users.findById(1L).getName());
+    }
+
+    private Node start(boolean fsync) throws IOException {
+        Node started = new Node(new InMemoryUserRepository(), new ItemRepositoryImpl(), new BookingRepositoryImpl(),
+                new ItemRequestRepositoryImpl(), fsync, directory);
+        started.storage.start();
+        return started;
+    }
+
+    private Node restart(boolean fsync) throws IOException {
+        node.storage.close();
+        return start(fsync);
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setId(node.users.nextId());
+        user.setEmail(email);
+        user.setName(email.substring(0, email.indexOf('@')));
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        node.users.reserveEmail(email, user.getId());
+        return node.users.save(user);
+    }
+
+    private Item saveItem(User owner, String name, Long requestId) {
+        Item item = new Item();
+        item.setOwnerId(owner.getId());
+        item.setName(name);
+        item.setDescription(name + " в аренду");
+        item.setAvailable(true);
+        item.setRequestId(requestId);
+        return node.items.save(item);
+    }
+
+    private ItemRequest saveRequest(User requester) {
+        UserResponseDto requesterDto = new UserResponseDto();
+        requesterDto.setId(requester.getId());
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setDescription("Нужна дрель");
+        itemRequest.setRequester(requesterDto);
+        return node.requests.save(itemRequest);
+    }
+
+    private Booking saveBooking(Item item, User booker, int startMinutes, int endMinutes) {
+        UserResponseDto bookerDto = new UserResponseDto();
+        bookerDto.setId(booker.getId());
+        bookerDto.setName(booker.getName());
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(bookerDto);
+        booking.setStart(now.plusMinutes(startMinutes));
+        booking.setEnd(now.plusMinutes(endMinutes));
+        return node.bookings.save(booking);
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static List<Long> userIds(Collection<User> users) {
+        return users.stream()
+                .map(User::getId)
+                .toList();
+    }
+
+    private static List<Long> itemIds(Collection<Item> items) {
+        return items.stream()
+                .map(Item::getId)
+                .toList();
+    }
+
+    private static final class Node {
+        private final InMemoryUserRepository users;
+        private final ItemRepositoryImpl items;
+        private final BookingRepositoryImpl bookings;
+        private final ItemRequestRepositoryImpl requests;
+        private final DurableStorage storage;
+
+        private Node(InMemoryUserRepository users, ItemRepositoryImpl items, BookingRepositoryImpl bookings,
+                     ItemRequestRepositoryImpl requests, boolean fsync, Path directory) {
+            this.users = users;
+            this.items = items;
+            this.bookings = bookings;
+            this.requests = requests;
+            this.storage = new DurableStorage(List.of(users, items, bookings, requests), directory, fsync);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ru.practicum.storage;
+
+import lombok.Data;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.storage.EntityStore;
+import ru.practicum.shareit.storage.Versioned;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityStoreStressTest {
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 20_000;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 2);
+    private final EntityStore<Counter> store = new EntityStore<>(Counter::copy);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void insert_WhenCalledFromManyThreads_ShouldNotLoseEntities() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                store.insert(new Counter());
+            }
+        });
+
+        assertEquals(THREADS * OPERATIONS, store.size());
+        Set<Long> ids = store.stream(null).map(Counter::getId).collect(Collectors.toSet());
+        assertEquals(THREADS * OPERATIONS, ids.size());
+        assertEquals(THREADS * OPERATIONS, (long) store.stream(null).reduce((a, b) -> b).orElseThrow().getId());
+    }
+
+    @Test
+    void update_WhenSameEntityIsChangedInParallel_ShouldNotLoseUpdates() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ids.add(store.insert(new Counter()).getId());
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                store.update(ids.get(i % ids.size()), counter -> {
+                    counter.setFirst(counter.getFirst() + 1);
+                    counter.setSecond(counter.getSecond() + 1);
+                });
+            }
+        });
+
+        int total = ids.stream().mapToInt(id -> store.get(id).getFirst()).sum();
+        assertEquals(THREADS * OPERATIONS, total);
+        ids.forEach(id -> assertEquals(store.get(id).getFirst(), store.get(id).getSecond()));
+    }
+
+    @Test
+    void read_WhileEntityIsChanged_ShouldSeeConsistentState() throws Exception {
+        Long id = store.insert(new Counter()).getId();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger tornReads = new AtomicInteger();
+        Future<?> reader = executor.submit(() -> {
+            while (running.get()) {
+                Boolean consistent = store.read(id, counter -> counter.getFirst() == counter.getSecond());
+                if (!consistent) {
+                    tornReads.incrementAndGet();
+                }
+            }
+        });
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                store.update(id, counter -> {
+                    counter.setFirst(counter.getFirst() + 1);
+                    Thread.onSpinWait();
+                    counter.setSecond(counter.getSecond() + 1);
+                });
+            }
+        });
+        running.set(false);
+        reader.get(10, TimeUnit.SECONDS);
+
+        assertEquals(0, tornReads.get());
+        assertEquals(THREADS * OPERATIONS, store.get(id).getFirst());
+    }
+
+    @Test
+    void insertAndRemove_WhenInterleaved_ShouldKeepOnlySurvivors() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                Counter counter = store.insert(new Counter());
+                if (i % 2 == 0) {
+                    assertNotNull(store.remove(counter.getId()));
+                }
+            }
+        });
+
+        assertEquals(THREADS * OPERATIONS / 2, store.size());
+        assertEquals(store.size(), store.stream(null).count());
+    }
+
+    private void runConcurrently(Worker worker) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private interface Worker {
+        void run(int thread);
+    }
+
+    @Data
+    private static class Counter implements Versioned {
+        private Long id;
+        private long version;
+        private int first;
+        private int second;
+
+        Counter copy() {
+            Counter copy = new Counter();
+            copy.setId(id);
+            copy.setVersion(version);
+            copy.setFirst(first);
+            copy.setSecond(second);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package ru.practicum.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.JdbcItemRepository;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.request.model.ItemRequest;
+import ru.practicum.shareit.request.repository.JdbcItemRequestRepository;
+import ru.practicum.shareit.storage.SequenceIdAllocator;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.JdbcUserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcRepositoriesTest {
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+
+    private final TestDatabase database = new TestDatabase();
+    private final JdbcTemplate jdbcTemplate = database.jdbcTemplate();
+    private final JdbcUserRepository users = new JdbcUserRepository(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(database.dataSource())), 50, 500);
+    private final JdbcItemRepository items = new JdbcItemRepository(jdbcTemplate, 50, 500);
+    private final JdbcItemRequestRepository requests = new JdbcItemRequestRepository(jdbcTemplate, 50);
+
+    @AfterEach
+    void shutdown() {
+        database.close();
+    }
+
+    @Test
+    void sequenceIdAllocator_ShouldHandOutWholeBlockPerNextval() {
+        SequenceIdAllocator allocator = new SequenceIdAllocator(jdbcTemplate, "bookings_seq", 50);
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < 120; i++) {
+            ids.add(allocator.nextId());
+        }
+
+        assertEquals(120, ids.size());
+        assertEquals(151L, jdbcTemplate.queryForObject("SELECT nextval('bookings_seq')", Long.class));
+    }
+
+    @Test
+    void sequenceIdAllocator_WhenBlockSizeDiffersFromSequenceIncrement_ShouldFailFast() {
+        assertThrows(IllegalStateException.class, () -> new SequenceIdAllocator(jdbcTemplate, "users_seq", 100));
+        assertThrows(IllegalStateException.class, () -> new SequenceIdAllocator(jdbcTemplate, "no_such_seq", 50));
+    }
+
+    @Test
+    void users_ShouldSaveInBatchesAndReserveEmailsOnce() {
+        List<User> batch = new ArrayList<>();
+        for (int i = 0; i < 1_200; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            batch.add(user);
+        }
+        users.saveAll(batch);
+
+        assertEquals(1_200, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_emails", Integer.class));
+        assertEquals(200, users.findAll(PageParams.of(1_000, PageParams.MAX_SIZE, null)).size());
+        assertFalse(users.reserveEmail(" USER7@example.com ", 999L));
+        assertTrue(users.existsByEmailAndIdNot("user7@example.com", 999L));
+
+        User user = batch.get(7);
+        User patch = new User();
+        patch.setId(user.getId());
+        patch.setName("Новое имя");
+        assertEquals("user7@example.com", users.update(patch).getEmail());
+        assertEquals("Новое имя", users.findById(user.getId()).getName());
+
+        users.releaseEmail("user7@example.com", user.getId());
+        assertTrue(users.reserveEmail("user7@example.com", 999L));
+        users.deleteById(user.getId());
+        assertThrows(NotFoundException.class, () -> users.findById(user.getId()));
+    }
+
+    @Test
+    void users_WhenEmailChangesOrUserIsDeleted_ShouldReleaseReplacedEmail() {
+        User user = saveUser("a@example.com");
+        users.reserveEmail("a@example.com", user.getId());
+        assertTrue(users.reserveEmail("x@example.com", user.getId()));
+        assertTrue(users.reserveEmail("y@example.com", user.getId()));
+
+        User patch = new User();
+        patch.setId(user.getId());
+        patch.setEmail("x@example.com");
+        users.update(patch);
+        patch.setEmail("Y@example.com");
+        users.update(patch);
+
+        assertFalse(users.existsByEmail("a@example.com"));
+        assertFalse(users.existsByEmail("x@example.com"));
+        assertTrue(users.existsByEmail("y@example.com"));
+
+        users.deleteById(user.getId());
+        assertFalse(users.existsByEmail("y@example.com"));
+        assertThrows(NotFoundException.class, () -> users.deleteById(user.getId()));
+    }
+
+    @Test
+    void items_ShouldSearchPageAndGroupByRequest() {
+        Item drill = save("Дрель", "Простая дрель", true, 10L);
+        save("Дрель ударная", "Мощная", false, 10L);
+        Item ladder = save("Лестница", "Стремянка, не дрель 100%", true, 20L);
+
+        assertEquals(ids(drill, ladder), ids(items.search("ДРЕЛЬ", ALL)));
+        assertEquals(ids(ladder), ids(items.search("0%", ALL)));
+        String cursor = PageParams.encodeCursor(drill.getId());
+        assertEquals(ids(ladder), ids(items.search("дрель", PageParams.of(0, 10, cursor))));
+        assertTrue(items.search("_", ALL).isEmpty());
+        assertEquals(3, items.findByOwnerId(1L, ALL).size());
+
+        Map<Long, List<Item>> answers = items.findByRequestIds(List.of(10L, 20L, 30L));
+        assertEquals(2, answers.get(10L).size());
+        assertEquals(ids(ladder), ids(answers.get(20L)));
+        assertFalse(answers.containsKey(30L));
+
+        items.deleteByOwnerId(1L);
+        assertTrue(items.findByOwnerId(1L, ALL).isEmpty());
+    }
+
+    @Test
+    void requests_ShouldPageNewestFirstPerRequesterAndForOthers() {
+        User author = saveUser("author@example.com");
+        User other = saveUser("other@example.com");
+        LocalDateTime base = LocalDateTime.of(2030, 1, 1, 12, 0);
+        ItemRequest first = saveRequest(author, base);
+        ItemRequest second = saveRequest(other, base.plusHours(1));
+        ItemRequest third = saveRequest(author, base.plusHours(2));
+
+        assertEquals(List.of(third.getId(), first.getId()),
+                requestIds(requests.findByRequesterId(author.getId(), ALL)));
+        assertEquals(List.of(second.getId()), requestIds(requests.findAllExceptRequester(author.getId(), ALL)));
+        assertEquals(List.of(first.getId()), requestIds(requests.findByRequesterId(author.getId(),
+                PageParams.of(0, 10, PageParams.encodeCursor(third.getId())))));
+        assertEquals("author", requests.getById(first.getId()).getRequester().getName());
+
+        requests.deleteRequestBuId(first.getId());
+        assertThrows(NotFoundException.class, () -> requests.getById(first.getId()));
+    }
+
+    private Item save(String name, String description, boolean available, Long requestId) {
+        Item item = new Item();
+        item.setRequestId(requestId);
+        item.setOwnerId(1L);
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        return items.save(item);
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setName(email.substring(0, email.indexOf('@')));
+        user.setEmail(email);
+        return users.save(user);
+    }
+
+    private ItemRequest saveRequest(User requester, LocalDateTime created) {
+        UserResponseDto requesterDto = new UserResponseDto();
+        requesterDto.setId(requester.getId());
+        ItemRequest itemRequest = new ItemRequest();
+        itemRequest.setDescription("Нужна дрель");
+        itemRequest.setRequester(requesterDto);
+        itemRequest.setCreated(created);
+        return requests.save(itemRequest);
+    }
+
+    private static List<Long> ids(Item... saved) {
+        return ids(List.of(saved));
+    }
+
+    private static List<Long> ids(Collection<Item> saved) {
+        return saved.stream()
+                .map(Item::getId)
+                .toList();
+    }
+
+    private static List<Long> requestIds(Collection<ItemRequest> saved) {
+        return saved.stream()
+                .map(ItemRequest::getId)
+                .toList();
+    }
+}
@@ -0,0 +1,173 @@
+package ru.practicum.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingState;
+import ru.practicum.shareit.booking.model.BookingStatus;
+import ru.practicum.shareit.booking.repository.BookingRepositoryImpl;
+import ru.practicum.shareit.exceptions.BookingConflictException;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.model.ItemPatch;
+import ru.practicum.shareit.item.repository.ItemRepositoryImpl;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.storage.Versioned;
+import ru.practicum.shareit.storage.journal.StoreJournal;
+import ru.practicum.shareit.user.dto.UserResponseDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalFailureTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private static final PageParams ALL = PageParams.of(0, PageParams.MAX_SIZE, null);
+
+    private final ItemRepositoryImpl items = new ItemRepositoryImpl();
+    private final BookingRepositoryImpl bookings = new BookingRepositoryImpl();
+    private final FailingJournal<Item> itemJournal = new FailingJournal<>();
+    private final FailingJournal<Booking> bookingJournal = new FailingJournal<>();
+
+    JournalFailureTest() {
+        items.store().attachJournal(itemJournal);
+        bookings.store().attachJournal(bookingJournal);
+    }
+
+    @Test
+    void insert_WhenJournalRejectsWrite_ShouldNotPublishOrIndexEntity() {
+        itemJournal.failPut = true;
+
+        assertThrows(UncheckedIOException.class, () -> items.save(item("Дрель", 1L)));
+
+        assertEquals(0, items.store().size());
+        assertTrue(items.search("дрель", ALL).isEmpty());
+        assertTrue(items.findByOwnerId(1L, ALL).isEmpty());
+    }
+
+    @Test
+    void update_WhenJournalRejectsWrite_ShouldKeepPublishedEntityAndIndexes() {
+        Item item = items.save(item("Дрель", 1L));
+        itemJournal.failPut = true;
+
+        ItemPatch patch = new ItemPatch();
+        patch.setId(item.getId());
+        patch.setOwnerId(2L);
+        patch.setName("Пила");
+        assertThrows(UncheckedIOException.class, () -> items.update(patch));
+
+        Item stored = items.findById(item.getId());
+        assertEquals("Дрель", stored.getName());
+        assertEquals(1, stored.getVersion());
+        assertEquals(List.of(item.getId()), ids(items.search("дрель", ALL)));
+        assertTrue(items.search("пила", ALL).isEmpty());
+        assertEquals(List.of(item.getId()), ids(items.findByOwnerId(1L, ALL)));
+        assertTrue(items.findByOwnerId(2L, ALL).isEmpty());
+    }
+
+    @Test
+    void remove_WhenJournalRejectsWrite_ShouldKeepEntity() {
+        Item item = items.save(item("Дрель", 1L));
+        itemJournal.failPut = true;
+
+        assertThrows(UncheckedIOException.class, () -> items.deleteByUserIdAndItemId(1L, item.getId()));
+
+        assertEquals(item.getId(), items.findById(item.getId()).getId());
+        assertEquals(List.of(item.getId()), ids(items.search("дрель", ALL)));
+    }
+
+    @Test
+    void updateStatus_WhenJournalRejectsWrite_ShouldKeepBookingAndItsPeriod() {
+        Booking booking = bookings.save(booking(0, 2));
+        bookingJournal.failPut = true;
+
+        assertThrows(UncheckedIOException.class,
+                () -> bookings.updateStatus(booking.getId(), BookingStatus.WAITING, BookingStatus.APPROVED));
+
+        assertEquals(BookingStatus.WAITING, bookings.getById(booking.getId()).getStatus());
+        assertEquals(1, bookings.getById(booking.getId()).getVersion());
+        assertEquals(List.of(booking.getId()), ids(bookings.findByBookerId(2L, BookingState.WAITING, ALL)));
+        assertNull(bookings.findNextBooking(1L));
+        bookingJournal.failPut = false;
+        assertThrows(BookingConflictException.class, () -> bookings.save(booking(1, 3)));
+    }
+
+    // Сброс на диск не удался, когда изменение уже опубликовано: вызывающий получает ошибку,
+    // а в памяти остается новое состояние, которое может не пережить перезапуск
+    @Test
+    void update_WhenJournalAwaitFails_ShouldLeaveChangeVisible() {
+        Item item = items.save(item("Дрель", 1L));
+        itemJournal.failAwait = true;
+
+        ItemPatch patch = new ItemPatch();
+        patch.setId(item.getId());
+        patch.setName("Пила");
+        assertThrows(UncheckedIOException.class, () -> items.update(patch));
+
+        Item stored = items.findById(item.getId());
+        assertEquals("Пила", stored.getName());
+        assertEquals(2, stored.getVersion());
+        assertEquals(List.of(item.getId()), ids(items.search("пила", ALL)));
+    }
+
+    private static Item item(String name, Long ownerId) {
+        Item item = new Item();
+        item.setOwnerId(ownerId);
+        item.setName(name);
+        item.setDescription("Описание");
+        item.setAvailable(true);
+        return item;
+    }
+
+    private static Booking booking(int startHours, int endHours) {
+        Item item = new Item();
+        item.setId(1L);
+        item.setOwnerId(1L);
+        UserResponseDto booker = new UserResponseDto();
+        booker.setId(2L);
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStart(BASE.plusHours(startHours));
+        booking.setEnd(BASE.plusHours(endHours));
+        return booking;
+    }
+
+    private static List<Long> ids(Collection<? extends Versioned> entities) {
+        return entities.stream()
+                .map(Versioned::getId)
+                .toList();
+    }
+
+    private static class FailingJournal<T extends Versioned> implements StoreJournal<T> {
+        private boolean failPut;
+        private boolean failAwait;
+        private long appended;
+
+        @Override
+        public long put(T entity) {
+            return append();
+        }
+
+        @Override
+        public long delete(Long id) {
+            return append();
+        }
+
+        @Override
+        public void await(long ticket) {
+            if (failAwait) {
+                throw new UncheckedIOException("Журнал изменений недоступен", new IOException("Диск отказал"));
+            }
+        }
+
+        private long append() {
+            if (failPut) {
+                throw new UncheckedIOException("Журнал изменений недоступен", new IOException("Диск отказал"));
+            }
+            return ++appended;
+        }
+    }
+}
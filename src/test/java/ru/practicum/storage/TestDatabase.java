@@ -0,0 +1,34 @@
+package ru.practicum.storage;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.UUID;
+
+// Отдельная база H2 в режиме PostgreSQL со схемой приложения, как в профиле test
+public final class TestDatabase implements AutoCloseable {
+    private final JdbcDataSource dataSource = new JdbcDataSource();
+
+    public TestDatabase() {
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        dataSource.setUser("sa");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void close() {
+        jdbcTemplate().execute("SHUTDOWN");
+    }
+}
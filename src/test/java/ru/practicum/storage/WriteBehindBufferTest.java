@@ -0,0 +1,104 @@
+package ru.practicum.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import ru.practicum.shareit.metrics.ShareItMetrics;
+import ru.practicum.shareit.storage.cache.WriteBehindBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindBufferTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final List<String> dropped = new CopyOnWriteArrayList<>();
+    private final List<WriteBehindBuffer<String>> opened = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        opened.forEach(WriteBehindBuffer::close);
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldKeepEntityAndRetryIt() {
+        AtomicInteger failuresLeft = new AtomicInteger(2);
+        WriteBehindBuffer<String> buffer = buffer(batch -> {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("База недоступна");
+            }
+            written.addAll(batch);
+        }, 3);
+        buffer.add(1L, "первый");
+
+        buffer.flush();
+        assertEquals("первый", buffer.get(1L));
+        assertEquals(1, buffer.size());
+        assertEquals(1.0, counter(ShareItMetrics.WRITE_BEHIND_RETRIED));
+
+        buffer.flush();
+        assertEquals(List.of("первый"), written);
+        assertEquals(0, buffer.size());
+        assertEquals(0.0, counter(ShareItMetrics.WRITE_BEHIND_DROPPED));
+    }
+
+    @Test
+    void flush_WhenRetriesAreExhausted_ShouldDropAndReportEntities() {
+        WriteBehindBuffer<String> buffer = buffer(batch -> {
+            throw new IllegalStateException("База недоступна");
+        }, 2);
+        buffer.add(1L, "первый");
+        buffer.add(2L, "второй");
+
+        buffer.flush();
+        buffer.flush();
+        assertEquals(2, buffer.size());
+        buffer.flush();
+
+        assertEquals(0, buffer.size());
+        assertNull(buffer.get(1L));
+        assertEquals(List.of("первый", "второй"), dropped);
+        assertEquals(2.0, counter(ShareItMetrics.WRITE_BEHIND_DROPPED));
+        assertEquals(4.0, counter(ShareItMetrics.WRITE_BEHIND_RETRIED));
+    }
+
+    @Test
+    void flush_WhenBatchWasWrittenPartially_ShouldNotWriteAnyEntityTwice() {
+        WriteBehindBuffer<String> buffer = buffer(batch -> {
+            if (batch.size() > 1) {
+                written.add(batch.getFirst());
+                throw new IllegalStateException("Пакет оборван");
+            }
+            if (written.contains(batch.getFirst())) {
+                throw new DuplicateKeyException("Уже записано");
+            }
+            written.add(batch.getFirst());
+        }, 3);
+        buffer.add(1L, "первый");
+        buffer.add(2L, "второй");
+
+        buffer.flush();
+
+        assertEquals(List.of("первый", "второй"), written);
+        assertEquals(0, buffer.size());
+        assertEquals(0.0, counter(ShareItMetrics.WRITE_BEHIND_RETRIED));
+    }
+
+    // Фоновый поток с таким интервалом не вмешивается: пакеты пишутся только явным flush()
+    private WriteBehindBuffer<String> buffer(Consumer<List<String>> writer, int maxRetries) {
+        WriteBehindBuffer<String> buffer = new WriteBehindBuffer<>("test", writer, dropped::add, 100,
+                60_000, maxRetries, meterRegistry);
+        opened.add(buffer);
+        return buffer;
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("buffer", "test").counter().count();
+    }
+}
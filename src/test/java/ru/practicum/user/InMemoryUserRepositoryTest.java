@@ -0,0 +1,181 @@
+package ru.practicum.user;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.pagination.PageParams;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.InMemoryUserRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryUserRepositoryTest {
+    private final InMemoryUserRepository repository = new InMemoryUserRepository();
+
+    @Test
+    void reserveEmail_ShouldIgnoreCaseAndSurroundingSpaces() {
+        assertTrue(repository.reserveEmail("John@Example.com", 1L));
+
+        assertFalse(repository.reserveEmail(" john@example.COM ", 2L));
+        assertTrue(repository.reserveEmail("JOHN@example.com", 1L));
+        assertTrue(repository.existsByEmail("john@example.com"));
+        assertTrue(repository.existsByEmailAndIdNot("john@example.com", 2L));
+        assertFalse(repository.existsByEmailAndIdNot("john@example.com", 1L));
+    }
+
+    @Test
+    void releaseEmail_ShouldFreeEmailOnlyForItsOwner() {
+        repository.reserveEmail("john@example.com", 1L);
+
+        repository.releaseEmail("john@example.com", 2L);
+        assertTrue(repository.existsByEmail("john@example.com"));
+
+        repository.releaseEmail("John@example.com", 1L);
+        assertFalse(repository.existsByEmail("john@example.com"));
+        assertTrue(repository.reserveEmail("john@example.com", 2L));
+    }
+
+    @Test
+    void reserveEmail_WhenManyThreadsCompete_ShouldGrantExactlyOne() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                long userId = repository.nextId();
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return repository.reserveEmail("race@example.com", userId);
+                }));
+            }
+            start.countDown();
+
+            int granted = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    granted++;
+                }
+            }
+            assertEquals(1, granted);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void findAll_ShouldPageByOffsetAndCursorInIdOrder() {
+        for (int i = 0; i < 5; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            repository.save(user);
+        }
+        repository.deleteById(2L);
+
+        assertEquals(List.of(3L, 4L), ids(repository.findAll(PageParams.of(1, 2, null))));
+        assertEquals(List.of(4L, 5L), ids(repository.findAll(PageParams.of(0, 10, PageParams.encodeCursor(3L)))));
+        assertTrue(repository.findAll(PageParams.of(0, 10, PageParams.encodeCursor(5L))).isEmpty());
+    }
+
+    @Test
+    void findByIdAndDeleteById_ShouldWorkOnLargeRepository() {
+        for (int i = 0; i < 1_000; i++) {
+            User user = new User();
+            user.setName("user" + i);
+            user.setEmail("user" + i + "@example.com");
+            repository.save(user);
+        }
+        for (long id = 1; id <= 1_000; id++) {
+            assertEquals("user" + (id - 1), repository.findById(id).getName());
+        }
+
+        repository.deleteById(500L);
+
+        assertEquals(999, repository.findAll(PageParams.of(0, PageParams.MAX_SIZE, null)).size());
+        assertEquals(501L, repository.findById(501L).getId());
+    }
+
+    @Test
+    void update_ShouldBumpVersionAndRejectStaleExpectedVersion() {
+        User user = new User();
+        user.setName("John");
+        user.setEmail("john@example.com");
+        repository.save(user);
+        assertEquals(1, user.getVersion());
+
+        User patch = new User();
+        patch.setId(user.getId());
+        patch.setName("Jack");
+        patch.setVersion(1);
+        assertEquals(2, repository.update(patch).getVersion());
+
+        patch.setName("Jim");
+        assertThrows(PreconditionFailedException.class, () -> repository.update(patch));
+        assertEquals("Jack", repository.findById(user.getId()).getName());
+    }
+
+    // Две параллельные смены адреса a -> x и a -> y: оба адреса закреплены до изменений,
+    // и каждое изменение освобождает тот адрес, который оно действительно заменило
+    @Test
+    void update_WhenEmailChangesInterleave_ShouldKeepOnlyStoredEmailReserved() {
+        User user = new User();
+        user.setEmail("a@example.com");
+        repository.save(user);
+        repository.reserveEmail("a@example.com", user.getId());
+        assertTrue(repository.reserveEmail("x@example.com", user.getId()));
+        assertTrue(repository.reserveEmail("y@example.com", user.getId()));
+
+        User first = new User();
+        first.setId(user.getId());
+        first.setEmail("x@example.com");
+        repository.update(first);
+        User second = new User();
+        second.setId(user.getId());
+        second.setEmail("Y@example.com");
+        repository.update(second);
+
+        assertFalse(repository.existsByEmail("a@example.com"));
+        assertFalse(repository.existsByEmail("x@example.com"));
+        assertTrue(repository.existsByEmail("y@example.com"));
+
+        repository.deleteById(user.getId());
+        assertFalse(repository.existsByEmail("y@example.com"));
+    }
+
+    @Test
+    void pageParams_ShouldRejectInvalidValues() {
+        assertThrows(ValidationException.class, () -> PageParams.of(-1, 10, null));
+        assertThrows(ValidationException.class, () -> PageParams.of(0, 0, null));
+        assertThrows(ValidationException.class, () -> PageParams.of(0, PageParams.MAX_SIZE + 1, null));
+        assertThrows(ValidationException.class, () -> PageParams.of(0, 10, "не курсор"));
+        assertEquals(PageParams.DEFAULT_SIZE, PageParams.of(5, null, null).getSize());
+        assertEquals(PageParams.DEFAULT_SIZE, PageParams.of(null, null, PageParams.encodeCursor(1L)).getSize());
+        assertFalse(PageParams.of(null, null, null).isPaged());
+    }
+
+    @Test
+    void findAll_WhenNoPageRequested_ShouldReturnAllUsers() {
+        for (int i = 0; i < PageParams.DEFAULT_SIZE + 5; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@example.com");
+            repository.save(user);
+        }
+
+        assertEquals(PageParams.DEFAULT_SIZE + 5, repository.findAll(PageParams.of(null, null, null)).size());
+        assertEquals(PageParams.DEFAULT_SIZE, repository.findAll(PageParams.of(0, null, null)).size());
+    }
+
+    private static List<Long> ids(Collection<User> users) {
+        return users.stream()
+                .map(User::getId)
+                .toList();
+    }
+}
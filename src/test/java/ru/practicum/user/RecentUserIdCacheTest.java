@@ -0,0 +1,63 @@
+package ru.practicum.user;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.user.service.RecentUserIdCache;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentUserIdCacheTest {
+    private final RecentUserIdCache cache = new RecentUserIdCache(16);
+
+    @Test
+    void add_ShouldRememberIdUntilInvalidated() {
+        cache.add(7L, cache.generation());
+
+        assertTrue(cache.contains(7L));
+        assertFalse(cache.contains(8L));
+
+        cache.invalidate(7L);
+        assertFalse(cache.contains(7L));
+    }
+
+    @Test
+    void add_WhenDeletionHappenedAfterCheck_ShouldNotRememberId() {
+        long observed = cache.generation();
+        cache.invalidate(7L);
+
+        cache.add(7L, observed);
+
+        assertFalse(cache.contains(7L));
+        cache.add(7L, cache.generation());
+        assertTrue(cache.contains(7L));
+    }
+
+    @Test
+    void add_ShouldIgnoreEmptyId() {
+        cache.add(0L, cache.generation());
+
+        assertFalse(cache.contains(0L));
+    }
+
+    @Test
+    void addAndInvalidate_WhenRacing_ShouldNeverLeaveDeletedIdCached() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            for (int i = 0; i < 20_000; i++) {
+                long userId = i + 1L;
+                long observed = cache.generation();
+                Future<?> added = executor.submit(() -> cache.add(userId, observed));
+                cache.invalidate(userId);
+                added.get(10, TimeUnit.SECONDS);
+
+                assertFalse(cache.contains(userId), "Удаленный Ид остался в кэше: " + userId);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -7,10 +7,14 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import ru.practicum.shareit.exceptions.EmailAlreadyExistsException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.exceptions.PreconditionFailedException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.pagination.PageParams;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserResponseDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.model.UserMapper;
+import ru.practicum.shareit.user.principal.Sharer;
 import ru.practicum.shareit.user.repository.UserRepository;
 import ru.practicum.shareit.user.service.UserServiceImpl;
 import java.util.List;
@@ -27,6 +31,9 @@ class UserServiceImplTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private ItemRepository itemRepository;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -46,8 +53,9 @@ class UserServiceImplTest {
         expectedResponse.setName("John Doe");
         expectedResponse.setEmail("john@example.com");
 
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
         when(userMapper.toUser(userDto)).thenReturn(user);
+        when(userRepository.nextId()).thenReturn(1L);
+        when(userRepository.reserveEmail("john@example.com", 1L)).thenReturn(true);
         when(userRepository.save(user)).thenReturn(user);
         when(userMapper.toResponseDto(user)).thenReturn(expectedResponse);
 
@@ -58,7 +66,7 @@ class UserServiceImplTest {
         assertEquals(expectedResponse.getName(), result.getName());
         assertEquals(expectedResponse.getEmail(), result.getEmail());
 
-        verify(userRepository).existsByEmail(userDto.getEmail());
+        verify(userRepository).reserveEmail(userDto.getEmail(), 1L);
         verify(userMapper).toUser(userDto);
         verify(userRepository).save(user);
         verify(userMapper).toResponseDto(user);
@@ -69,13 +77,18 @@ class UserServiceImplTest {
         UserDto userDto = new UserDto();
         userDto.setEmail("exists@example.com");
 
-        when(userRepository.existsByEmail(userDto.getEmail())).thenReturn(true);
+        User user = new User();
+        user.setEmail("exists@example.com");
+
+        when(userMapper.toUser(userDto)).thenReturn(user);
+        when(userRepository.nextId()).thenReturn(2L);
+        when(userRepository.reserveEmail(userDto.getEmail(), 2L)).thenReturn(false);
 
         assertThrows(EmailAlreadyExistsException.class, () -> userService.create(userDto));
 
-        verify(userRepository).existsByEmail(userDto.getEmail());
-        verify(userMapper, never()).toUser(any());
+        verify(userRepository).reserveEmail(userDto.getEmail(), 2L);
         verify(userRepository, never()).save(any());
+        verify(userRepository, never()).releaseEmail(any(), any());
     }
 
     @Test
@@ -139,18 +152,19 @@ class UserServiceImplTest {
         response2.setName("Jane Smith");
         response2.setEmail("jane@example.com");
 
-        when(userRepository.findAll()).thenReturn(List.of(user1, user2));
+        PageParams page = PageParams.of(0, 10, null);
+        when(userRepository.findAll(page)).thenReturn(List.of(user1, user2));
         when(userMapper.toResponseDto(user1)).thenReturn(response1);
         when(userMapper.toResponseDto(user2)).thenReturn(response2);
 
-        List<UserResponseDto> result = userService.getAllUsers();
+        List<UserResponseDto> result = userService.getAllUsers(page);
 
         assertNotNull(result);
         assertEquals(2, result.size());
         assertEquals(response1, result.get(0));
         assertEquals(response2, result.get(1));
 
-        verify(userRepository).findAll();
+        verify(userRepository).findAll(page);
         verify(userMapper, times(2)).toResponseDto(any(User.class));
     }
 
@@ -167,7 +181,7 @@ class UserServiceImplTest {
         userFromDto.setEmail(userDto.getEmail());
         when(userMapper.toUser(userDto)).thenReturn(userFromDto);
 
-        when(userRepository.existsByEmailAndIdNot(userDto.getEmail(), userId)).thenReturn(false);
+        when(userRepository.reserveEmail(userDto.getEmail(), userId)).thenReturn(true);
 
         User updatedUser = new User();
         updatedUser.setId(userId);
@@ -187,12 +201,43 @@ class UserServiceImplTest {
         assertEquals(userDto.getName(), result.getName());
         assertEquals(userDto.getEmail(), result.getEmail());
 
-        verify(userRepository).existsByEmailAndIdNot(userDto.getEmail(), userId);
+        verify(userRepository).reserveEmail(userDto.getEmail(), userId);
         verify(userMapper).toUser(userDto);
         verify(userRepository).update(userFromDto);
+        verify(userRepository, never()).releaseEmail(any(), any());
         verify(userMapper).toResponseDto(updatedUser);
     }
 
+    @Test
+    void update_WhenUpdateFails_ShouldReleaseOnlyNewEmail() {
+        Long userId = 1L;
+        User existingUser = new User();
+        existingUser.setId(userId);
+        existingUser.setEmail("john@example.com");
+        when(userRepository.findById(userId)).thenReturn(existingUser);
+        when(userRepository.update(any(User.class)))
+                .thenThrow(new PreconditionFailedException("Пользователь был изменен другим запросом"));
+
+        failUpdate(userId, "new@example.com");
+        verify(userRepository).releaseEmail("new@example.com", userId);
+
+        clearInvocations(userRepository);
+        failUpdate(userId, " John@Example.COM ");
+        verify(userRepository, never()).releaseEmail(any(), any());
+    }
+
+    private void failUpdate(Long userId, String email) {
+        UserDto userDto = new UserDto();
+        userDto.setEmail(email);
+        User userFromDto = new User();
+        userFromDto.setId(userId);
+        userFromDto.setEmail(email);
+        when(userMapper.toUser(userDto)).thenReturn(userFromDto);
+        when(userRepository.reserveEmail(email, userId)).thenReturn(true);
+
+        assertThrows(PreconditionFailedException.class, () -> userService.update(userDto, userId));
+    }
+
     @Test
     void update_WhenEmailExists_ShouldThrowException() {
         Long userId = 1L;
@@ -200,11 +245,15 @@ class UserServiceImplTest {
         userDto.setId(userId);
         userDto.setEmail("exists@example.com");
 
-        when(userRepository.existsByEmailAndIdNot(userDto.getEmail(), userId)).thenReturn(true);
+        User userFromDto = new User();
+        userFromDto.setId(userId);
+        userFromDto.setEmail(userDto.getEmail());
+        when(userMapper.toUser(userDto)).thenReturn(userFromDto);
+        when(userRepository.reserveEmail(userDto.getEmail(), userId)).thenReturn(false);
 
         assertThrows(EmailAlreadyExistsException.class, () -> userService.update(userDto, userId));
 
-        verify(userRepository).existsByEmailAndIdNot(userDto.getEmail(), userId);
+        verify(userRepository).reserveEmail(userDto.getEmail(), userId);
         verify(userRepository, never()).findById(any());
         verify(userRepository, never()).update(any());
     }
@@ -212,24 +261,78 @@ class UserServiceImplTest {
     @Test
     void deleteById_ShouldDeleteUser() {
         Long userId = 1L;
-
         doNothing().when(userRepository).deleteById(userId);
 
         userService.deleteById(userId);
 
         verify(userRepository).deleteById(userId);
-        // findById не вызывается в сервисе, поэтому его не нужно проверять
+        verify(userRepository, never()).releaseEmail(any(), any());
+        verify(itemRepository).deleteByOwnerId(userId);
     }
 
     @Test
     void deleteById_WhenUserNotExists_ShouldThrowException() {
         Long userId = 999L;
 
-        doThrow(new NotFoundException("Пользователь не найден"))
-                .when(userRepository).deleteById(userId);
+        doThrow(new NotFoundException("Пользователь не найден")).when(userRepository).deleteById(userId);
 
         assertThrows(NotFoundException.class, () -> userService.deleteById(userId));
 
-        verify(userRepository).deleteById(userId);
+        verify(userRepository, never()).releaseEmail(any(), any());
+        verify(itemRepository, never()).deleteByOwnerId(any());
+    }
+
+    @Test
+    void requireExists_ShouldCacheValidatedUserUntilDeleted() {
+        Long userId = 1L;
+
+        when(userRepository.existsById(userId)).thenReturn(true, false);
+
+        userService.requireExists(userId);
+        userService.requireExists(userId);
+        verify(userRepository, times(1)).existsById(userId);
+
+        userService.deleteById(userId);
+
+        assertThrows(NotFoundException.class, () -> userService.requireExists(userId));
+        verify(userRepository, times(2)).existsById(userId);
+        verify(userMapper, never()).toResponseDto(any());
+    }
+
+    @Test
+    void exists_WhenUserIdIsNull_ShouldNotQueryRepository() {
+        assertFalse(userService.exists(null));
+
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    void resolveSharer_ShouldQueryRepositoryAtMostOncePerRequest() {
+        Long userId = 1L;
+        User user = new User();
+        user.setId(userId);
+        UserResponseDto profile = new UserResponseDto();
+        profile.setId(userId);
+
+        when(userRepository.findById(userId)).thenReturn(user);
+        when(userMapper.toResponseDto(user)).thenReturn(profile);
+
+        Sharer first = userService.resolveSharer(userId);
+        assertSame(profile, first.getProfile());
+        verify(userRepository, times(1)).findById(userId);
+
+        Sharer second = userService.resolveSharer(userId);
+        verify(userRepository, times(1)).findById(userId);
+        assertSame(profile, second.getProfile());
+        assertSame(profile, second.getProfile());
+        verify(userRepository, times(2)).findById(userId);
+        verify(userRepository, never()).existsById(any());
+    }
+
+    @Test
+    void resolveSharer_WhenUserNotExists_ShouldThrowException() {
+        when(userRepository.findById(2L)).thenThrow(new NotFoundException("Пользователь не найден"));
+
+        assertThrows(NotFoundException.class, () -> userService.resolveSharer(2L));
     }
-}
\ No newline at end of file
+}